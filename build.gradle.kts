@@ -16,6 +16,13 @@ java {
 	targetCompatibility = JavaVersion.VERSION_11
 }
 
+sourceSets {
+	create("jmh") {
+		compileClasspath += sourceSets["main"].output
+		runtimeClasspath += sourceSets["main"].output
+	}
+}
+
 defaultTasks("clean", "build", "sourcesJar", "shadowJar", "bintrayUpload")
 
 tasks {
@@ -26,6 +33,22 @@ tasks {
 	}
 }
 
+task<JavaExec>("jmh") {
+	group = "verification"
+	description = "Runs the JMH benchmarks against an in-process stub of the NameMC API."
+	dependsOn(tasks["jmhClasses"])
+	classpath = sourceSets["jmh"].runtimeClasspath
+	main = "org.openjdk.jmh.Main"
+	val resultFile = file("$buildDir/reports/jmh/results.json")
+	args("-prof", "gc", "-rf", "json", "-rff", resultFile.path)
+	if (project.hasProperty("jmhInclude")) {
+		args(project.property("jmhInclude") as String)
+	}
+	doFirst {
+		resultFile.parentFile.mkdirs()
+	}
+}
+
 task<Jar>("sourcesJar") {
 	from(sourceSets["main"].allSource)
 	archiveClassifier.set("sources")
@@ -37,9 +60,12 @@ repositories {
 
 dependencies {
 	compileOnly("org.jetbrains:annotations:17.0.0")
-	api("org.json:json:20180813")
+	testCompileOnly("org.jetbrains:annotations:17.0.0")
 	testRuntime("org.junit.jupiter:junit-jupiter-engine:5.5.0")
 	testImplementation("org.junit.jupiter:junit-jupiter-api:5.5.0")
+	"jmhCompileOnly"("org.jetbrains:annotations:17.0.0")
+	"jmhImplementation"("org.openjdk.jmh:jmh-core:1.23")
+	"jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.23")
 }
 
 publishing {
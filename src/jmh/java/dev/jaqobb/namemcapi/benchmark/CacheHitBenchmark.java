@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.benchmark;
+
+import dev.jaqobb.namemcapi.http.HttpClientTransport;
+import dev.jaqobb.namemcapi.profile.Profile;
+import dev.jaqobb.namemcapi.profile.ProfileRepository;
+import dev.jaqobb.namemcapi.server.Server;
+import dev.jaqobb.namemcapi.server.ServerRepository;
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CacheHitBenchmark {
+
+	private static final UUID UNIQUE_ID = StubNameMCServer.getUniqueId(0);
+	private static final String ADDRESS = "hypixel.net";
+
+	private StubNameMCServer server;
+	private ProfileRepository profileRepository;
+	private ServerRepository serverRepository;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.server = new StubNameMCServer(100, 1_000);
+		HttpClientTransport transport = new HttpClientTransport(this.server.getUri());
+		this.profileRepository = new ProfileRepository(1, ChronoUnit.HOURS, transport);
+		this.serverRepository = new ServerRepository(1, ChronoUnit.HOURS, transport);
+		this.profileRepository.cacheProfile(UNIQUE_ID, false).join();
+		this.serverRepository.cacheServer(ADDRESS, false).join();
+	}
+
+	@Benchmark
+	public Profile profileHit() {
+		return this.profileRepository.cacheProfile(UNIQUE_ID, false).join();
+	}
+
+	@Benchmark
+	public Server serverHit() {
+		return this.serverRepository.cacheServer(ADDRESS, false).join();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.profileRepository.close();
+		this.serverRepository.close();
+		this.server.close();
+	}
+}
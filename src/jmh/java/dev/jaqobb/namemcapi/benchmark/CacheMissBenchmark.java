@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.benchmark;
+
+import dev.jaqobb.namemcapi.http.HttpClientTransport;
+import dev.jaqobb.namemcapi.profile.Profile;
+import dev.jaqobb.namemcapi.profile.ProfileRepository;
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every call bypasses the cache, so the benchmark measures the full fetch path with 8 threads competing for it.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheMissBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Repository {
+
+		@Param({"10", "1000"})
+		public int friendCount;
+
+		private StubNameMCServer server;
+		private ProfileRepository profileRepository;
+
+		@Setup
+		public void setUp() throws IOException {
+			this.server = new StubNameMCServer(this.friendCount, 0);
+			this.profileRepository = new ProfileRepository(1, ChronoUnit.HOURS, new HttpClientTransport(this.server.getUri()));
+		}
+
+		@TearDown
+		public void tearDown() {
+			this.profileRepository.close();
+			this.server.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Keys {
+
+		private static int nextThread;
+
+		private int thread;
+		private int index;
+
+		@Setup
+		public void setUp() {
+			synchronized (Keys.class) {
+				this.thread = nextThread++;
+			}
+		}
+
+		private UUID next() {
+			return new UUID(this.thread, this.index++ & 1023);
+		}
+	}
+
+	@Benchmark
+	public Profile distinctMiss(Repository repository, Keys keys) {
+		return repository.profileRepository.cacheProfile(keys.next(), true).join();
+	}
+
+	// All threads ask for the same profile, so most calls join a request that is already in flight.
+	@Benchmark
+	public Profile sharedMiss(Repository repository) {
+		return repository.profileRepository.cacheProfile(StubNameMCServer.getUniqueId(0), true).join();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.benchmark;
+
+import dev.jaqobb.namemcapi.profile.Profile;
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import dev.jaqobb.namemcapi.server.Server;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Half of the probes are present, so both the found and the missing paths are measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LookupBenchmark {
+
+	private static final int PROBE_COUNT = 1024;
+
+	@Param({"100", "100000"})
+	public int size;
+
+	private Server server;
+	private Profile profile;
+	private UUID[] uniqueIdProbes;
+	private String[] nameProbes;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		List<UUID> likes = new ArrayList<>(this.size);
+		List<Friend> friends = new ArrayList<>(this.size);
+		for (int index = 0; index < this.size; index++) {
+			likes.add(StubNameMCServer.getUniqueId(index));
+			friends.add(new Friend(StubNameMCServer.getUniqueId(index), StubNameMCServer.getName(index)));
+		}
+		this.server = new Server("hypixel.net", likes);
+		this.profile = new Profile(StubNameMCServer.getUniqueId(-1), friends);
+		Random random = new Random(0L);
+		this.uniqueIdProbes = new UUID[PROBE_COUNT];
+		this.nameProbes = new String[PROBE_COUNT];
+		for (int index = 0; index < PROBE_COUNT; index++) {
+			int probe = random.nextInt(this.size * 2);
+			this.uniqueIdProbes[index] = StubNameMCServer.getUniqueId(probe);
+			this.nameProbes[index] = StubNameMCServer.getName(probe).toUpperCase();
+		}
+	}
+
+	@Benchmark
+	public boolean hasLiked() {
+		return this.server.hasLiked(this.uniqueIdProbes[this.index++ & (PROBE_COUNT - 1)]);
+	}
+
+	@Benchmark
+	public Friend getFriendByUniqueId() {
+		return this.profile.getFriend(this.uniqueIdProbes[this.index++ & (PROBE_COUNT - 1)]);
+	}
+
+	@Benchmark
+	public Friend getFriendByName() {
+		return this.profile.getFriend(this.nameProbes[this.index++ & (PROBE_COUNT - 1)], false);
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+// Serves fixed friend and like payloads for any profile or server, so benchmarks measure the library and not NameMC.
+public final class StubNameMCServer implements AutoCloseable {
+
+	private static final long UNIQUE_ID_SEED = 0x4E616D654D43L;
+
+	static {
+		// The JDK server writes headers and body separately, which otherwise adds a delayed ACK to every response.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	@NotNull
+	private final HttpServer server;
+	@NotNull
+	private final ExecutorService executor;
+	@NotNull
+	private final byte[] friendsPayload;
+	@NotNull
+	private final byte[] likesPayload;
+	@NotNull
+	private final LongAdder requestCount = new LongAdder();
+
+	public StubNameMCServer(int friendCount, int likeCount) throws IOException {
+		this.friendsPayload = createFriendsPayload(friendCount);
+		this.likesPayload = createLikesPayload(likeCount);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+			Thread thread = new Thread(runnable, "Stub NameMC Server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	@NotNull
+	public URI getUri() {
+		return URI.create("http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort());
+	}
+
+	public long getRequestCount() {
+		return this.requestCount.sum();
+	}
+
+	@NotNull
+	public static UUID getUniqueId(int index) {
+		return new UUID(UNIQUE_ID_SEED, index);
+	}
+
+	@NotNull
+	public static String getName(int index) {
+		return "Player" + index;
+	}
+
+	@NotNull
+	public static byte[] createFriendsPayload(int friendCount) {
+		StringBuilder payload = new StringBuilder(friendCount * 80 + 2).append('[');
+		for (int index = 0; index < friendCount; index++) {
+			if (index > 0) {
+				payload.append(',');
+			}
+			payload.append("{\"uniqueId\":\"").append(getUniqueId(index)).append("\",\"name\":\"").append(getName(index)).append("\"}");
+		}
+		return payload.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@NotNull
+	public static byte[] createLikesPayload(int likeCount) {
+		StringBuilder payload = new StringBuilder(likeCount * 39 + 2).append('[');
+		for (int index = 0; index < likeCount; index++) {
+			if (index > 0) {
+				payload.append(',');
+			}
+			payload.append('"').append(getUniqueId(index)).append('"');
+		}
+		return payload.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void handle(@NotNull HttpExchange exchange) throws IOException {
+		this.requestCount.increment();
+		String path = exchange.getRequestURI().getPath();
+		byte[] payload;
+		if (path.startsWith("/profile/") && path.endsWith("/friends")) {
+			payload = this.friendsPayload;
+		} else if (path.startsWith("/server/") && path.endsWith("/likes")) {
+			payload = this.likesPayload;
+		} else {
+			exchange.sendResponseHeaders(404, -1L);
+			exchange.close();
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, payload.length);
+		try (OutputStream body = exchange.getResponseBody()) {
+			body.write(payload);
+		}
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+}
@@ -24,24 +24,43 @@
 
 package dev.jaqobb.namemcapi;
 
+import dev.jaqobb.namemcapi.http.HttpTransport;
+import dev.jaqobb.namemcapi.profile.FriendGraph;
 import dev.jaqobb.namemcapi.profile.ProfileRepository;
 import dev.jaqobb.namemcapi.server.ServerRepository;
+import dev.jaqobb.namemcapi.watch.Watchlist;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.NotNull;
 
-public class NameMCAPI {
+public class NameMCAPI implements AutoCloseable {
 
 	@NotNull
 	private final ProfileRepository profileRepository;
 	@NotNull
 	private final ServerRepository serverRepository;
+	@NotNull
+	private final FriendGraph friendGraph;
+	@NotNull
+	private final Watchlist watchlist;
 
 	public NameMCAPI() {
 		this(new ProfileRepository(), new ServerRepository());
 	}
 
+	public NameMCAPI(@NotNull HttpTransport transport) {
+		this(new ProfileRepository(5, ChronoUnit.MINUTES, transport), new ServerRepository(10, ChronoUnit.MINUTES, transport));
+	}
+
+	public NameMCAPI(@NotNull HttpTransport transport, @NotNull Executor executor) {
+		this(new ProfileRepository(5, ChronoUnit.MINUTES, transport, executor), new ServerRepository(10, ChronoUnit.MINUTES, transport, executor));
+	}
+
 	public NameMCAPI(@NotNull ProfileRepository profileRepository, @NotNull ServerRepository serverRepository) {
 		this.profileRepository = profileRepository;
 		this.serverRepository = serverRepository;
+		this.friendGraph = new FriendGraph(profileRepository);
+		this.watchlist = new Watchlist(profileRepository, serverRepository);
 	}
 
 	@NotNull
@@ -53,4 +72,21 @@ public class NameMCAPI {
 	public ServerRepository getServerRepository() {
 		return this.serverRepository;
 	}
+
+	@NotNull
+	public FriendGraph getFriendGraph() {
+		return this.friendGraph;
+	}
+
+	@NotNull
+	public Watchlist getWatchlist() {
+		return this.watchlist;
+	}
+
+	@Override
+	public void close() {
+		this.watchlist.close();
+		this.profileRepository.close();
+		this.serverRepository.close();
+	}
 }
@@ -0,0 +1,411 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class BoundedCacheStore<K, V> implements CacheStore<K, V> {
+
+	private static final long MAINTENANCE_PERIOD = TimeUnit.SECONDS.toNanos(1L);
+	private static final ScheduledExecutorService MAINTENANCE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "NameMCAPI Cache Maintenance");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final long maximumWeight;
+	@NotNull
+	private final Weigher<? super V> weigher;
+	@NotNull
+	private final Ticker ticker;
+	@NotNull
+	private final Map<K, CacheNode<K, V>> data = new ConcurrentHashMap<>(16, 0.75F);
+	@NotNull
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	@NotNull
+	private final CacheNode<K, V> clock = new CacheNode<>();
+	@NotNull
+	private final FrequencySketch sketch;
+	@NotNull
+	private final TimerWheel<K, V> timerWheel;
+	@NotNull
+	private final ScheduledFuture<?> maintenanceTask;
+	@NotNull
+	private final LongAdder evictionCount = new LongAdder();
+	@NotNull
+	private final LongAdder expirationCount = new LongAdder();
+	@NotNull
+	private final List<CacheListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+	private long weightedSize;
+
+	public BoundedCacheStore(long maximumSize) {
+		this(maximumSize, value -> 1);
+	}
+
+	public BoundedCacheStore(long maximumWeight, @NotNull Weigher<? super V> weigher) {
+		this(maximumWeight, weigher, Ticker.system());
+	}
+
+	public BoundedCacheStore(long maximumWeight, @NotNull Weigher<? super V> weigher, @NotNull Ticker ticker) {
+		if (maximumWeight < 1) {
+			throw new IllegalArgumentException("maximumWeight cannot be smaller than 1");
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.ticker = ticker;
+		this.sketch = new FrequencySketch(maximumWeight);
+		this.timerWheel = new TimerWheel<>(ticker.read());
+		WeakReference<BoundedCacheStore<K, V>> reference = new WeakReference<>(this);
+		this.maintenanceTask = MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(() -> {
+			BoundedCacheStore<K, V> store = reference.get();
+			if (store == null) {
+				throw new IllegalStateException("Cache store was garbage collected");
+			}
+			store.cleanUp();
+		}, MAINTENANCE_PERIOD, MAINTENANCE_PERIOD, TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	public long getWeightedSize() {
+		this.evictionLock.lock();
+		try {
+			return this.weightedSize;
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	public long getExpirationCount() {
+		return this.expirationCount.sum();
+	}
+
+	@Nullable
+	@Override
+	public V get(@NotNull K key) {
+		this.sketch.increment(FrequencySketch.spread(key.hashCode()));
+		CacheNode<K, V> node = this.data.get(key);
+		// Maintenance drops expired entries only every so often, so until then they are hidden here.
+		if (node == null || node.expirationTime - this.ticker.read() <= 0L) {
+			return null;
+		}
+		if (!node.referenced) {
+			node.referenced = true;
+		}
+		return node.value;
+	}
+
+	@Nullable
+	@Override
+	public V getIfValid(@NotNull K key, @NotNull Predicate<? super V> validity) {
+		this.sketch.increment(FrequencySketch.spread(key.hashCode()));
+		CacheNode<K, V> node = this.data.get(key);
+		if (node == null) {
+			return null;
+		}
+		V value = node.value;
+		if (node.validityKnown ? node.validUntil - this.ticker.read() <= 0L : !validity.test(value)) {
+			return null;
+		}
+		if (!node.referenced) {
+			node.referenced = true;
+		}
+		return value;
+	}
+
+	@Override
+	public long getRemainingValidity(@NotNull K key, @NotNull V value) {
+		CacheNode<K, V> node = this.data.get(key);
+		if (node == null || node.value != value || !node.validityKnown) {
+			return UNKNOWN_VALIDITY;
+		}
+		return node.validUntil - this.ticker.read();
+	}
+
+	@Nullable
+	@Override
+	public V put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive) {
+		return this.put(key, value, timeToLive, null, false);
+	}
+
+	@Nullable
+	@Override
+	public V put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive, @NotNull Duration validFor) {
+		return this.put(key, value, timeToLive, validFor, false);
+	}
+
+	@Nullable
+	@Override
+	public V putIfAbsent(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive) {
+		return this.put(key, value, timeToLive, null, true);
+	}
+
+	@Nullable
+	@Override
+	public V putIfAbsent(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive, @NotNull Duration validFor) {
+		return this.put(key, value, timeToLive, validFor, true);
+	}
+
+	@Nullable
+	private V put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive, @Nullable Duration validFor, boolean onlyIfAbsent) {
+		int weight = this.weigher.weigh(value);
+		if (weight < 0) {
+			throw new IllegalArgumentException("weight cannot be smaller than 0");
+		}
+		long now = this.ticker.read();
+		long expirationTime = now + saturatedToNanos(timeToLive);
+		long validUntil = validFor == null ? 0L : now + saturatedToNanos(validFor);
+		this.evictionLock.lock();
+		try {
+			this.sketch.increment(FrequencySketch.spread(key.hashCode()));
+			CacheNode<K, V> node = this.data.get(key);
+			if (node != null) {
+				V oldValue = node.value;
+				if (onlyIfAbsent) {
+					return oldValue;
+				}
+				node.value = value;
+				node.expirationTime = expirationTime;
+				node.validUntil = validUntil;
+				node.validityKnown = validFor != null;
+				node.referenced = true;
+				this.weightedSize += weight - node.weight;
+				node.weight = weight;
+				this.timerWheel.reschedule(node);
+				this.notifyPut(key, value, oldValue);
+				this.maintain(now, null);
+				return oldValue;
+			}
+			node = new CacheNode<>(key, value, weight, expirationTime);
+			node.validUntil = validUntil;
+			node.validityKnown = validFor != null;
+			this.data.put(key, node);
+			this.linkLast(node);
+			this.timerWheel.schedule(node);
+			this.weightedSize += weight;
+			this.notifyPut(key, value, null);
+			this.maintain(now, node);
+			return null;
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Nullable
+	@Override
+	public V remove(@NotNull K key) {
+		this.evictionLock.lock();
+		try {
+			CacheNode<K, V> node = this.data.remove(key);
+			if (node == null) {
+				return null;
+			}
+			this.unlink(node);
+			this.notifyRemoval(node, RemovalCause.EXPLICIT);
+			return node.value;
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			if (!this.listeners.isEmpty()) {
+				for (CacheNode<K, V> node : this.data.values()) {
+					this.notifyRemoval(node, RemovalCause.EXPLICIT);
+				}
+			}
+			this.data.clear();
+			this.clock.previous = this.clock;
+			this.clock.next = this.clock;
+			this.timerWheel.clear();
+			this.weightedSize = 0L;
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.data.size();
+	}
+
+	@NotNull
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<>() {
+
+			@NotNull
+			@Override
+			public Iterator<V> iterator() {
+				Iterator<CacheNode<K, V>> iterator = BoundedCacheStore.this.data.values().iterator();
+				return new Iterator<>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return iterator.next().value;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return BoundedCacheStore.this.data.size();
+			}
+		};
+	}
+
+	@Override
+	public void cleanUp() {
+		this.evictionLock.lock();
+		try {
+			this.maintain(this.ticker.read(), null);
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean addListener(@NotNull CacheListener<K, V> listener) {
+		this.listeners.add(listener);
+		return true;
+	}
+
+	@Override
+	public void close() {
+		this.maintenanceTask.cancel(false);
+	}
+
+	private void maintain(long now, @Nullable CacheNode<K, V> candidate) {
+		this.timerWheel.advance(now, node -> {
+			if (!this.data.remove(node.key, node)) {
+				return false;
+			}
+			this.unlinkFromClock(node);
+			this.weightedSize -= node.weight;
+			this.expirationCount.increment();
+			this.notifyRemoval(node, RemovalCause.EXPIRED);
+			return true;
+		});
+		while (this.weightedSize > this.maximumWeight) {
+			CacheNode<K, V> victim = this.clock.next;
+			if (victim == this.clock) {
+				return;
+			}
+			if (victim.referenced && victim != candidate) {
+				victim.referenced = false;
+				this.unlinkFromClock(victim);
+				this.linkLast(victim);
+				continue;
+			}
+			if (candidate != null && victim != candidate && this.data.get(candidate.key) == candidate) {
+				int candidateFrequency = this.sketch.frequency(FrequencySketch.spread(candidate.key.hashCode()));
+				int victimFrequency = this.sketch.frequency(FrequencySketch.spread(victim.key.hashCode()));
+				if (candidateFrequency <= victimFrequency) {
+					victim = candidate;
+				}
+				candidate = null;
+			}
+			this.data.remove(victim.key, victim);
+			this.unlink(victim);
+			this.evictionCount.increment();
+			this.notifyRemoval(victim, RemovalCause.SIZE);
+		}
+	}
+
+	private void notifyPut(@NotNull K key, @NotNull V value, @Nullable V oldValue) {
+		for (CacheListener<K, V> listener : this.listeners) {
+			listener.onPut(key, value, oldValue);
+		}
+	}
+
+	private void notifyRemoval(@NotNull CacheNode<K, V> node, @NotNull RemovalCause cause) {
+		for (CacheListener<K, V> listener : this.listeners) {
+			listener.onRemoval(node.key, node.value, cause);
+		}
+	}
+
+	private void linkLast(@NotNull CacheNode<K, V> node) {
+		CacheNode<K, V> last = this.clock.previous;
+		node.previous = last;
+		node.next = this.clock;
+		last.next = node;
+		this.clock.previous = node;
+	}
+
+	private void unlink(@NotNull CacheNode<K, V> node) {
+		this.unlinkFromClock(node);
+		this.timerWheel.deschedule(node);
+		this.weightedSize -= node.weight;
+	}
+
+	private void unlinkFromClock(@NotNull CacheNode<K, V> node) {
+		if (node.next == null) {
+			return;
+		}
+		node.next.previous = node.previous;
+		node.previous.next = node.next;
+		node.previous = null;
+		node.next = null;
+	}
+
+	private static long saturatedToNanos(@NotNull Duration duration) {
+		try {
+			return duration.toNanos();
+		} catch (ArithmeticException exception) {
+			return duration.isNegative() ? Long.MIN_VALUE / 2 : Long.MAX_VALUE / 2;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final class CacheNode<K, V> {
+
+	@NotNull
+	final K key;
+	@NotNull
+	volatile V value;
+	volatile long expirationTime;
+	// Ticker time until which the value is valid, only set when the value was stored with a validity.
+	volatile long validUntil;
+	volatile boolean validityKnown;
+	volatile boolean referenced;
+	int weight;
+
+	@Nullable
+	CacheNode<K, V> previous;
+	@Nullable
+	CacheNode<K, V> next;
+	@Nullable
+	CacheNode<K, V> previousInWheel;
+	@Nullable
+	CacheNode<K, V> nextInWheel;
+
+	@SuppressWarnings("unchecked")
+	CacheNode() {
+		this.key = (K) this;
+		this.value = (V) this;
+		this.previous = this;
+		this.next = this;
+		this.previousInWheel = this;
+		this.nextInWheel = this;
+	}
+
+	CacheNode(@NotNull K key, @NotNull V value, int weight, long expirationTime) {
+		this.key = key;
+		this.value = value;
+		this.weight = weight;
+		this.expirationTime = expirationTime;
+	}
+}
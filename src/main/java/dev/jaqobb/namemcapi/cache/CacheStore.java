@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public interface CacheStore<K, V> extends AutoCloseable {
+
+	long UNKNOWN_VALIDITY = Long.MIN_VALUE;
+
+	@Nullable
+	V get(@NotNull K key);
+
+	@Nullable
+	V put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive);
+
+	@Nullable
+	V putIfAbsent(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive);
+
+	// Stores the value along with how long it stays valid, which can be shorter than how long it is kept.
+	@Nullable
+	default V put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive, @NotNull Duration validFor) {
+		return this.put(key, value, timeToLive);
+	}
+
+	@Nullable
+	default V putIfAbsent(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive, @NotNull Duration validFor) {
+		return this.putIfAbsent(key, value, timeToLive);
+	}
+
+	// Returns the value only while it is valid. Stores that keep the validity given to put compare it with their ticker,
+	// reading the map once and allocating nothing. Other stores fall back to the given check.
+	@Nullable
+	default V getIfValid(@NotNull K key, @NotNull Predicate<? super V> validity) {
+		V value = this.get(key);
+		return value != null && validity.test(value) ? value : null;
+	}
+
+	// Returns the nanoseconds the given value stays valid for, negative once it expired, as measured by the store's ticker.
+	// Stores that do not keep the validity given to put, or no longer hold this very value, return UNKNOWN_VALIDITY.
+	default long getRemainingValidity(@NotNull K key, @NotNull V value) {
+		return UNKNOWN_VALIDITY;
+	}
+
+	@Nullable
+	V remove(@NotNull K key);
+
+	void clear();
+
+	int size();
+
+	@NotNull
+	Collection<V> values();
+
+	default void cleanUp() {
+	}
+
+	// Returns false when this store cannot report its changes.
+	default boolean addListener(@NotNull CacheListener<K, V> listener) {
+		return false;
+	}
+
+	@Override
+	default void close() {
+	}
+}
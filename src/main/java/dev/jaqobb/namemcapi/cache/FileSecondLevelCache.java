@@ -0,0 +1,229 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.cache;
+
+import dev.jaqobb.namemcapi.util.ExecutorHelper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Keeps every entry in its own file, named after the SHA-256 of its key, so nodes on one host or on a shared file
+// system can share a directory. Layout: expiration time in epoch milliseconds (long), CRC32 of the value (int), then the
+// value itself. Files are replaced by moving a complete temporary file over them, but a file system without atomic moves
+// can still show a reader a partly written file, which fails the checksum and is read as a miss.
+public class FileSecondLevelCache implements SecondLevelCache {
+
+	private static final String EXECUTOR_NAME = "NameMCAPI Second Level Cache";
+	private static final Pattern NAMESPACE_PATTERN = Pattern.compile("[a-z0-9_-]+");
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+	@NotNull
+	private final Path directory;
+	@NotNull
+	private final Executor executor;
+	private final boolean executorOwned;
+
+	public FileSecondLevelCache(@NotNull Path directory) throws IOException {
+		this(directory, ExecutorHelper.newQueryExecutor(EXECUTOR_NAME), true);
+	}
+
+	public FileSecondLevelCache(@NotNull Path directory, @NotNull Executor executor) throws IOException {
+		this(directory, executor, false);
+	}
+
+	private FileSecondLevelCache(@NotNull Path directory, @NotNull Executor executor, boolean executorOwned) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.executor = executor;
+		this.executorOwned = executorOwned;
+	}
+
+	@NotNull
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<byte[]> get(@NotNull String namespace, @NotNull String key) {
+		Path file = this.getFile(namespace, key);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.read(file);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, this.executor);
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Void> put(@NotNull String namespace, @NotNull String key, @NotNull byte[] value, @NotNull Duration timeToLive) {
+		Path file = this.getFile(namespace, key);
+		long expirationTime = System.currentTimeMillis() + timeToLive.toMillis();
+		return CompletableFuture.runAsync(() -> {
+			try {
+				this.write(file, value, expirationTime);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, this.executor);
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Void> remove(@NotNull String namespace, @NotNull String key) {
+		Path file = this.getFile(namespace, key);
+		return CompletableFuture.runAsync(() -> {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, this.executor);
+	}
+
+	// Deletes every expired entry. Expired entries are also deleted when they are read, so calling this is optional.
+	public int cleanUp() throws IOException {
+		int deleted = 0;
+		long now = System.currentTimeMillis();
+		try (DirectoryStream<Path> namespaces = Files.newDirectoryStream(this.directory, Files::isDirectory)) {
+			for (Path namespace : namespaces) {
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(namespace)) {
+					for (Path file : files) {
+						if (this.isExpired(file, now) && Files.deleteIfExists(file)) {
+							deleted++;
+						}
+					}
+				}
+			}
+		}
+		return deleted;
+	}
+
+	@Override
+	public void close() {
+		if (this.executorOwned && this.executor instanceof ExecutorService) {
+			ExecutorHelper.shutdownAndAwait((ExecutorService) this.executor);
+		}
+	}
+
+	@Nullable
+	private byte[] read(@NotNull Path file) throws IOException {
+		byte[] content;
+		try {
+			content = Files.readAllBytes(file);
+		} catch (NoSuchFileException exception) {
+			return null;
+		}
+		if (content.length < HEADER_SIZE) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(content);
+		if (buffer.getLong() <= System.currentTimeMillis()) {
+			Files.deleteIfExists(file);
+			return null;
+		}
+		int expectedChecksum = buffer.getInt();
+		CRC32 checksum = new CRC32();
+		checksum.update(content, HEADER_SIZE, content.length - HEADER_SIZE);
+		if ((int) checksum.getValue() != expectedChecksum) {
+			return null;
+		}
+		byte[] value = new byte[content.length - HEADER_SIZE];
+		System.arraycopy(content, HEADER_SIZE, value, 0, value.length);
+		return value;
+	}
+
+	private void write(@NotNull Path file, @NotNull byte[] value, long expirationTime) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			CRC32 checksum = new CRC32();
+			checksum.update(value);
+			byte[] content = new byte[HEADER_SIZE + value.length];
+			ByteBuffer.wrap(content).putLong(expirationTime).putInt((int) checksum.getValue()).put(value);
+			Files.write(temporaryFile, content);
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException exception) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private boolean isExpired(@NotNull Path file, long now) {
+		if (file.getFileName().toString().endsWith(".tmp")) {
+			return false;
+		}
+		try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+			ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+				// Keep reading until the expiration time is complete.
+			}
+			return buffer.hasRemaining() || buffer.flip().getLong() <= now;
+		} catch (IOException exception) {
+			return false;
+		}
+	}
+
+	@NotNull
+	private Path getFile(@NotNull String namespace, @NotNull String key) {
+		if (!NAMESPACE_PATTERN.matcher(namespace).matches()) {
+			throw new IllegalArgumentException("namespace can only contain lower case letters, digits, _ and -");
+		}
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException("SHA-256 is not available", exception);
+		}
+		char[] name = new char[digest.length << 1];
+		for (int index = 0; index < digest.length; index++) {
+			name[index << 1] = HEX_DIGITS[(digest[index] >> 4) & 0xF];
+			name[(index << 1) + 1] = HEX_DIGITS[digest[index] & 0xF];
+		}
+		return this.directory.resolve(namespace).resolve(new String(name));
+	}
+}
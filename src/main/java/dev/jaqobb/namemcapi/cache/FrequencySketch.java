@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class FrequencySketch {
+
+	private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+	private static final int MAXIMUM_CAPACITY = 1 << 18;
+
+	private final AtomicLongArray table;
+	private final int tableMask;
+	private final int sampleSize;
+	private final AtomicInteger size = new AtomicInteger();
+
+	FrequencySketch(long expectedSize) {
+		int capacity = (int) Math.max(16L, Math.min(expectedSize, MAXIMUM_CAPACITY));
+		int tableLength = Integer.highestOneBit(capacity - 1) << 1;
+		this.table = new AtomicLongArray(Math.max(4, tableLength >>> 2));
+		this.tableMask = this.table.length() - 1;
+		this.sampleSize = 10 * capacity;
+	}
+
+	static int spread(int hash) {
+		hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+		hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+		return (hash >>> 16) ^ hash;
+	}
+
+	int frequency(int hash) {
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int depth = 0; depth < 4; depth++) {
+			long word = this.table.get(this.indexOf(hash, depth));
+			int count = (int) ((word >>> ((start + depth) << 2)) & 0xFL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	void increment(int hash) {
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int depth = 0; depth < 4; depth++) {
+			added |= this.incrementAt(this.indexOf(hash, depth), start + depth);
+		}
+		if (added && this.size.incrementAndGet() >= this.sampleSize) {
+			this.reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xFL << offset;
+		while (true) {
+			long word = this.table.get(index);
+			if ((word & mask) == mask) {
+				return false;
+			}
+			if (this.table.compareAndSet(index, word, word + (1L << offset))) {
+				return true;
+			}
+		}
+	}
+
+	private int indexOf(int hash, int depth) {
+		long index = (hash + SEEDS[depth]) * SEEDS[depth];
+		index += index >>> 32;
+		return ((int) index) & this.tableMask;
+	}
+
+	private synchronized void reset() {
+		int currentSize = this.size.get();
+		if (currentSize < this.sampleSize) {
+			return;
+		}
+		int oddCounters = 0;
+		for (int index = 0; index < this.table.length(); index++) {
+			long word = this.table.getAndUpdate(index, value -> (value >>> 1) & RESET_MASK);
+			oddCounters += Long.bitCount(word & ONE_MASK);
+		}
+		this.size.addAndGet(-(currentSize - ((currentSize - (oddCounters >>> 2)) >>> 1)));
+	}
+}
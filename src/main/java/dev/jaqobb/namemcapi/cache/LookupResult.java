@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import dev.jaqobb.namemcapi.util.FutureHelper;
+import java.util.NoSuchElementException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public final class LookupResult<V> {
+
+	@NotNull
+	private final LookupStatus status;
+	@Nullable
+	private final V value;
+	@Nullable
+	private final Throwable failure;
+
+	private LookupResult(@NotNull LookupStatus status, @Nullable V value, @Nullable Throwable failure) {
+		this.status = status;
+		this.value = value;
+		this.failure = failure;
+	}
+
+	@NotNull
+	public static <V> LookupResult<V> found(@NotNull V value) {
+		return new LookupResult<>(LookupStatus.FOUND, value, null);
+	}
+
+	@NotNull
+	public static <V> LookupResult<V> failed(@NotNull Throwable failure) {
+		Throwable cause = FutureHelper.unwrap(failure);
+		return new LookupResult<>(LookupStatus.of(cause), null, cause);
+	}
+
+	@NotNull
+	public LookupStatus getStatus() {
+		return this.status;
+	}
+
+	public boolean isFound() {
+		return this.status == LookupStatus.FOUND;
+	}
+
+	public boolean isNotFound() {
+		return this.status == LookupStatus.NOT_FOUND;
+	}
+
+	public boolean isFailed() {
+		return this.status == LookupStatus.FAILED;
+	}
+
+	@Nullable
+	public V getValue() {
+		return this.value;
+	}
+
+	@NotNull
+	public V getValueOrThrow() {
+		if (this.value == null) {
+			throw new NoSuchElementException("Lookup did not find a value (" + this.status + ")");
+		}
+		return this.value;
+	}
+
+	@Nullable
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+	@Override
+	public String toString() {
+		return this.status == LookupStatus.FOUND ? "LookupResult{" + this.value + "}" : "LookupResult{" + this.status + ", " + this.failure + "}";
+	}
+}
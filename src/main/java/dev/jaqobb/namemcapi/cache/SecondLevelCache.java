@@ -0,0 +1,47 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.NotNull;
+
+// A cache shared by several repositories, usually on different nodes. Repositories check it after a local miss and
+// before asking NameMC, and fill it after every fetch. Values are opaque, versioned bytes produced by the repositories.
+public interface SecondLevelCache extends AutoCloseable {
+
+	// Completes with null when the key is missing or expired.
+	@NotNull
+	CompletableFuture<byte[]> get(@NotNull String namespace, @NotNull String key);
+
+	@NotNull
+	CompletableFuture<Void> put(@NotNull String namespace, @NotNull String key, @NotNull byte[] value, @NotNull Duration timeToLive);
+
+	@NotNull
+	CompletableFuture<Void> remove(@NotNull String namespace, @NotNull String key);
+
+	@Override
+	default void close() {
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class SingleFlight<K, V> {
+
+	@NotNull
+	private final Map<K, Call<V>> calls = new ConcurrentHashMap<>(16, 0.75F);
+	@NotNull
+	private final LongAdder coalescedCalls = new LongAdder();
+
+	// Every caller shares the returned future, so the call cannot be abandoned anymore.
+	@NotNull
+	public CompletableFuture<V> execute(@NotNull K key, @NotNull Supplier<CompletableFuture<V>> loader) {
+		Call<V> call = this.join(key, loader, true);
+		return call.future;
+	}
+
+	// Every caller gets its own future. Completing or cancelling it before the call is done detaches the caller,
+	// and once every caller has detached, the load itself is cancelled.
+	@NotNull
+	public CompletableFuture<V> executeCancellable(@NotNull K key, @NotNull Supplier<CompletableFuture<V>> loader) {
+		Call<V> call = this.join(key, loader, false);
+		CompletableFuture<V> callerFuture = new CompletableFuture<>();
+		call.future.whenComplete((value, throwable) -> {
+			if (throwable != null) {
+				callerFuture.completeExceptionally(throwable);
+			} else {
+				callerFuture.complete(value);
+			}
+		});
+		callerFuture.whenComplete((value, throwable) -> {
+			if (!call.future.isDone()) {
+				this.detach(key, call);
+			}
+		});
+		return callerFuture;
+	}
+
+	@NotNull
+	private Call<V> join(@NotNull K key, @NotNull Supplier<CompletableFuture<V>> loader, boolean pinned) {
+		Call<V> call = new Call<>(pinned);
+		while (true) {
+			Call<V> existingCall = this.calls.putIfAbsent(key, call);
+			if (existingCall == null) {
+				break;
+			}
+			synchronized (existingCall) {
+				if (!existingCall.abandoned) {
+					existingCall.pinned |= pinned;
+					existingCall.callers++;
+					this.coalescedCalls.increment();
+					return existingCall;
+				}
+			}
+			// The existing call is being cancelled, so it cannot be joined anymore.
+			this.calls.remove(key, existingCall);
+		}
+		CompletableFuture<V> loadFuture;
+		try {
+			loadFuture = loader.get();
+		} catch (Throwable throwable) {
+			loadFuture = CompletableFuture.failedFuture(throwable);
+		}
+		boolean abandoned;
+		synchronized (call) {
+			call.loadFuture = loadFuture;
+			abandoned = call.abandoned;
+		}
+		if (abandoned) {
+			loadFuture.cancel(true);
+		}
+		loadFuture.whenComplete((value, throwable) -> {
+			this.calls.remove(key, call);
+			if (throwable != null) {
+				call.future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+			} else {
+				call.future.complete(value);
+			}
+		});
+		return call;
+	}
+
+	private void detach(@NotNull K key, @NotNull Call<V> call) {
+		CompletableFuture<V> loadFuture;
+		synchronized (call) {
+			if (--call.callers > 0 || call.pinned || call.abandoned) {
+				return;
+			}
+			call.abandoned = true;
+			loadFuture = call.loadFuture;
+		}
+		this.calls.remove(key, call);
+		if (loadFuture != null) {
+			loadFuture.cancel(true);
+		}
+	}
+
+	public void awaitInFlight() {
+		while (!this.calls.isEmpty()) {
+			CompletableFuture.allOf(this.calls.values().stream().map(call -> call.future).toArray(CompletableFuture<?>[]::new))
+				.handle((result, throwable) -> null)
+				.join();
+		}
+	}
+
+	public boolean isInFlight(@NotNull K key) {
+		return this.calls.containsKey(key);
+	}
+
+	public int getInFlightCount() {
+		return this.calls.size();
+	}
+
+	public long getCoalescedCount() {
+		return this.coalescedCalls.sum();
+	}
+
+	private static final class Call<V> {
+
+		@NotNull
+		private final CompletableFuture<V> future = new CompletableFuture<>();
+		@Nullable
+		private CompletableFuture<V> loadFuture;
+		private boolean pinned;
+		private boolean abandoned;
+		private int callers = 1;
+
+		private Call(boolean pinned) {
+			this.pinned = pinned;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Layout: magic (int), version (int), then records of length (int), CRC32 of the payload (int) and the payload itself.
+public final class SnapshotFile {
+
+	private SnapshotFile() {
+		throw new UnsupportedOperationException("Cannot create instance of this class");
+	}
+
+	public static <T> int write(@NotNull Path path, int magic, int version, @NotNull Iterable<T> values, @NotNull Encoder<T> encoder) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		int records = 0;
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), 65536))) {
+				output.writeInt(magic);
+				output.writeInt(version);
+				RecordBuffer recordBuffer = new RecordBuffer();
+				DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+				CRC32 checksum = new CRC32();
+				for (T value : values) {
+					recordBuffer.reset();
+					encoder.encode(value, recordOutput);
+					recordOutput.flush();
+					checksum.reset();
+					checksum.update(recordBuffer.getBuffer(), 0, recordBuffer.size());
+					output.writeInt(recordBuffer.size());
+					output.writeInt((int) checksum.getValue());
+					output.write(recordBuffer.getBuffer(), 0, recordBuffer.size());
+					records++;
+				}
+			}
+			try {
+				Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException exception) {
+				Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+		return records;
+	}
+
+	// Truncated trailing records end the read, records with a bad checksum or payload are skipped.
+	public static <T> int read(@NotNull Path path, int magic, int maximumVersion, @NotNull Decoder<T> decoder, @NotNull Consumer<T> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot " + path + " is too large to be mapped");
+			}
+			if (size < 8L) {
+				throw new IOException("Snapshot " + path + " is missing its header");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+			if (buffer.getInt() != magic) {
+				throw new IOException("Snapshot " + path + " has an unknown format");
+			}
+			int version = buffer.getInt();
+			if (version < 1 || version > maximumVersion) {
+				throw new IOException("Snapshot " + path + " has unsupported version " + version);
+			}
+			CRC32 checksum = new CRC32();
+			int records = 0;
+			while (buffer.remaining() >= 8) {
+				int length = buffer.getInt();
+				int expectedChecksum = buffer.getInt();
+				if (length < 0 || length > buffer.remaining()) {
+					break;
+				}
+				ByteBuffer payload = buffer.slice();
+				payload.limit(length);
+				buffer.position(buffer.position() + length);
+				checksum.reset();
+				checksum.update(payload.duplicate());
+				if ((int) checksum.getValue() != expectedChecksum) {
+					continue;
+				}
+				T value;
+				try {
+					value = decoder.decode(payload, version);
+				} catch (IOException | BufferUnderflowException | IllegalArgumentException exception) {
+					continue;
+				}
+				if (value != null) {
+					consumer.accept(value);
+					records++;
+				}
+			}
+			return records;
+		}
+	}
+
+	@FunctionalInterface
+	public interface Encoder<T> {
+
+		void encode(@NotNull T value, @NotNull DataOutput output) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface Decoder<T> {
+
+		@Nullable
+		T decode(@NotNull ByteBuffer buffer, int version) throws IOException;
+	}
+
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+
+		private RecordBuffer() {
+			super(1024);
+		}
+
+		@NotNull
+		private byte[] getBuffer() {
+			return this.buf;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+
+final class TimerWheel<K, V> {
+
+	private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+	private static final long[] SPANS = {
+		ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1L)),
+		ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1L)),
+		ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1L)),
+		ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1L)),
+		BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1L)),
+		BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1L))
+	};
+	private static final long[] SHIFTS = {
+		Long.numberOfTrailingZeros(SPANS[0]),
+		Long.numberOfTrailingZeros(SPANS[1]),
+		Long.numberOfTrailingZeros(SPANS[2]),
+		Long.numberOfTrailingZeros(SPANS[3]),
+		Long.numberOfTrailingZeros(SPANS[4])
+	};
+
+	@NotNull
+	private final CacheNode<K, V>[][] wheel;
+	private final long origin;
+	private long time;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	TimerWheel(long origin) {
+		this.origin = origin;
+		this.wheel = new CacheNode[BUCKETS.length][];
+		for (int level = 0; level < BUCKETS.length; level++) {
+			this.wheel[level] = new CacheNode[BUCKETS[level]];
+			for (int bucket = 0; bucket < BUCKETS[level]; bucket++) {
+				this.wheel[level][bucket] = new CacheNode<>();
+			}
+		}
+	}
+
+	private static long ceilingPowerOfTwo(long value) {
+		return 1L << -Long.numberOfLeadingZeros(value - 1L);
+	}
+
+	void advance(long currentTime, @NotNull Predicate<CacheNode<K, V>> expirer) {
+		long previousTime = this.time;
+		this.time = Math.max(previousTime, currentTime - this.origin);
+		for (int level = 0; level < SHIFTS.length; level++) {
+			long previousTicks = previousTime >>> SHIFTS[level];
+			long currentTicks = this.time >>> SHIFTS[level];
+			long delta = currentTicks - previousTicks;
+			if (delta <= 0L) {
+				break;
+			}
+			this.expire(level, previousTicks, delta, expirer);
+		}
+	}
+
+	private void expire(int level, long previousTicks, long delta, @NotNull Predicate<CacheNode<K, V>> expirer) {
+		CacheNode<K, V>[] buckets = this.wheel[level];
+		int mask = buckets.length - 1;
+		int steps = (int) Math.min(1L + delta, buckets.length);
+		int start = (int) (previousTicks & mask);
+		int end = start + steps;
+		for (int index = start; index < end; index++) {
+			CacheNode<K, V> sentinel = buckets[index & mask];
+			CacheNode<K, V> node = sentinel.nextInWheel;
+			sentinel.previousInWheel = sentinel;
+			sentinel.nextInWheel = sentinel;
+			while (node != sentinel) {
+				CacheNode<K, V> next = node.nextInWheel;
+				node.previousInWheel = null;
+				node.nextInWheel = null;
+				if (node.expirationTime - this.origin - this.time > 0L || !expirer.test(node)) {
+					this.schedule(node);
+				}
+				node = next;
+			}
+		}
+	}
+
+	void schedule(@NotNull CacheNode<K, V> node) {
+		CacheNode<K, V> sentinel = this.findBucket(Math.max(this.time, node.expirationTime - this.origin));
+		CacheNode<K, V> last = sentinel.previousInWheel;
+		node.previousInWheel = last;
+		node.nextInWheel = sentinel;
+		last.nextInWheel = node;
+		sentinel.previousInWheel = node;
+	}
+
+	void reschedule(@NotNull CacheNode<K, V> node) {
+		this.deschedule(node);
+		this.schedule(node);
+	}
+
+	void deschedule(@NotNull CacheNode<K, V> node) {
+		if (node.nextInWheel == null) {
+			return;
+		}
+		node.nextInWheel.previousInWheel = node.previousInWheel;
+		node.previousInWheel.nextInWheel = node.nextInWheel;
+		node.previousInWheel = null;
+		node.nextInWheel = null;
+	}
+
+	void clear() {
+		for (CacheNode<K, V>[] buckets : this.wheel) {
+			for (CacheNode<K, V> sentinel : buckets) {
+				sentinel.previousInWheel = sentinel;
+				sentinel.nextInWheel = sentinel;
+			}
+		}
+	}
+
+	@NotNull
+	private CacheNode<K, V> findBucket(long expirationTime) {
+		long duration = expirationTime - this.time;
+		int lastLevel = this.wheel.length - 1;
+		for (int level = 0; level < lastLevel; level++) {
+			if (duration < SPANS[level + 1]) {
+				long ticks = expirationTime >>> SHIFTS[level];
+				return this.wheel[level][(int) (ticks & (this.wheel[level].length - 1))];
+			}
+		}
+		return this.wheel[lastLevel][0];
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import dev.jaqobb.namemcapi.metrics.LatencyHistogram;
+import dev.jaqobb.namemcapi.util.FutureHelper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Sends a second attempt when the first one has not answered within the given latency percentile, and uses whichever
+// answers first. Each request earns a fraction of a hedge, so hedges never exceed that fraction of all requests, and
+// nothing is hedged until enough latencies have been observed to know what slow means.
+public class HedgingHttpTransport implements HttpTransport, AutoCloseable {
+
+	private static final double DEFAULT_PERCENTILE = 95.0D;
+	private static final double DEFAULT_BUDGET = 0.1D;
+	private static final Duration DEFAULT_MINIMUM_DELAY = Duration.ofMillis(50L);
+	private static final int MINIMUM_SAMPLES = 20;
+	private static final double MAXIMUM_BUDGET_TOKENS = 10.0D;
+	private static final long DELAY_REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+
+	@NotNull
+	private final HttpTransport delegate;
+	private final double percentile;
+	private final double budget;
+	private final long minimumDelay;
+	@NotNull
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	@NotNull
+	private final LongAdder hedgedCount = new LongAdder();
+	@NotNull
+	private final LongAdder hedgeWinCount = new LongAdder();
+	@NotNull
+	private final ScheduledExecutorService scheduler;
+	private double budgetTokens;
+	private volatile long hedgeDelay = -1L;
+	private volatile long hedgeDelayComputedAt;
+
+	public HedgingHttpTransport(@NotNull HttpTransport delegate) {
+		this(delegate, DEFAULT_PERCENTILE, DEFAULT_BUDGET, DEFAULT_MINIMUM_DELAY);
+	}
+
+	public HedgingHttpTransport(@NotNull HttpTransport delegate, double percentile, double budget, @NotNull Duration minimumDelay) {
+		if (percentile <= 0.0D || percentile >= 100.0D) {
+			throw new IllegalArgumentException("percentile has to be between 0 and 100");
+		}
+		if (budget <= 0.0D || budget > 1.0D) {
+			throw new IllegalArgumentException("budget has to be between 0 and 1");
+		}
+		if (minimumDelay.isNegative()) {
+			throw new IllegalArgumentException("minimumDelay cannot be negative");
+		}
+		this.delegate = delegate;
+		this.percentile = percentile;
+		this.budget = budget;
+		this.minimumDelay = minimumDelay.toNanos();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "NameMCAPI Hedging");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@NotNull
+	public HttpTransport getDelegate() {
+		return this.delegate;
+	}
+
+	public long getHedgedCount() {
+		return this.hedgedCount.sum();
+	}
+
+	public long getHedgeWinCount() {
+		return this.hedgeWinCount.sum();
+	}
+
+	// Returns null while too few latencies have been observed to hedge.
+	@Nullable
+	public Duration getHedgeDelay() {
+		long hedgeDelay = this.computeHedgeDelay();
+		return hedgeDelay < 0L ? null : Duration.ofNanos(hedgeDelay);
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Response> send(@NotNull Request request) {
+		HedgedRequest hedgedRequest = new HedgedRequest(request);
+		// Whichever way the request ends, the attempts that are still running are not needed anymore.
+		hedgedRequest.result.whenComplete((response, throwable) -> hedgedRequest.cancelAttempts());
+		synchronized (this) {
+			this.budgetTokens = Math.min(MAXIMUM_BUDGET_TOKENS, this.budgetTokens + this.budget);
+		}
+		this.attempt(hedgedRequest, false);
+		long hedgeDelay = this.computeHedgeDelay();
+		if (hedgeDelay >= 0L && !hedgedRequest.result.isDone()) {
+			try {
+				ScheduledFuture<?> hedge = this.scheduler.schedule(() -> this.hedge(hedgedRequest), hedgeDelay, TimeUnit.NANOSECONDS);
+				hedgedRequest.result.whenComplete((response, throwable) -> hedge.cancel(false));
+			} catch (RejectedExecutionException exception) {
+				// Closed, the first attempt simply runs on its own.
+			}
+		}
+		return hedgedRequest.result;
+	}
+
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+	}
+
+	private void hedge(@NotNull HedgedRequest hedgedRequest) {
+		if (hedgedRequest.result.isDone()) {
+			return;
+		}
+		synchronized (this) {
+			if (this.budgetTokens < 1.0D) {
+				return;
+			}
+			this.budgetTokens -= 1.0D;
+		}
+		this.hedgedCount.increment();
+		this.attempt(hedgedRequest, true);
+	}
+
+	private void attempt(@NotNull HedgedRequest hedgedRequest, boolean hedge) {
+		CompletableFuture<Response> future;
+		synchronized (hedgedRequest) {
+			if (hedgedRequest.result.isDone()) {
+				return;
+			}
+			hedgedRequest.launched++;
+			long startTime = System.nanoTime();
+			try {
+				future = this.delegate.send(hedgedRequest.request);
+			} catch (Throwable throwable) {
+				future = CompletableFuture.failedFuture(throwable);
+			}
+			hedgedRequest.attempts.add(future);
+			future.whenComplete((response, throwable) -> this.onComplete(hedgedRequest, hedge, System.nanoTime() - startTime, response, throwable));
+		}
+	}
+
+	private void onComplete(@NotNull HedgedRequest hedgedRequest, boolean hedge, long latency, @Nullable Response response, @Nullable Throwable throwable) {
+		if (throwable == null) {
+			this.latencies.record(latency);
+			if (hedgedRequest.result.complete(response)) {
+				if (hedge) {
+					this.hedgeWinCount.increment();
+				}
+			} else {
+				closeQuietly(response);
+			}
+			return;
+		}
+		if (FutureHelper.isCancellation(throwable)) {
+			return;
+		}
+		boolean failed;
+		synchronized (hedgedRequest) {
+			failed = ++hedgedRequest.failed == hedgedRequest.launched;
+		}
+		if (failed) {
+			hedgedRequest.result.completeExceptionally(FutureHelper.unwrap(throwable));
+		}
+	}
+
+	private long computeHedgeDelay() {
+		long now = System.nanoTime();
+		if (this.hedgeDelay >= 0L && now - this.hedgeDelayComputedAt < DELAY_REFRESH_INTERVAL) {
+			return this.hedgeDelay;
+		}
+		if (this.latencies.getCount() < MINIMUM_SAMPLES) {
+			return -1L;
+		}
+		long hedgeDelay = Math.max(this.minimumDelay, this.latencies.getPercentile(this.percentile));
+		this.hedgeDelay = hedgeDelay;
+		this.hedgeDelayComputedAt = now;
+		return hedgeDelay;
+	}
+
+	private static void closeQuietly(@Nullable Response response) {
+		if (response == null) {
+			return;
+		}
+		try {
+			response.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static final class HedgedRequest {
+
+		@NotNull
+		private final Request request;
+		@NotNull
+		private final CompletableFuture<Response> result = new CompletableFuture<>();
+		@NotNull
+		private final List<CompletableFuture<Response>> attempts = new ArrayList<>(2);
+		private int launched;
+		private int failed;
+
+		private HedgedRequest(@NotNull Request request) {
+			this.request = request;
+		}
+
+		private void cancelAttempts() {
+			List<CompletableFuture<Response>> attempts;
+			synchronized (this) {
+				attempts = new ArrayList<>(this.attempts);
+			}
+			for (CompletableFuture<Response> attempt : attempts) {
+				attempt.cancel(true);
+			}
+		}
+	}
+}
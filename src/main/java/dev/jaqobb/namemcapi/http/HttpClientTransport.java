@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.jetbrains.annotations.NotNull;
+
+public class HttpClientTransport implements HttpTransport {
+
+	private static final URI DEFAULT_BASE_URI = URI.create("https://api.namemc.com");
+	private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5L);
+	private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10L);
+	private static final String USER_AGENT = "NameMCAPI";
+	private static final boolean CANCEL_ABORTS_EXCHANGE = Runtime.version().feature() >= 16;
+	private static final ScheduledThreadPoolExecutor TIMEOUT_EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+		Thread thread = new Thread(runnable, "NameMCAPI Read Timeout");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		TIMEOUT_EXECUTOR.setRemoveOnCancelPolicy(true);
+	}
+
+	@NotNull
+	private final HttpClient client;
+	@NotNull
+	private final String baseUrl;
+	@NotNull
+	private final Duration readTimeout;
+
+	public HttpClientTransport() {
+		this(DEFAULT_BASE_URI);
+	}
+
+	public HttpClientTransport(@NotNull URI baseUri) {
+		this(baseUri, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+
+	public HttpClientTransport(@NotNull URI baseUri, @NotNull Duration connectTimeout, @NotNull Duration readTimeout) {
+		this(HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.connectTimeout(connectTimeout)
+			.build(), baseUri, readTimeout);
+	}
+
+	public HttpClientTransport(@NotNull HttpClient client, @NotNull URI baseUri, @NotNull Duration readTimeout) {
+		if (readTimeout.isNegative() || readTimeout.isZero()) {
+			throw new IllegalArgumentException("readTimeout has to be positive");
+		}
+		String baseUrl = baseUri.toString();
+		this.client = client;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		this.readTimeout = readTimeout;
+	}
+
+	@NotNull
+	public static HttpClientTransport getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	@NotNull
+	public HttpClient getClient() {
+		return this.client;
+	}
+
+	@NotNull
+	public Duration getReadTimeout() {
+		return this.readTimeout;
+	}
+
+	// The read timeout bounds the wait for the response headers, and then every read of the body, so a server that stalls
+	// halfway through a body cannot block the reading thread forever.
+	@NotNull
+	@Override
+	public CompletableFuture<Response> send(@NotNull Request request) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(this.baseUrl + request.getPath()))
+			.timeout(this.readTimeout)
+			.header("Accept", "application/json")
+			.header("Accept-Encoding", "gzip")
+			.header("User-Agent", USER_AGENT)
+			.GET();
+		for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+			builder.setHeader(header.getKey(), header.getValue());
+		}
+		CompletableFuture<HttpResponse<InputStream>> exchange = this.client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+		CompletableFuture<Response> future = exchange.thenApply(response -> new Response(response.statusCode(), response.headers().map(), decode(response, new DeadlineBody(response.body(), this.readTimeout))));
+		future.whenComplete((response, throwable) -> {
+			if (!future.isCancelled()) {
+				return;
+			}
+			// Cancelling the exchange only aborts it since JDK 16. Older ones keep it running, so its response is released once it arrives.
+			if (CANCEL_ABORTS_EXCHANGE) {
+				exchange.cancel(true);
+			} else {
+				exchange.thenAccept(HttpClientTransport::discard);
+			}
+		});
+		return future;
+	}
+
+	private static void discard(@NotNull HttpResponse<InputStream> response) {
+		try {
+			response.body().close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	@NotNull
+	private static InputStream decode(@NotNull HttpResponse<InputStream> response, @NotNull InputStream body) {
+		String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+		if (encoding.equalsIgnoreCase("gzip")) {
+			return new GZIPBody(body);
+		}
+		return body;
+	}
+
+	// Closes the body once a single read has been blocked for longer than the timeout, which wakes the reading thread up.
+	private static final class DeadlineBody extends FilterInputStream {
+
+		private final long timeout;
+		private volatile boolean timedOut;
+
+		private DeadlineBody(@NotNull InputStream body, @NotNull Duration timeout) {
+			super(body);
+			this.timeout = timeout.toNanos();
+		}
+
+		@Override
+		public int read() throws IOException {
+			ScheduledFuture<?> deadline = this.arm();
+			try {
+				return super.read();
+			} catch (IOException exception) {
+				throw this.timedOut ? this.newTimeoutException() : exception;
+			} finally {
+				deadline.cancel(false);
+			}
+		}
+
+		@Override
+		public int read(@NotNull byte[] buffer, int offset, int length) throws IOException {
+			ScheduledFuture<?> deadline = this.arm();
+			try {
+				return super.read(buffer, offset, length);
+			} catch (IOException exception) {
+				throw this.timedOut ? this.newTimeoutException() : exception;
+			} finally {
+				deadline.cancel(false);
+			}
+		}
+
+		@Override
+		public long skip(long count) throws IOException {
+			ScheduledFuture<?> deadline = this.arm();
+			try {
+				return super.skip(count);
+			} catch (IOException exception) {
+				throw this.timedOut ? this.newTimeoutException() : exception;
+			} finally {
+				deadline.cancel(false);
+			}
+		}
+
+		@NotNull
+		private ScheduledFuture<?> arm() throws IOException {
+			if (this.timedOut) {
+				throw this.newTimeoutException();
+			}
+			return TIMEOUT_EXECUTOR.schedule(this::expire, this.timeout, TimeUnit.NANOSECONDS);
+		}
+
+		private void expire() {
+			this.timedOut = true;
+			try {
+				this.in.close();
+			} catch (IOException ignored) {
+			}
+		}
+
+		@NotNull
+		private HttpTimeoutException newTimeoutException() {
+			return new HttpTimeoutException("Response body stalled for longer than " + Duration.ofNanos(this.timeout));
+		}
+	}
+
+	// GZIPInputStream reads the gzip header in its constructor, so it is created on the first read
+	// to keep that blocking read off the thread that completes the response future.
+	private static final class GZIPBody extends InputStream {
+
+		@NotNull
+		private final InputStream body;
+		private InputStream decoded;
+
+		private GZIPBody(@NotNull InputStream body) {
+			this.body = body;
+		}
+
+		@NotNull
+		private InputStream getDecoded() throws IOException {
+			if (this.decoded == null) {
+				this.decoded = new GZIPInputStream(this.body, 8192);
+			}
+			return this.decoded;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return this.getDecoded().read();
+		}
+
+		@Override
+		public int read(@NotNull byte[] buffer, int offset, int length) throws IOException {
+			return this.getDecoded().read(buffer, offset, length);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.decoded == null ? 0 : this.decoded.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.decoded != null) {
+				this.decoded.close();
+			} else {
+				this.body.close();
+			}
+		}
+	}
+
+	private static final class DefaultHolder {
+
+		private static final HttpClientTransport INSTANCE = new HttpClientTransport();
+	}
+}
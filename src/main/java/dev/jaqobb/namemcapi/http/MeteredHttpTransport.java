@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import dev.jaqobb.namemcapi.metrics.LatencyHistogram;
+import dev.jaqobb.namemcapi.metrics.LatencySnapshot;
+import dev.jaqobb.namemcapi.metrics.MetricsListener;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+// Times every request until its response headers arrive and reports responses and failures to the registered listeners
+// under the given source name. Requests the caller gave up on are not failures, so they are not reported.
+public class MeteredHttpTransport implements HttpTransport {
+
+	private static final String DEFAULT_SOURCE = "HttpTransport";
+
+	@NotNull
+	private final HttpTransport delegate;
+	@NotNull
+	private final String source;
+	@NotNull
+	private final LatencyHistogram responseTime = new LatencyHistogram();
+	@NotNull
+	private final LongAdder failureCount = new LongAdder();
+	@NotNull
+	private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+	public MeteredHttpTransport(@NotNull HttpTransport delegate) {
+		this(delegate, DEFAULT_SOURCE);
+	}
+
+	public MeteredHttpTransport(@NotNull HttpTransport delegate, @NotNull String source) {
+		this.delegate = delegate;
+		this.source = source;
+	}
+
+	@NotNull
+	public HttpTransport getDelegate() {
+		return this.delegate;
+	}
+
+	@NotNull
+	public String getSource() {
+		return this.source;
+	}
+
+	public void addListener(@NotNull MetricsListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(@NotNull MetricsListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	public long getResponseCount() {
+		return this.responseTime.getCount();
+	}
+
+	public long getFailureCount() {
+		return this.failureCount.sum();
+	}
+
+	@NotNull
+	public LatencySnapshot getResponseTime() {
+		return this.responseTime.snapshot();
+	}
+
+	@NotNull
+	public LatencyHistogram getResponseTimeHistogram() {
+		return this.responseTime;
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Response> send(@NotNull Request request) {
+		long startTime = System.nanoTime();
+		CompletableFuture<Response> future;
+		try {
+			future = this.delegate.send(request);
+		} catch (RuntimeException exception) {
+			this.recordFailure(exception);
+			throw exception;
+		}
+		future.whenComplete((response, throwable) -> {
+			if (throwable == null) {
+				this.recordResponse(response.getStatusCode(), System.nanoTime() - startTime);
+				return;
+			}
+			Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+			if (!(cause instanceof CancellationException)) {
+				this.recordFailure(cause);
+			}
+		});
+		return future;
+	}
+
+	private void recordResponse(int statusCode, long responseTime) {
+		this.responseTime.record(responseTime);
+		for (MetricsListener listener : this.listeners) {
+			listener.onResponse(this.source, statusCode, responseTime);
+		}
+	}
+
+	private void recordFailure(@NotNull Throwable throwable) {
+		this.failureCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onFailure(this.source, throwable);
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import dev.jaqobb.namemcapi.util.FutureHelper;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class RateLimitedHttpTransport implements HttpTransport, AutoCloseable {
+
+	private static final double DEFAULT_PERMITS_PER_SECOND = 10.0D;
+	private static final int DEFAULT_BURST = 20;
+	private static final int DEFAULT_MAXIMUM_CONCURRENCY = 16;
+	private static final int DEFAULT_MAXIMUM_QUEUED = 1000;
+	private static final int MAXIMUM_RETRIES = 2;
+	private static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toNanos(1L);
+	private static final long MAXIMUM_BACKOFF = TimeUnit.MINUTES.toNanos(1L);
+
+	@NotNull
+	private final HttpTransport delegate;
+	private final double permitsPerSecond;
+	private final int burst;
+	private final int maximumConcurrency;
+	private final int maximumQueued;
+	@NotNull
+	private final ScheduledExecutorService scheduler;
+	@NotNull
+	private final Deque<PendingRequest> queue = new ArrayDeque<>();
+	private double tokens;
+	private long lastRefillTime;
+	private double concurrencyLimit;
+	private int inFlight;
+	private long blockedUntil;
+	private long backoff = INITIAL_BACKOFF;
+	private boolean drainScheduled;
+	private long rejectedCount;
+	private long throttledCount;
+	private boolean closed;
+
+	public RateLimitedHttpTransport(@NotNull HttpTransport delegate) {
+		this(delegate, DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST, DEFAULT_MAXIMUM_CONCURRENCY, DEFAULT_MAXIMUM_QUEUED);
+	}
+
+	public RateLimitedHttpTransport(@NotNull HttpTransport delegate, double permitsPerSecond, int burst, int maximumConcurrency, int maximumQueued) {
+		if (permitsPerSecond <= 0.0D) {
+			throw new IllegalArgumentException("permitsPerSecond has to be positive");
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException("burst cannot be smaller than 1");
+		}
+		if (maximumConcurrency < 1) {
+			throw new IllegalArgumentException("maximumConcurrency cannot be smaller than 1");
+		}
+		if (maximumQueued < 0) {
+			throw new IllegalArgumentException("maximumQueued cannot be smaller than 0");
+		}
+		this.delegate = delegate;
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+		this.maximumConcurrency = maximumConcurrency;
+		this.maximumQueued = maximumQueued;
+		this.tokens = burst;
+		this.lastRefillTime = System.nanoTime();
+		this.blockedUntil = this.lastRefillTime;
+		this.concurrencyLimit = Math.max(1.0D, maximumConcurrency / 4.0D);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "NameMCAPI Rate Limiter");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@NotNull
+	public static RateLimitedHttpTransport getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	@NotNull
+	public HttpTransport getDelegate() {
+		return this.delegate;
+	}
+
+	public synchronized double getConcurrencyLimit() {
+		return this.concurrencyLimit;
+	}
+
+	public synchronized int getInFlightCount() {
+		return this.inFlight;
+	}
+
+	public synchronized int getQueuedCount() {
+		return this.queue.size();
+	}
+
+	public synchronized long getRejectedCount() {
+		return this.rejectedCount;
+	}
+
+	public synchronized long getThrottledCount() {
+		return this.throttledCount;
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Response> send(@NotNull Request request) {
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		synchronized (this) {
+			if (this.closed) {
+				future.completeExceptionally(new RejectedExecutionException("Rate limiter is closed"));
+				return future;
+			}
+			if (this.queue.size() >= this.maximumQueued) {
+				this.rejectedCount++;
+				future.completeExceptionally(new RejectedExecutionException("Rate limiter queue is full (" + this.maximumQueued + " requests are already waiting)"));
+				return future;
+			}
+			PendingRequest pendingRequest = new PendingRequest(request, future);
+			pendingRequest.queued = true;
+			this.queue.addLast(pendingRequest);
+			// A request given up on while waiting leaves the queue right away, so it no longer counts against its bound.
+			future.whenComplete((response, throwable) -> {
+				if (throwable != null) {
+					this.dequeue(pendingRequest);
+				}
+			});
+		}
+		this.drain();
+		return future;
+	}
+
+	private synchronized void dequeue(@NotNull PendingRequest pendingRequest) {
+		if (pendingRequest.queued) {
+			pendingRequest.queued = false;
+			this.queue.remove(pendingRequest);
+		}
+	}
+
+	@Override
+	public void close() {
+		List<PendingRequest> pendingRequests;
+		synchronized (this) {
+			this.closed = true;
+			pendingRequests = new ArrayList<>(this.queue);
+			for (PendingRequest pendingRequest : pendingRequests) {
+				pendingRequest.queued = false;
+			}
+			this.queue.clear();
+		}
+		this.scheduler.shutdownNow();
+		for (PendingRequest pendingRequest : pendingRequests) {
+			pendingRequest.future.completeExceptionally(new RejectedExecutionException("Rate limiter is closed"));
+		}
+	}
+
+	private void drain() {
+		List<PendingRequest> readyRequests = new ArrayList<>();
+		synchronized (this) {
+			long now = System.nanoTime();
+			this.refill(now);
+			while (!this.queue.isEmpty() && !this.closed) {
+				if (this.blockedUntil - now > 0L) {
+					this.scheduleDrain(this.blockedUntil - now);
+					break;
+				}
+				if (this.inFlight >= (int) this.concurrencyLimit) {
+					break;
+				}
+				if (this.tokens < 1.0D) {
+					this.scheduleDrain((long) Math.ceil((1.0D - this.tokens) / this.permitsPerSecond * TimeUnit.SECONDS.toNanos(1L)));
+					break;
+				}
+				PendingRequest pendingRequest = this.queue.pollFirst();
+				pendingRequest.queued = false;
+				if (pendingRequest.future.isDone()) {
+					continue;
+				}
+				this.tokens -= 1.0D;
+				this.inFlight++;
+				readyRequests.add(pendingRequest);
+			}
+		}
+		for (PendingRequest readyRequest : readyRequests) {
+			this.dispatch(readyRequest);
+		}
+	}
+
+	private void dispatch(@NotNull PendingRequest pendingRequest) {
+		CompletableFuture<Response> future;
+		try {
+			future = this.delegate.send(pendingRequest.request);
+		} catch (Throwable throwable) {
+			future = CompletableFuture.failedFuture(throwable);
+		}
+		FutureHelper.propagateCancellation(pendingRequest.future, future);
+		future.whenComplete((response, throwable) -> {
+			boolean retry = this.onComplete(pendingRequest, response, throwable);
+			if (retry) {
+				closeQuietly(response);
+			} else if (throwable != null) {
+				pendingRequest.future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+			} else if (!pendingRequest.future.complete(response)) {
+				closeQuietly(response);
+			}
+			this.drain();
+		});
+	}
+
+	private synchronized boolean onComplete(@NotNull PendingRequest pendingRequest, @Nullable Response response, @Nullable Throwable throwable) {
+		this.inFlight--;
+		long now = System.nanoTime();
+		if (throwable != null) {
+			// A request the caller gave up on says nothing about how NameMC is doing.
+			if (!pendingRequest.future.isCancelled()) {
+				this.concurrencyLimit = Math.max(1.0D, this.concurrencyLimit / 2.0D);
+			}
+			return false;
+		}
+		int statusCode = response.getStatusCode();
+		if (statusCode != 429 && statusCode < 500) {
+			this.concurrencyLimit = Math.min(this.maximumConcurrency, this.concurrencyLimit + 1.0D / this.concurrencyLimit);
+			this.backoff = INITIAL_BACKOFF;
+			return false;
+		}
+		this.throttledCount++;
+		this.concurrencyLimit = Math.max(1.0D, this.concurrencyLimit / 2.0D);
+		long retryAfter = parseRetryAfter(response.getHeader("Retry-After"));
+		if (retryAfter < 0L) {
+			retryAfter = this.backoff;
+			this.backoff = Math.min(MAXIMUM_BACKOFF, this.backoff * 2L);
+		}
+		if (now + retryAfter - this.blockedUntil > 0L) {
+			this.blockedUntil = now + retryAfter;
+		}
+		if (this.closed || pendingRequest.attempts >= MAXIMUM_RETRIES || pendingRequest.future.isDone()) {
+			return false;
+		}
+		pendingRequest.attempts++;
+		pendingRequest.queued = true;
+		this.queue.addFirst(pendingRequest);
+		return true;
+	}
+
+	private void refill(long now) {
+		long elapsed = now - this.lastRefillTime;
+		if (elapsed <= 0L) {
+			return;
+		}
+		this.tokens = Math.min(this.burst, this.tokens + elapsed * this.permitsPerSecond / TimeUnit.SECONDS.toNanos(1L));
+		this.lastRefillTime = now;
+	}
+
+	private void scheduleDrain(long delay) {
+		if (this.drainScheduled) {
+			return;
+		}
+		this.drainScheduled = true;
+		this.scheduler.schedule(() -> {
+			synchronized (this) {
+				this.drainScheduled = false;
+			}
+			this.drain();
+		}, Math.max(1L, delay), TimeUnit.NANOSECONDS);
+	}
+
+	private static long parseRetryAfter(@Nullable String retryAfter) {
+		if (retryAfter == null || retryAfter.isBlank()) {
+			return -1L;
+		}
+		try {
+			return TimeUnit.SECONDS.toNanos(Math.max(0L, Long.parseLong(retryAfter.trim())));
+		} catch (NumberFormatException exception) {
+			try {
+				Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+				return Math.max(0L, delay.toNanos());
+			} catch (DateTimeParseException ignored) {
+				return -1L;
+			}
+		}
+	}
+
+	private static void closeQuietly(@Nullable Response response) {
+		if (response == null) {
+			return;
+		}
+		try {
+			response.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static final class PendingRequest {
+
+		@NotNull
+		private final Request request;
+		@NotNull
+		private final CompletableFuture<Response> future;
+		private int attempts;
+		private boolean queued;
+
+		private PendingRequest(@NotNull Request request, @NotNull CompletableFuture<Response> future) {
+			this.request = request;
+			this.future = future;
+		}
+	}
+
+	private static final class DefaultHolder {
+
+		private static final RateLimitedHttpTransport INSTANCE = new RateLimitedHttpTransport(HttpClientTransport.getDefault());
+	}
+}
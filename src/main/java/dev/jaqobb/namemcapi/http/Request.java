@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class Request {
+
+	@NotNull
+	private final String path;
+	@NotNull
+	private final Map<String, String> headers;
+
+	public Request(@NotNull String path) {
+		this(path, Collections.emptyMap());
+	}
+
+	public Request(@NotNull String path, @NotNull Map<String, String> headers) {
+		if (!path.startsWith("/")) {
+			throw new IllegalArgumentException("path has to start with /");
+		}
+		this.path = path;
+		this.headers = Map.copyOf(headers);
+	}
+
+	@NotNull
+	public String getPath() {
+		return this.path;
+	}
+
+	@NotNull
+	public Map<String, String> getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (object == null || this.getClass() != object.getClass()) {
+			return false;
+		}
+		Request that = (Request) object;
+		return Objects.equals(this.path, that.path) && Objects.equals(this.headers, that.headers);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.path, this.headers);
+	}
+
+	@Override
+	public String toString() {
+		return this.path;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class Response implements Closeable {
+
+	private final int statusCode;
+	@NotNull
+	private final Map<String, List<String>> headers;
+	@NotNull
+	private final InputStream body;
+
+	public Response(int statusCode, @NotNull Map<String, List<String>> headers, @NotNull InputStream body) {
+		this.statusCode = statusCode;
+		this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		this.headers.putAll(headers);
+		this.body = body;
+	}
+
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	public boolean isSuccessful() {
+		return this.statusCode >= 200 && this.statusCode < 300;
+	}
+
+	@NotNull
+	public Map<String, List<String>> getHeaders() {
+		return Collections.unmodifiableMap(this.headers);
+	}
+
+	@Nullable
+	public String getHeader(@NotNull String name) {
+		List<String> values = this.headers.get(name);
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		return values.get(0);
+	}
+
+	@NotNull
+	public InputStream getBody() {
+		return this.body;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.body.close();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+// Log-linear buckets: every power of two is split into 8 linear sub-buckets, which keeps the error below 12.5%.
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT;
+
+	@NotNull
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	@NotNull
+	private final LongAdder count = new LongAdder();
+	@NotNull
+	private final LongAdder sum = new LongAdder();
+	@NotNull
+	private final AtomicLong maximum = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0L) {
+			nanos = 0L;
+		}
+		this.counts.incrementAndGet(bucketOf(nanos));
+		this.count.increment();
+		this.sum.add(nanos);
+		if (nanos > this.maximum.get()) {
+			this.maximum.accumulateAndGet(nanos, Math::max);
+		}
+	}
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	public long getMean() {
+		long count = this.count.sum();
+		return count == 0L ? 0L : this.sum.sum() / count;
+	}
+
+	public long getMaximum() {
+		return this.maximum.get();
+	}
+
+	// Returns the upper bound of the bucket holding the given percentile, in nanoseconds.
+	public long getPercentile(double percentile) {
+		if (percentile < 0.0D || percentile > 100.0D) {
+			throw new IllegalArgumentException("percentile has to be between 0 and 100");
+		}
+		long total = 0L;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			total += this.counts.get(bucket);
+		}
+		if (total == 0L) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0D));
+		long seen = 0L;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += this.counts.get(bucket);
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(bucket), this.maximum.get());
+			}
+		}
+		return this.maximum.get();
+	}
+
+	@NotNull
+	public LatencySnapshot snapshot() {
+		return new LatencySnapshot(this.getCount(), toMillis(this.getMean()), toMillis(this.getPercentile(50.0D)), toMillis(this.getPercentile(90.0D)), toMillis(this.getPercentile(99.0D)), toMillis(this.getMaximum()));
+	}
+
+	private static int bucketOf(long nanos) {
+		if (nanos < LINEAR_LIMIT) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long upperBoundOf(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS + 1;
+		int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+		long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1L;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1L);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.metrics;
+
+import javax.management.openmbean.CompositeData;
+import org.jetbrains.annotations.NotNull;
+
+// Times are in milliseconds, so that the snapshot reads well in JMX consoles.
+public class LatencySnapshot {
+
+	private final long count;
+	private final double mean;
+	private final double median;
+	private final double percentile90;
+	private final double percentile99;
+	private final double maximum;
+
+	public LatencySnapshot(long count, double mean, double median, double percentile90, double percentile99, double maximum) {
+		this.count = count;
+		this.mean = mean;
+		this.median = median;
+		this.percentile90 = percentile90;
+		this.percentile99 = percentile99;
+		this.maximum = maximum;
+	}
+
+	// Lets JMX turn the composite data of an MXBean attribute back into a snapshot.
+	@NotNull
+	public static LatencySnapshot from(@NotNull CompositeData data) {
+		return new LatencySnapshot((Long) data.get("count"), (Double) data.get("mean"), (Double) data.get("median"), (Double) data.get("percentile90"), (Double) data.get("percentile99"), (Double) data.get("maximum"));
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	public double getMean() {
+		return this.mean;
+	}
+
+	public double getMedian() {
+		return this.median;
+	}
+
+	public double getPercentile90() {
+		return this.percentile90;
+	}
+
+	public double getPercentile99() {
+		return this.percentile99;
+	}
+
+	public double getMaximum() {
+		return this.maximum;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.3fms, median=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms", this.count, this.mean, this.median, this.percentile90, this.percentile99, this.maximum);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.metrics;
+
+import dev.jaqobb.namemcapi.cache.RemovalCause;
+import org.jetbrains.annotations.NotNull;
+
+// Called on the thread that recorded the event, so implementations have to be quick.
+public interface MetricsListener {
+
+	default void onHit(@NotNull String source) {
+	}
+
+	default void onMiss(@NotNull String source) {
+	}
+
+	default void onNegativeHit(@NotNull String source) {
+	}
+
+	default void onSecondLevelHit(@NotNull String source) {
+	}
+
+	default void onSecondLevelMiss(@NotNull String source) {
+	}
+
+	default void onNotModified(@NotNull String source, long networkTime) {
+	}
+
+	default void onFetch(@NotNull String source, long networkTime, long parseTime) {
+	}
+
+	default void onFailure(@NotNull String source, @NotNull Throwable throwable) {
+	}
+
+	// Reported by MeteredHttpTransport for every answered request, whatever its status code.
+	default void onResponse(@NotNull String source, int statusCode, long responseTime) {
+	}
+
+	default void onRemoval(@NotNull String source, @NotNull RemovalCause cause) {
+	}
+}
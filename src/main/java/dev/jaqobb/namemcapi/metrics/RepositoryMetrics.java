@@ -0,0 +1,328 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.metrics;
+
+import dev.jaqobb.namemcapi.cache.CacheListener;
+import dev.jaqobb.namemcapi.cache.RemovalCause;
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Counters are LongAdders, so recording stays cheap when many threads hit the cache at once.
+public class RepositoryMetrics implements RepositoryMetricsMXBean {
+
+	private static final AtomicInteger MBEAN_COUNTER = new AtomicInteger();
+
+	@NotNull
+	private final String name;
+	@NotNull
+	private final IntSupplier sizeSupplier;
+	@NotNull
+	private final IntSupplier inFlightCountSupplier;
+	@NotNull
+	private final LongSupplier coalescedCountSupplier;
+	@NotNull
+	private final LongAdder hitCount = new LongAdder();
+	@NotNull
+	private final LongAdder missCount = new LongAdder();
+	@NotNull
+	private final LongAdder negativeHitCount = new LongAdder();
+	@NotNull
+	private final LongAdder secondLevelHitCount = new LongAdder();
+	@NotNull
+	private final LongAdder secondLevelMissCount = new LongAdder();
+	@NotNull
+	private final LongAdder notModifiedCount = new LongAdder();
+	@NotNull
+	private final LongAdder failureCount = new LongAdder();
+	@NotNull
+	private final Map<String, LongAdder> failureCounts = new ConcurrentHashMap<>();
+	@NotNull
+	private final LongAdder evictionCount = new LongAdder();
+	@NotNull
+	private final LongAdder expirationCount = new LongAdder();
+	@NotNull
+	private final LatencyHistogram networkTime = new LatencyHistogram();
+	@NotNull
+	private final LatencyHistogram parseTime = new LatencyHistogram();
+	@NotNull
+	private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+	@Nullable
+	private volatile ObjectName objectName;
+
+	public RepositoryMetrics(@NotNull String name, @NotNull IntSupplier sizeSupplier, @NotNull IntSupplier inFlightCountSupplier, @NotNull LongSupplier coalescedCountSupplier) {
+		this.name = name;
+		this.sizeSupplier = sizeSupplier;
+		this.inFlightCountSupplier = inFlightCountSupplier;
+		this.coalescedCountSupplier = coalescedCountSupplier;
+	}
+
+	public void addListener(@NotNull MetricsListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(@NotNull MetricsListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	public void recordHit() {
+		this.hitCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onHit(this.name);
+		}
+	}
+
+	public void recordMiss() {
+		this.missCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onMiss(this.name);
+		}
+	}
+
+	public void recordNegativeHit() {
+		this.negativeHitCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onNegativeHit(this.name);
+		}
+	}
+
+	public void recordSecondLevelHit() {
+		this.secondLevelHitCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onSecondLevelHit(this.name);
+		}
+	}
+
+	public void recordSecondLevelMiss() {
+		this.secondLevelMissCount.increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onSecondLevelMiss(this.name);
+		}
+	}
+
+	public void recordNotModified(long networkTime) {
+		this.notModifiedCount.increment();
+		this.networkTime.record(networkTime);
+		for (MetricsListener listener : this.listeners) {
+			listener.onNotModified(this.name, networkTime);
+		}
+	}
+
+	public void recordFetch(long networkTime, long parseTime) {
+		this.networkTime.record(networkTime);
+		this.parseTime.record(parseTime);
+		for (MetricsListener listener : this.listeners) {
+			listener.onFetch(this.name, networkTime, parseTime);
+		}
+	}
+
+	public void recordFailure(@NotNull Throwable throwable) {
+		this.failureCount.increment();
+		this.failureCounts.computeIfAbsent(getFailureType(throwable), type -> new LongAdder()).increment();
+		for (MetricsListener listener : this.listeners) {
+			listener.onFailure(this.name, throwable);
+		}
+	}
+
+	public void recordRemoval(@NotNull RemovalCause cause) {
+		if (cause == RemovalCause.SIZE) {
+			this.evictionCount.increment();
+		} else if (cause == RemovalCause.EXPIRED) {
+			this.expirationCount.increment();
+		}
+		for (MetricsListener listener : this.listeners) {
+			listener.onRemoval(this.name, cause);
+		}
+	}
+
+	// Meant to be registered on the cache store, which reports removals the repository never sees.
+	@NotNull
+	public <K, V> CacheListener<K, V> asCacheListener() {
+		return new CacheListener<>() {
+
+			@Override
+			public void onRemoval(@NotNull K key, @NotNull V value, @NotNull RemovalCause cause) {
+				RepositoryMetrics.this.recordRemoval(cause);
+			}
+		};
+	}
+
+	@NotNull
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	@Override
+	public double getHitRatio() {
+		long hitCount = this.hitCount.sum();
+		long requestCount = hitCount + this.missCount.sum();
+		return requestCount == 0L ? 1.0D : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public long getCoalescedCount() {
+		return this.coalescedCountSupplier.getAsLong();
+	}
+
+	@Override
+	public long getNegativeHitCount() {
+		return this.negativeHitCount.sum();
+	}
+
+	@Override
+	public long getSecondLevelHitCount() {
+		return this.secondLevelHitCount.sum();
+	}
+
+	@Override
+	public long getSecondLevelMissCount() {
+		return this.secondLevelMissCount.sum();
+	}
+
+	@Override
+	public long getNotModifiedCount() {
+		return this.notModifiedCount.sum();
+	}
+
+	@Override
+	public long getFetchCount() {
+		return this.parseTime.getCount();
+	}
+
+	@Override
+	public long getFailureCount() {
+		return this.failureCount.sum();
+	}
+
+	@NotNull
+	@Override
+	public Map<String, Long> getFailureCounts() {
+		Map<String, Long> failureCounts = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : this.failureCounts.entrySet()) {
+			failureCounts.put(entry.getKey(), entry.getValue().sum());
+		}
+		return failureCounts;
+	}
+
+	@Override
+	public int getInFlightCount() {
+		return this.inFlightCountSupplier.getAsInt();
+	}
+
+	@Override
+	public int getSize() {
+		return this.sizeSupplier.getAsInt();
+	}
+
+	@Override
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	@Override
+	public long getExpirationCount() {
+		return this.expirationCount.sum();
+	}
+
+	@NotNull
+	@Override
+	public LatencySnapshot getNetworkTime() {
+		return this.networkTime.snapshot();
+	}
+
+	@NotNull
+	@Override
+	public LatencySnapshot getParseTime() {
+		return this.parseTime.snapshot();
+	}
+
+	@NotNull
+	public LatencyHistogram getNetworkTimeHistogram() {
+		return this.networkTime;
+	}
+
+	@NotNull
+	public LatencyHistogram getParseTimeHistogram() {
+		return this.parseTime;
+	}
+
+	// Registers these metrics with the platform MBean server, under a name that is unique for every repository.
+	@NotNull
+	public synchronized ObjectName registerMBean() throws JMException {
+		ObjectName objectName = this.objectName;
+		if (objectName != null) {
+			return objectName;
+		}
+		objectName = new ObjectName("dev.jaqobb.namemcapi:type=" + this.name + ",id=" + MBEAN_COUNTER.incrementAndGet());
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+		return objectName;
+	}
+
+	public synchronized void unregisterMBean() {
+		ObjectName objectName = this.objectName;
+		if (objectName == null) {
+			return;
+		}
+		this.objectName = null;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(objectName);
+		} catch (JMException ignored) {
+			// Someone else already unregistered it.
+		}
+	}
+
+	@NotNull
+	private static String getFailureType(@NotNull Throwable throwable) {
+		if (throwable instanceof HttpStatusException) {
+			return "HTTP " + ((HttpStatusException) throwable).getStatusCode();
+		}
+		return throwable.getClass().getSimpleName();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.profile;
+
+// Estimated from object counts, assuming a 64-bit JVM with compressed references. Shallow sizes are rounded to 8 bytes.
+public class FootprintReport {
+
+	static final long UNIQUE_ID_SIZE = 32L;
+	static final long FRIEND_SIZE = 24L;
+	static final long STRING_SIZE = 24L;
+	static final long ARRAY_HEADER_SIZE = 16L;
+	static final long REFERENCE_SIZE = 4L;
+	static final long INTERNER_ENTRY_SIZE = 72L;
+
+	private int profileCount;
+	private long friendReferenceCount;
+	private long distinctFriendCount;
+	private long distinctUniqueIdCount;
+	private long distinctNameCount;
+	private long internedCount;
+	private long estimatedBytes;
+	private long estimatedUnsharedBytes;
+
+	public FootprintReport(int profileCount, long friendReferenceCount, long distinctFriendCount, long distinctUniqueIdCount, long distinctNameCount, long internedCount, long estimatedBytes, long estimatedUnsharedBytes) {
+		this.profileCount = profileCount;
+		this.friendReferenceCount = friendReferenceCount;
+		this.distinctFriendCount = distinctFriendCount;
+		this.distinctUniqueIdCount = distinctUniqueIdCount;
+		this.distinctNameCount = distinctNameCount;
+		this.internedCount = internedCount;
+		this.estimatedBytes = estimatedBytes;
+		this.estimatedUnsharedBytes = estimatedUnsharedBytes;
+	}
+
+	public int getProfileCount() {
+		return this.profileCount;
+	}
+
+	public long getFriendReferenceCount() {
+		return this.friendReferenceCount;
+	}
+
+	public long getDistinctFriendCount() {
+		return this.distinctFriendCount;
+	}
+
+	public long getDistinctUniqueIdCount() {
+		return this.distinctUniqueIdCount;
+	}
+
+	public long getDistinctNameCount() {
+		return this.distinctNameCount;
+	}
+
+	// Size of the interning tables, which is the price paid for sharing.
+	public long getInternedCount() {
+		return this.internedCount;
+	}
+
+	// Includes the interning tables.
+	public long getEstimatedBytes() {
+		return this.estimatedBytes;
+	}
+
+	// What the same profiles would take if every friend entry had its own Friend, UUID and name.
+	public long getEstimatedUnsharedBytes() {
+		return this.estimatedUnsharedBytes;
+	}
+
+	public long getEstimatedSavedBytes() {
+		return this.estimatedUnsharedBytes - this.estimatedBytes;
+	}
+
+	static long getStringSize(String value) {
+		// Latin-1 strings take a byte per character, the rest two.
+		long length = value.length();
+		for (int index = 0; index < value.length(); index++) {
+			if (value.charAt(index) > 0xFF) {
+				length = value.length() * 2L;
+				break;
+			}
+		}
+		return STRING_SIZE + align(ARRAY_HEADER_SIZE + length);
+	}
+
+	static long align(long size) {
+		return (size + 7L) & ~7L;
+	}
+
+	@Override
+	public String toString() {
+		return "FootprintReport{" +
+			"profileCount=" + this.profileCount +
+			", friendReferenceCount=" + this.friendReferenceCount +
+			", distinctFriendCount=" + this.distinctFriendCount +
+			", distinctUniqueIdCount=" + this.distinctUniqueIdCount +
+			", distinctNameCount=" + this.distinctNameCount +
+			", internedCount=" + this.internedCount +
+			", estimatedBytes=" + this.estimatedBytes +
+			", estimatedUnsharedBytes=" + this.estimatedUnsharedBytes +
+			"}";
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+
+public class FriendChange {
+
+	@NotNull
+	private Profile previousProfile;
+	@NotNull
+	private Profile profile;
+	@NotNull
+	private Collection<Friend> addedFriends;
+	@NotNull
+	private Collection<Friend> removedFriends;
+
+	public FriendChange(@NotNull Profile previousProfile, @NotNull Profile profile) {
+		this.previousProfile = previousProfile;
+		this.profile = profile;
+		this.addedFriends = difference(profile, previousProfile);
+		this.removedFriends = difference(previousProfile, profile);
+	}
+
+	@NotNull
+	public UUID getUniqueId() {
+		return this.profile.getUniqueId();
+	}
+
+	@NotNull
+	public Profile getPreviousProfile() {
+		return this.previousProfile;
+	}
+
+	@NotNull
+	public Profile getProfile() {
+		return this.profile;
+	}
+
+	@NotNull
+	public Collection<Friend> getAddedFriends() {
+		return this.addedFriends;
+	}
+
+	@NotNull
+	public Collection<Friend> getRemovedFriends() {
+		return this.removedFriends;
+	}
+
+	public boolean isEmpty() {
+		return this.addedFriends.isEmpty() && this.removedFriends.isEmpty();
+	}
+
+	// Friends are matched by unique id, so a friend that only changed their name is neither added nor removed.
+	@NotNull
+	private static Collection<Friend> difference(@NotNull Profile profile, @NotNull Profile otherProfile) {
+		List<Friend> friends = null;
+		for (Friend friend : profile.getFriends()) {
+			if (otherProfile.getFriend(friend.getUniqueId()) == null) {
+				if (friends == null) {
+					friends = new ArrayList<>();
+				}
+				friends.add(friend);
+			}
+		}
+		return friends == null ? Collections.emptyList() : Collections.unmodifiableList(friends);
+	}
+}
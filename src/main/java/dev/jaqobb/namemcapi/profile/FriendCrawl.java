@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class FriendCrawl {
+
+	@NotNull
+	private UUID rootUniqueId;
+	@NotNull
+	private Map<UUID, Integer> depths;
+	@NotNull
+	private Map<UUID, Profile> profiles;
+	@NotNull
+	private Map<UUID, Throwable> failures;
+	private boolean truncated;
+
+	public FriendCrawl(@NotNull UUID rootUniqueId, @NotNull Map<UUID, Integer> depths, @NotNull Map<UUID, Profile> profiles, @NotNull Map<UUID, Throwable> failures, boolean truncated) {
+		this.rootUniqueId = rootUniqueId;
+		this.depths = Collections.unmodifiableMap(depths);
+		this.profiles = Collections.unmodifiableMap(profiles);
+		this.failures = Collections.unmodifiableMap(failures);
+		this.truncated = truncated;
+	}
+
+	@NotNull
+	public UUID getRootUniqueId() {
+		return this.rootUniqueId;
+	}
+
+	// Every visited unique id with its distance from the root, in the order they were reached.
+	@NotNull
+	public Map<UUID, Integer> getDepths() {
+		return this.depths;
+	}
+
+	public int getDepth(@NotNull UUID uniqueId) {
+		Integer depth = this.depths.get(uniqueId);
+		return depth == null ? -1 : depth;
+	}
+
+	@NotNull
+	public List<UUID> getUniqueIds(int depth) {
+		List<UUID> uniqueIds = new ArrayList<>();
+		for (Map.Entry<UUID, Integer> entry : this.depths.entrySet()) {
+			if (entry.getValue() == depth) {
+				uniqueIds.add(entry.getKey());
+			}
+		}
+		return Collections.unmodifiableList(uniqueIds);
+	}
+
+	// Profiles that were fetched, which excludes the unique ids found at the maximum depth.
+	@NotNull
+	public Map<UUID, Profile> getProfiles() {
+		return this.profiles;
+	}
+
+	@Nullable
+	public Profile getProfile(@NotNull UUID uniqueId) {
+		return this.profiles.get(uniqueId);
+	}
+
+	@NotNull
+	public Map<UUID, Throwable> getFailures() {
+		return this.failures;
+	}
+
+	public int getVisitedCount() {
+		return this.depths.size();
+	}
+
+	// Whether the node budget stopped the crawl before it reached the maximum depth.
+	public boolean isTruncated() {
+		return this.truncated;
+	}
+}
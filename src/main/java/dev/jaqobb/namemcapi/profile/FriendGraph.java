@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.jetbrains.annotations.NotNull;
+
+public class FriendGraph {
+
+	private static final int DEFAULT_PARALLELISM = 16;
+
+	@NotNull
+	private ProfileRepository profileRepository;
+	private int parallelism;
+
+	public FriendGraph(@NotNull ProfileRepository profileRepository) {
+		this(profileRepository, DEFAULT_PARALLELISM);
+	}
+
+	public FriendGraph(@NotNull ProfileRepository profileRepository, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism cannot be smaller than 1");
+		}
+		this.profileRepository = profileRepository;
+		this.parallelism = parallelism;
+	}
+
+	@NotNull
+	public ProfileRepository getProfileRepository() {
+		return this.profileRepository;
+	}
+
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	// Returns the friends of the first profile that are also friends of the second one, in the order of the first profile.
+	@NotNull
+	public CompletableFuture<Collection<Friend>> getMutualFriends(@NotNull UUID firstUniqueId, @NotNull UUID secondUniqueId) {
+		CompletableFuture<Profile> firstProfile = this.profileRepository.cacheProfile(firstUniqueId, false);
+		CompletableFuture<Profile> secondProfile = this.profileRepository.cacheProfile(secondUniqueId, false);
+		return firstProfile.thenCombine(secondProfile, FriendGraph::getMutualFriends);
+	}
+
+	@NotNull
+	public static Collection<Friend> getMutualFriends(@NotNull Profile firstProfile, @NotNull Profile secondProfile) {
+		List<Friend> mutualFriends = new ArrayList<>();
+		for (Friend friend : firstProfile.getFriends()) {
+			if (secondProfile.getFriend(friend.getUniqueId()) != null) {
+				mutualFriends.add(friend);
+			}
+		}
+		return Collections.unmodifiableList(mutualFriends);
+	}
+
+	// Expands the graph one depth at a time. Every unique id is visited once, and profiles are fetched through the repository,
+	// so cached profiles are reused and concurrent crawls share their requests. Failed profiles are reported, not fatal. Once
+	// the node budget is spent no new unique ids are visited, but the ones already visited are still fetched.
+	@NotNull
+	public CompletableFuture<FriendCrawl> crawl(@NotNull UUID rootUniqueId, int maximumDepth, int nodeBudget) {
+		if (maximumDepth < 0) {
+			throw new IllegalArgumentException("maximumDepth cannot be smaller than 0");
+		}
+		if (nodeBudget < 1) {
+			throw new IllegalArgumentException("nodeBudget cannot be smaller than 1");
+		}
+		Crawl crawl = new Crawl(rootUniqueId, maximumDepth, nodeBudget);
+		return crawl.expand(Collections.singletonList(rootUniqueId), 0);
+	}
+
+	private final class Crawl {
+
+		@NotNull
+		private final UUID rootUniqueId;
+		private final int maximumDepth;
+		private final int nodeBudget;
+		@NotNull
+		private final Map<UUID, Integer> depths = new LinkedHashMap<>();
+		@NotNull
+		private final Map<UUID, Profile> profiles = new LinkedHashMap<>();
+		@NotNull
+		private final Map<UUID, Throwable> failures = new LinkedHashMap<>();
+		private boolean truncated;
+
+		private Crawl(@NotNull UUID rootUniqueId, int maximumDepth, int nodeBudget) {
+			this.rootUniqueId = rootUniqueId;
+			this.maximumDepth = maximumDepth;
+			this.nodeBudget = nodeBudget;
+			this.depths.put(rootUniqueId, 0);
+		}
+
+		// Levels are expanded one after another, so the maps are only ever touched by one thread at a time.
+		@NotNull
+		private CompletableFuture<FriendCrawl> expand(@NotNull List<UUID> level, int depth) {
+			if (level.isEmpty() || depth >= this.maximumDepth) {
+				return CompletableFuture.completedFuture(new FriendCrawl(this.rootUniqueId, this.depths, this.profiles, this.failures, this.truncated));
+			}
+			Map<UUID, CompletableFuture<Profile>> queries = FriendGraph.this.profileRepository.cacheProfiles(level, false, FriendGraph.this.parallelism);
+			return CompletableFuture.allOf(queries.values().toArray(new CompletableFuture<?>[0]))
+				.handle((ignored, throwable) -> this.collect(queries, depth + 1))
+				.thenCompose(nextLevel -> this.expand(nextLevel, depth + 1));
+		}
+
+		@NotNull
+		private List<UUID> collect(@NotNull Map<UUID, CompletableFuture<Profile>> queries, int depth) {
+			List<UUID> nextLevel = new ArrayList<>();
+			for (Map.Entry<UUID, CompletableFuture<Profile>> query : queries.entrySet()) {
+				Profile profile;
+				try {
+					profile = query.getValue().join();
+				} catch (CompletionException exception) {
+					this.failures.put(query.getKey(), exception.getCause() != null ? exception.getCause() : exception);
+					continue;
+				} catch (CancellationException exception) {
+					this.failures.put(query.getKey(), exception);
+					continue;
+				}
+				this.profiles.put(query.getKey(), profile);
+				for (Friend friend : profile.getFriends()) {
+					if (this.depths.containsKey(friend.getUniqueId())) {
+						continue;
+					}
+					if (this.depths.size() >= this.nodeBudget) {
+						this.truncated = true;
+						break;
+					}
+					this.depths.put(friend.getUniqueId(), depth);
+					nextLevel.add(friend.getUniqueId());
+				}
+			}
+			return nextLevel;
+		}
+	}
+}
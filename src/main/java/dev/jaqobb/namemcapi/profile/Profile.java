@@ -29,6 +29,8 @@ import dev.jaqobb.namemcapi.server.Server;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
@@ -42,11 +44,29 @@ public class Profile {
 	private Collection<Friend> friends;
 	@NotNull
 	private Instant cacheTime;
+	@Nullable
+	private String entityTag;
+	@Nullable
+	private String lastModified;
+	@Nullable
+	private volatile Map<UUID, Friend> friendsByUniqueId;
+	@Nullable
+	private volatile Map<String, Friend> friendsByName;
 
 	public Profile(@NotNull UUID uniqueId, @NotNull Collection<Friend> friends) {
+		this(uniqueId, friends, Instant.now());
+	}
+
+	public Profile(@NotNull UUID uniqueId, @NotNull Collection<Friend> friends, @NotNull Instant cacheTime) {
+		this(uniqueId, friends, cacheTime, null, null);
+	}
+
+	public Profile(@NotNull UUID uniqueId, @NotNull Collection<Friend> friends, @NotNull Instant cacheTime, @Nullable String entityTag, @Nullable String lastModified) {
 		this.uniqueId = uniqueId;
 		this.friends = friends;
-		this.cacheTime = Instant.now();
+		this.cacheTime = cacheTime;
+		this.entityTag = entityTag;
+		this.lastModified = lastModified;
 	}
 
 	@NotNull
@@ -61,10 +81,15 @@ public class Profile {
 
 	@Nullable
 	public Friend getFriend(@NotNull UUID uniqueId) {
-		return this.friends.stream()
-			.filter(friend -> friend.getUniqueId().equals(uniqueId))
-			.findFirst()
-			.orElse(null);
+		Map<UUID, Friend> friendsByUniqueId = this.friendsByUniqueId;
+		if (friendsByUniqueId == null) {
+			friendsByUniqueId = new HashMap<>((int) (this.friends.size() / 0.75F) + 1);
+			for (Friend friend : this.friends) {
+				friendsByUniqueId.putIfAbsent(friend.getUniqueId(), friend);
+			}
+			this.friendsByUniqueId = friendsByUniqueId;
+		}
+		return friendsByUniqueId.get(uniqueId);
 	}
 
 	@Nullable
@@ -74,10 +99,25 @@ public class Profile {
 
 	@Nullable
 	public Friend getFriend(@NotNull String name, boolean caseSensitive) {
-		return this.friends.stream()
-			.filter(friend -> caseSensitive ? friend.getName().equals(name) : friend.getName().equalsIgnoreCase(name))
-			.findFirst()
-			.orElse(null);
+		Map<String, Friend> friendsByName = this.friendsByName;
+		if (friendsByName == null) {
+			friendsByName = new HashMap<>((int) (this.friends.size() / 0.75F) + 1);
+			for (Friend friend : this.friends) {
+				friendsByName.putIfAbsent(foldCase(friend.getName()), friend);
+			}
+			this.friendsByName = friendsByName;
+		}
+		Friend friend = friendsByName.get(foldCase(name));
+		if (friend == null || !caseSensitive || friend.getName().equals(name)) {
+			return friend;
+		}
+		// Only reachable when two friends have names that differ just by case.
+		for (Friend otherFriend : this.friends) {
+			if (otherFriend.getName().equals(name)) {
+				return otherFriend;
+			}
+		}
+		return null;
 	}
 
 	@NotNull
@@ -85,10 +125,51 @@ public class Profile {
 		return this.cacheTime;
 	}
 
+	// Profiles are shared by callers and the cache time takes part in equality, so a revalidated profile is a new copy.
+	// The copy keeps the friend lookups built so far, as the friends themselves are the same.
+	@NotNull
+	Profile withCacheTime(@NotNull Instant cacheTime) {
+		Profile profile = new Profile(this.uniqueId, this.friends, cacheTime, this.entityTag, this.lastModified);
+		profile.friendsByUniqueId = this.friendsByUniqueId;
+		profile.friendsByName = this.friendsByName;
+		return profile;
+	}
+
+	@Nullable
+	public String getEntityTag() {
+		return this.entityTag;
+	}
+
+	@Nullable
+	public String getLastModified() {
+		return this.lastModified;
+	}
+
+	public boolean hasValidators() {
+		return this.entityTag != null || this.lastModified != null;
+	}
+
 	public boolean hasLikedServer(@NotNull Server server) {
 		return server.hasLiked(this.uniqueId);
 	}
 
+	// Mirrors String#equalsIgnoreCase, which compares both the upper and the lower case of every character. Names that are
+	// already folded are returned as they are, so looking up a lower case name allocates nothing.
+	@NotNull
+	private static String foldCase(@NotNull String name) {
+		for (int index = 0; index < name.length(); index++) {
+			char character = name.charAt(index);
+			if (Character.toLowerCase(Character.toUpperCase(character)) != character) {
+				char[] characters = name.toCharArray();
+				for (; index < characters.length; index++) {
+					characters[index] = Character.toLowerCase(Character.toUpperCase(characters[index]));
+				}
+				return new String(characters);
+			}
+		}
+		return name;
+	}
+
 	@Override
 	public boolean equals(@Nullable Object object) {
 		if (this == object) {
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final class ProfileCodec {
+
+	static final int MAGIC = 0x4E4D4350;
+	static final int VERSION = 2;
+
+	private static final int MINIMUM_FRIEND_SIZE = 18;
+
+	private ProfileCodec() {
+		throw new UnsupportedOperationException("Cannot create instance of this class");
+	}
+
+	// Standalone form used by the second level cache: the version, then a single record.
+	@NotNull
+	static byte[] toBytes(@NotNull Profile profile) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(VERSION);
+		encode(profile, output);
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	@NotNull
+	static Profile fromBytes(@NotNull byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		try {
+			int version = buffer.getInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException("Unsupported version " + version);
+			}
+			return decode(buffer, version);
+		} catch (BufferUnderflowException exception) {
+			throw new IOException("Truncated profile record", exception);
+		}
+	}
+
+	static void encode(@NotNull Profile profile, @NotNull DataOutput output) throws IOException {
+		output.writeLong(profile.getUniqueId().getMostSignificantBits());
+		output.writeLong(profile.getUniqueId().getLeastSignificantBits());
+		output.writeLong(profile.getCacheTime().getEpochSecond());
+		output.writeInt(profile.getCacheTime().getNano());
+		writeValidator(output, profile.getEntityTag());
+		writeValidator(output, profile.getLastModified());
+		Collection<Friend> friends = profile.getFriends();
+		output.writeInt(friends.size());
+		for (Friend friend : friends) {
+			byte[] name = friend.getName().getBytes(StandardCharsets.UTF_8);
+			if (name.length > 0xFFFF) {
+				throw new IOException("Friend name is too long to be encoded");
+			}
+			output.writeLong(friend.getUniqueId().getMostSignificantBits());
+			output.writeLong(friend.getUniqueId().getLeastSignificantBits());
+			output.writeShort(name.length);
+			output.write(name);
+		}
+	}
+
+	@NotNull
+	static Profile decode(@NotNull ByteBuffer buffer, int version) throws IOException {
+		UUID uniqueId = ProfileRepository.internUniqueId(new UUID(buffer.getLong(), buffer.getLong()));
+		Instant cacheTime = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+		String entityTag = null;
+		String lastModified = null;
+		// Version 1 snapshots were written before validators were kept.
+		if (version >= 2) {
+			entityTag = readValidator(buffer);
+			lastModified = readValidator(buffer);
+		}
+		int friendCount = buffer.getInt();
+		if (friendCount < 0 || friendCount > buffer.remaining() / MINIMUM_FRIEND_SIZE) {
+			throw new IOException("Malformed friend count " + friendCount);
+		}
+		List<Friend> friends = new ArrayList<>(friendCount);
+		byte[] name = new byte[16];
+		for (int index = 0; index < friendCount; index++) {
+			UUID friendUniqueId = new UUID(buffer.getLong(), buffer.getLong());
+			int nameLength = buffer.getShort() & 0xFFFF;
+			if (name.length < nameLength) {
+				name = new byte[nameLength];
+			}
+			buffer.get(name, 0, nameLength);
+			friends.add(ProfileRepository.internFriend(friendUniqueId, new String(name, 0, nameLength, StandardCharsets.UTF_8)));
+		}
+		return new Profile(uniqueId, Collections.unmodifiableList(friends), cacheTime, entityTag, lastModified);
+	}
+
+	private static void writeValidator(@NotNull DataOutput output, @Nullable String validator) throws IOException {
+		if (validator == null) {
+			output.writeShort(0xFFFF);
+			return;
+		}
+		byte[] bytes = validator.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length >= 0xFFFF) {
+			throw new IOException("Validator is too long to be encoded");
+		}
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+
+	@Nullable
+	private static String readValidator(@NotNull ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		if (length == 0xFFFF) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -24,48 +24,153 @@
 
 package dev.jaqobb.namemcapi.profile;
 
+import dev.jaqobb.namemcapi.cache.BoundedCacheStore;
+import dev.jaqobb.namemcapi.cache.CacheStore;
+import dev.jaqobb.namemcapi.cache.LookupResult;
+import dev.jaqobb.namemcapi.cache.SecondLevelCache;
+import dev.jaqobb.namemcapi.cache.SingleFlight;
+import dev.jaqobb.namemcapi.cache.SnapshotFile;
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import dev.jaqobb.namemcapi.http.HttpTransport;
+import dev.jaqobb.namemcapi.http.RateLimitedHttpTransport;
+import dev.jaqobb.namemcapi.http.Request;
+import dev.jaqobb.namemcapi.http.Response;
+import dev.jaqobb.namemcapi.metrics.RepositoryMetrics;
 import dev.jaqobb.namemcapi.profile.friend.Friend;
-import dev.jaqobb.namemcapi.util.IOHelper;
+import dev.jaqobb.namemcapi.util.BatchHelper;
+import dev.jaqobb.namemcapi.util.ExecutorHelper;
+import dev.jaqobb.namemcapi.util.FutureHelper;
+import dev.jaqobb.namemcapi.util.JsonReader;
+import dev.jaqobb.namemcapi.util.PullPublisher;
+import dev.jaqobb.namemcapi.util.WeakInterner;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.jetbrains.annotations.Nullable;
 
-public class ProfileRepository {
+public class ProfileRepository implements AutoCloseable {
 
-	private static final String PROFILE_FRIENDS_URL = "https://api.namemc.com/profile/%s/friends";
+	private static final String PROFILE_FRIENDS_PATH = "/profile/%s/friends";
 
-	private static final AtomicInteger EXECUTOR_THREAD_COUNTER = new AtomicInteger();
-	private static final Executor EXECUTOR = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "NameMCAPI Profile Query #" + EXECUTOR_THREAD_COUNTER.getAndIncrement()));
+	private static final long DEFAULT_MAXIMUM_WEIGHT = 1_000_000L;
+
+	private static final int DEFAULT_BATCH_PARALLELISM = 16;
+
+	private static final long DEFAULT_NEGATIVE_CACHE_SIZE = 10_000L;
+
+	private static final String SECOND_LEVEL_NAMESPACE = "profiles";
+
+	private static final String EXECUTOR_NAME = "NameMCAPI Profile Query";
+
+	// Shared by every repository, so a player that shows up in many friend lists is only kept in memory once.
+	private static final WeakInterner<UUID> UNIQUE_IDS = new WeakInterner<>();
+	private static final WeakInterner<Friend> FRIENDS = new WeakInterner<>();
 
 	@NotNull
 	private Duration cacheDuration;
 	@NotNull
-	private Map<UUID, Profile> profiles = Collections.synchronizedMap(new HashMap<>(100, 0.85F));
+	private CacheStore<UUID, Profile> profiles;
+	@NotNull
+	private CacheStore<UUID, LookupResult<Profile>> failures;
+	@NotNull
+	private Duration notFoundDuration = Duration.ofMinutes(1L);
+	@NotNull
+	private Duration transientFailureDuration = Duration.ofSeconds(5L);
+	@NotNull
+	private SingleFlight<UUID, Profile> queries = new SingleFlight<>();
+	@NotNull
+	private Predicate<Profile> validityCheck = this::isProfileValid;
+	@NotNull
+	private RepositoryMetrics metrics;
+	@NotNull
+	private List<FriendChangeListener> friendChangeListeners = new CopyOnWriteArrayList<>();
+	@NotNull
+	private HttpTransport transport;
+	@NotNull
+	private Executor executor;
+	private boolean executorOwned;
+	@NotNull
+	private Duration staleWhileRevalidate = Duration.ZERO;
+	private double refreshAheadFactor;
+	@Nullable
+	private SecondLevelCache secondLevelCache;
+	private volatile boolean closed;
 
 	public ProfileRepository() {
 		this(5, ChronoUnit.MINUTES);
 	}
 
 	public ProfileRepository(long duration, @NotNull TemporalUnit unit) {
+		this(duration, unit, RateLimitedHttpTransport.getDefault());
+	}
+
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, profile -> 1 + profile.getFriends().size()), transport);
+	}
+
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport, @NotNull Executor executor) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, profile -> 1 + profile.getFriends().size()), transport, executor);
+	}
+
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<UUID, Profile> store) {
+		this(duration, unit, store, RateLimitedHttpTransport.getDefault());
+	}
+
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<UUID, Profile> store, @NotNull HttpTransport transport) {
+		this(duration, unit, store, transport, ExecutorHelper.newQueryExecutor(EXECUTOR_NAME), true, Ticker.system());
+	}
+
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<UUID, Profile> store, @NotNull HttpTransport transport, @NotNull Executor executor) {
+		this(duration, unit, store, transport, executor, false, Ticker.system());
+	}
+
+	// Every freshness check follows the ticker: queries, getIfPresent, isProfileValid, refreshing ahead, dropping entries
+	// once they are no longer kept and forgetting failures. Cache times only matter for profiles from snapshots and the
+	// second level cache, whose age is measured against the wall clock once, as they are loaded.
+	public ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport, @NotNull Executor executor, @NotNull Ticker ticker) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, profile -> 1 + profile.getFriends().size(), ticker), transport, executor, false, ticker);
+	}
+
+	private ProfileRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<UUID, Profile> store, @NotNull HttpTransport transport, @NotNull Executor executor, boolean executorOwned, @NotNull Ticker ticker) {
 		if (duration < 1) {
 			throw new IllegalArgumentException("duration cannot be smaller than 1");
 		}
 		this.cacheDuration = Duration.of(duration, unit);
+		this.profiles = store;
+		this.failures = new BoundedCacheStore<>(DEFAULT_NEGATIVE_CACHE_SIZE, value -> 1, ticker);
+		this.transport = transport;
+		this.executor = executor;
+		this.executorOwned = executorOwned;
+		this.metrics = new RepositoryMetrics("ProfileRepository", store::size, this.queries::getInFlightCount, this.queries::getCoalescedCount);
+		store.addListener(this.metrics.asCacheListener());
 	}
 
 	@NotNull
@@ -73,6 +178,89 @@ public class ProfileRepository {
 		return this.cacheDuration;
 	}
 
+	@NotNull
+	public Duration getStaleWhileRevalidate() {
+		return this.staleWhileRevalidate;
+	}
+
+	public void setStaleWhileRevalidate(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.staleWhileRevalidate = Duration.of(duration, unit);
+	}
+
+	public double getRefreshAheadFactor() {
+		return this.refreshAheadFactor;
+	}
+
+	public void setRefreshAheadFactor(double refreshAheadFactor) {
+		if (refreshAheadFactor < 0.0D || refreshAheadFactor >= 1.0D) {
+			throw new IllegalArgumentException("refreshAheadFactor has to be between 0 (disabled) and 1 (exclusive)");
+		}
+		this.refreshAheadFactor = refreshAheadFactor;
+	}
+
+	@NotNull
+	public Duration getNotFoundDuration() {
+		return this.notFoundDuration;
+	}
+
+	// How long keys NameMC does not know are remembered. 0 turns this off.
+	public void setNotFoundDuration(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.notFoundDuration = Duration.of(duration, unit);
+	}
+
+	@NotNull
+	public Duration getTransientFailureDuration() {
+		return this.transientFailureDuration;
+	}
+
+	// How long network errors, rate limiting and server errors are remembered. 0 turns this off.
+	public void setTransientFailureDuration(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.transientFailureDuration = Duration.of(duration, unit);
+	}
+
+	public int getNegativeCacheSize() {
+		return this.failures.size();
+	}
+
+	// Replaces the store that remembers failed lookups, for example to change its size bound.
+	public void setNegativeCacheStore(@NotNull CacheStore<UUID, LookupResult<Profile>> store) {
+		CacheStore<UUID, LookupResult<Profile>> previousStore = this.failures;
+		this.failures = store;
+		previousStore.close();
+	}
+
+	public void clearNegativeCache() {
+		this.failures.clear();
+	}
+
+	@Nullable
+	public SecondLevelCache getSecondLevelCache() {
+		return this.secondLevelCache;
+	}
+
+	public void setSecondLevelCache(@Nullable SecondLevelCache secondLevelCache) {
+		this.secondLevelCache = secondLevelCache;
+	}
+
+	@NotNull
+	public HttpTransport getTransport() {
+		return this.transport;
+	}
+
+	@NotNull
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
 	@NotNull
 	public Collection<Profile> getProfiles() {
 		return Collections.unmodifiableCollection(this.profiles.values());
@@ -93,46 +281,571 @@ public class ProfileRepository {
 	}
 
 	public void addProfile(@NotNull Profile profile) {
-		this.profiles.putIfAbsent(profile.getUniqueId(), profile);
+		this.profiles.putIfAbsent(profile.getUniqueId(), profile, this.getTimeToLive(profile), this.getValidFor(profile));
+		this.forgetFailure(profile.getUniqueId());
 	}
 
 	public void removeProfile(@NotNull Profile profile) {
 		this.profiles.remove(profile.getUniqueId());
 	}
 
+	// Returns the cached profile while it is valid, without asking NameMC, waiting or scheduling a refresh. The map is read
+	// once and expiry is checked against a nanosecond deadline kept by the store, so this allocates nothing. Misses are
+	// not counted, as the query that usually follows counts them.
+	@Nullable
+	public Profile getIfPresent(@NotNull UUID uniqueId) {
+		Profile profile = this.profiles.getIfValid(uniqueId, this.validityCheck);
+		if (profile != null) {
+			this.metrics.recordHit();
+		}
+		return profile;
+	}
+
 	public void cacheProfile(@NotNull UUID uniqueId, boolean recache, @NotNull BiConsumer<Profile, Throwable> callback) {
-		if (this.profiles.containsKey(uniqueId)) {
-			Profile profile = this.profiles.get(uniqueId);
-			if (this.isProfileValid(profile) && !recache) {
-				callback.accept(profile, null);
-				return;
+		this.queryProfile(uniqueId, recache, false).whenComplete(callback);
+	}
+
+	public void cacheProfile(@NotNull UUID uniqueId, boolean recache, @NotNull Duration timeout, @NotNull BiConsumer<Profile, Throwable> callback) {
+		this.cacheProfile(uniqueId, recache, timeout).whenComplete(callback);
+	}
+
+	// Cancelling the returned future stops waiting for the profile. The request itself is only cancelled once no other caller waits for it.
+	@NotNull
+	public CompletableFuture<Profile> cacheProfile(@NotNull UUID uniqueId, boolean recache) {
+		return this.queryProfile(uniqueId, recache, true);
+	}
+
+	// The returned future fails with a TimeoutException once the timeout passes, which counts as cancelling it.
+	@NotNull
+	public CompletableFuture<Profile> cacheProfile(@NotNull UUID uniqueId, boolean recache, @NotNull Duration timeout) {
+		if (timeout.isNegative() || timeout.isZero()) {
+			throw new IllegalArgumentException("timeout has to be positive");
+		}
+		return this.queryProfile(uniqueId, recache, true).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	// Never fails. Instead, the result tells a profile NameMC does not know apart from a lookup that failed.
+	@NotNull
+	public CompletableFuture<LookupResult<Profile>> lookupProfile(@NotNull UUID uniqueId, boolean recache) {
+		return toLookupResult(this.cacheProfile(uniqueId, recache));
+	}
+
+	@NotNull
+	public CompletableFuture<LookupResult<Profile>> lookupProfile(@NotNull UUID uniqueId, boolean recache, @NotNull Duration timeout) {
+		return toLookupResult(this.cacheProfile(uniqueId, recache, timeout));
+	}
+
+	@NotNull
+	private static CompletableFuture<LookupResult<Profile>> toLookupResult(@NotNull CompletableFuture<Profile> future) {
+		CompletableFuture<LookupResult<Profile>> result = future.handle((profile, throwable) -> throwable == null ? LookupResult.found(profile) : LookupResult.failed(throwable));
+		FutureHelper.propagateCancellation(result, future);
+		return result;
+	}
+
+	// Emits the friends while NameMC's response is still being read, one per unit of demand, so even a huge list is handled
+	// in constant memory. A valid cached profile is streamed from memory instead. With cache set, the friends are collected
+	// as well and the profile is cached once the stream completes.
+	@NotNull
+	public Flow.Publisher<Friend> streamFriends(@NotNull UUID uniqueId, boolean cache) {
+		return new PullPublisher<>(this.executor, () -> {
+			Profile cachedProfile = this.profiles.getIfValid(uniqueId, this.validityCheck);
+			if (cachedProfile != null) {
+				this.metrics.recordHit();
+				return CompletableFuture.completedFuture(PullPublisher.Source.of(cachedProfile.getFriends().iterator()));
+			}
+			if (this.closed) {
+				return CompletableFuture.failedFuture(new IllegalStateException("ProfileRepository is closed"));
+			}
+			this.metrics.recordMiss();
+			Request request = new Request(String.format(PROFILE_FRIENDS_PATH, uniqueId.toString()));
+			CompletableFuture<Response> responseFuture = this.transport.send(request);
+			CompletableFuture<PullPublisher.Source<Friend>> future = responseFuture.thenApplyAsync(response -> {
+				try {
+					return new FriendSource(uniqueId, request, response, cache);
+				} catch (IOException exception) {
+					closeQuietly(response);
+					throw new CompletionException(exception);
+				}
+			}, this.executor);
+			future.whenComplete((source, throwable) -> {
+				if (throwable != null && !FutureHelper.isCancellation(throwable)) {
+					this.metrics.recordFailure(FutureHelper.unwrap(throwable));
+				}
+			});
+			return future;
+		});
+	}
+
+	@NotNull
+	public Map<UUID, CompletableFuture<Profile>> cacheProfiles(@NotNull Collection<UUID> uniqueIds, boolean recache) {
+		return this.cacheProfiles(uniqueIds, recache, DEFAULT_BATCH_PARALLELISM);
+	}
+
+	@NotNull
+	public Map<UUID, CompletableFuture<Profile>> cacheProfiles(@NotNull Collection<UUID> uniqueIds, boolean recache, int parallelism) {
+		return BatchHelper.executeBounded(uniqueIds, parallelism, uniqueId -> recache ? null : this.getUsableProfile(uniqueId), uniqueId -> this.queryProfile(uniqueId, recache, false));
+	}
+
+	@NotNull
+	private CompletableFuture<Profile> queryProfile(@NotNull UUID uniqueId, boolean recache, boolean cancellable) {
+		if (!recache) {
+			Profile usableProfile = this.getUsableProfile(uniqueId);
+			if (usableProfile != null) {
+				return CompletableFuture.completedFuture(usableProfile);
+			}
+			LookupResult<Profile> failure = this.failures.get(uniqueId);
+			if (failure != null) {
+				this.metrics.recordNegativeHit();
+				return CompletableFuture.failedFuture(failure.getFailure());
 			}
 		}
-		EXECUTOR.execute(() -> {
-			String url = String.format(PROFILE_FRIENDS_URL, uniqueId.toString());
-			try {
-				JSONArray array = new JSONArray(IOHelper.getWebsiteContent(url));
-				Collection<Friend> friends = IntStream.range(0, array.length())
-					.boxed()
-					.map(index -> {
-						JSONObject object = array.getJSONObject(index);
-						return new Friend(UUID.fromString(object.getString("uniqueId")), object.getString("name"));
-					})
-					.collect(Collectors.toUnmodifiableList());
-				Profile profile = new Profile(uniqueId, friends);
-				this.profiles.put(uniqueId, profile);
-				callback.accept(profile, null);
-			} catch (Exception exception) {
-				callback.accept(null, exception);
+		this.metrics.recordMiss();
+		return this.fetchProfile(uniqueId, recache, cancellable);
+	}
+
+	// Returns the cached entry if it is valid or stale within the grace period, scheduling a background refresh when needed.
+	@Nullable
+	private Profile getUsableProfile(@NotNull UUID uniqueId) {
+		if (this.refreshAheadFactor == 0.0D) {
+			Profile validProfile = this.profiles.getIfValid(uniqueId, this.validityCheck);
+			if (validProfile != null) {
+				this.metrics.recordHit();
+				return validProfile;
+			}
+		}
+		Profile cachedProfile = this.profiles.get(uniqueId);
+		if (cachedProfile == null) {
+			return null;
+		}
+		long validFor = this.getRemainingValidity(cachedProfile);
+		if (validFor > 0L) {
+			long age = this.cacheDuration.toNanos() - validFor;
+			if (this.refreshAheadFactor > 0.0D && age >= this.cacheDuration.toNanos() * this.refreshAheadFactor) {
+				this.refreshProfile(uniqueId);
+			}
+			this.metrics.recordHit();
+			return cachedProfile;
+		}
+		if (-validFor < this.staleWhileRevalidate.toNanos()) {
+			this.refreshProfile(uniqueId);
+			this.metrics.recordHit();
+			return cachedProfile;
+		}
+		return null;
+	}
+
+	private void refreshProfile(@NotNull UUID uniqueId) {
+		if (!this.closed && !this.queries.isInFlight(uniqueId)) {
+			this.fetchProfile(uniqueId, false, false);
+		}
+	}
+
+	@NotNull
+	private CompletableFuture<Profile> fetchProfile(@NotNull UUID uniqueId, boolean recache, boolean cancellable) {
+		if (this.closed) {
+			return CompletableFuture.failedFuture(new IllegalStateException("ProfileRepository is closed"));
+		}
+		Supplier<CompletableFuture<Profile>> loader = () -> {
+			SecondLevelCache secondLevelCache = this.secondLevelCache;
+			if (recache || secondLevelCache == null) {
+				return this.requestProfile(uniqueId);
+			}
+			return FutureHelper.thenComposeCancellable(this.loadSharedProfile(secondLevelCache, uniqueId), sharedProfile -> sharedProfile != null ? CompletableFuture.completedFuture(sharedProfile) : this.requestProfile(uniqueId));
+		};
+		return cancellable ? this.queries.executeCancellable(uniqueId, loader) : this.queries.execute(uniqueId, loader);
+	}
+
+	// Any problem with the second level cache counts as a miss, since NameMC can still answer.
+	@NotNull
+	private CompletableFuture<Profile> loadSharedProfile(@NotNull SecondLevelCache secondLevelCache, @NotNull UUID uniqueId) {
+		CompletableFuture<byte[]> future;
+		try {
+			future = secondLevelCache.get(SECOND_LEVEL_NAMESPACE, uniqueId.toString());
+		} catch (RuntimeException exception) {
+			future = CompletableFuture.failedFuture(exception);
+		}
+		return future.handleAsync((bytes, throwable) -> {
+			Profile sharedProfile = null;
+			if (bytes != null) {
+				try {
+					sharedProfile = ProfileCodec.fromBytes(bytes);
+				} catch (IOException | RuntimeException exception) {
+					sharedProfile = null;
+				}
+			}
+			Profile cachedProfile = this.profiles.get(uniqueId);
+			// An entry that is not newer than the local one would only roll it back.
+			if (sharedProfile == null || !sharedProfile.getUniqueId().equals(uniqueId) || !this.isProfileValid(sharedProfile) || (cachedProfile != null && !sharedProfile.getCacheTime().isAfter(cachedProfile.getCacheTime()))) {
+				this.metrics.recordSecondLevelMiss();
+				return null;
+			}
+			this.metrics.recordSecondLevelHit();
+			this.forgetFailure(uniqueId);
+			Profile previousProfile = this.profiles.put(uniqueId, sharedProfile, this.getTimeToLive(sharedProfile), this.getValidFor(sharedProfile));
+			this.notifyFriendChange(previousProfile, sharedProfile);
+			return sharedProfile;
+		}, this.executor);
+	}
+
+	@NotNull
+	private CompletableFuture<Profile> requestProfile(@NotNull UUID uniqueId) {
+		Profile cachedProfile = this.profiles.get(uniqueId);
+		Request request = this.createRequest(uniqueId, cachedProfile);
+		long startTime = System.nanoTime();
+		CompletableFuture<Response> responseFuture = this.transport.send(request);
+		CompletableFuture<Profile> future = responseFuture.thenApplyAsync(response -> {
+			long networkTime = System.nanoTime() - startTime;
+			try (response) {
+				if (cachedProfile != null && response.getStatusCode() == 304) {
+					this.metrics.recordNotModified(networkTime);
+					Profile revalidatedProfile = cachedProfile.withCacheTime(Instant.now());
+					this.profiles.put(uniqueId, revalidatedProfile, this.getRetention(revalidatedProfile), this.cacheDuration);
+					this.storeSharedProfile(revalidatedProfile);
+					return revalidatedProfile;
+				}
+				long parseStartTime = System.nanoTime();
+				Profile profile = this.readProfile(uniqueId, request, response);
+				this.metrics.recordFetch(networkTime, System.nanoTime() - parseStartTime);
+				Profile previousProfile = this.profiles.put(uniqueId, profile, this.getRetention(profile), this.cacheDuration);
+				this.notifyFriendChange(previousProfile, profile);
+				this.storeSharedProfile(profile);
+				return profile;
+			} catch (IOException exception) {
+				throw new CompletionException(exception);
+			}
+		}, this.executor).whenComplete((fetchedProfile, throwable) -> {
+			if (throwable == null) {
+				this.forgetFailure(uniqueId);
+			} else if (!FutureHelper.isCancellation(throwable)) {
+				this.metrics.recordFailure(FutureHelper.unwrap(throwable));
+				this.rememberFailure(uniqueId, throwable);
 			}
 		});
+		FutureHelper.propagateCancellation(future, responseFuture);
+		return future;
+	}
+
+	// Failures NameMC caused are remembered, while local ones such as a full rate limiter queue are not about the key.
+	private void rememberFailure(@NotNull UUID uniqueId, @NotNull Throwable throwable) {
+		LookupResult<Profile> failure = LookupResult.failed(throwable);
+		Duration timeToLive;
+		if (failure.isNotFound()) {
+			timeToLive = this.notFoundDuration;
+		} else if (failure.getFailure() instanceof IOException) {
+			timeToLive = this.transientFailureDuration;
+		} else {
+			return;
+		}
+		if (!timeToLive.isZero()) {
+			this.failures.put(uniqueId, failure, timeToLive);
+		}
+	}
+
+	private void forgetFailure(@NotNull UUID uniqueId) {
+		if (this.failures.get(uniqueId) != null) {
+			this.failures.remove(uniqueId);
+		}
+	}
+
+	// Sharing is best effort, the entry is already cached locally.
+	private void storeSharedProfile(@NotNull Profile profile) {
+		SecondLevelCache secondLevelCache = this.secondLevelCache;
+		if (secondLevelCache == null) {
+			return;
+		}
+		try {
+			secondLevelCache.put(SECOND_LEVEL_NAMESPACE, profile.getUniqueId().toString(), ProfileCodec.toBytes(profile), this.getTimeToLive(profile));
+		} catch (IOException | RuntimeException exception) {
+			// Ignored.
+		}
+	}
+
+	@NotNull
+	private Request createRequest(@NotNull UUID uniqueId, @Nullable Profile cachedProfile) {
+		String path = String.format(PROFILE_FRIENDS_PATH, uniqueId.toString());
+		if (cachedProfile == null || !cachedProfile.hasValidators()) {
+			return new Request(path);
+		}
+		Map<String, String> headers = new HashMap<>(2);
+		if (cachedProfile.getEntityTag() != null) {
+			headers.put("If-None-Match", cachedProfile.getEntityTag());
+		}
+		if (cachedProfile.getLastModified() != null) {
+			headers.put("If-Modified-Since", cachedProfile.getLastModified());
+		}
+		return new Request(path, headers);
+	}
+
+	@NotNull
+	private Profile readProfile(@NotNull UUID uniqueId, @NotNull Request request, @NotNull Response response) throws IOException {
+		if (!response.isSuccessful()) {
+			throw new HttpStatusException(response.getStatusCode(), request.getPath());
+		}
+		List<Friend> friends = new ArrayList<>();
+		try (JsonReader reader = new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				friends.add(this.readFriend(reader));
+			}
+			reader.endArray();
+		}
+		return new Profile(internUniqueId(uniqueId), Collections.unmodifiableList(friends), Instant.now(), response.getHeader("ETag"), response.getHeader("Last-Modified"));
+	}
+
+	@NotNull
+	private Friend readFriend(@NotNull JsonReader reader) throws IOException {
+		UUID uniqueId = null;
+		String name = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "uniqueId":
+					uniqueId = reader.nextUniqueId();
+					break;
+				case "name":
+					name = reader.nextString();
+					break;
+				default:
+					reader.skipValue();
+					break;
+			}
+		}
+		reader.endObject();
+		if (uniqueId == null || name == null) {
+			throw new IOException("Friend is missing its unique id or name");
+		}
+		return internFriend(uniqueId, name);
+	}
+
+	@NotNull
+	static UUID internUniqueId(@NotNull UUID uniqueId) {
+		return UNIQUE_IDS.intern(uniqueId);
+	}
+
+	@NotNull
+	static Friend internFriend(@NotNull UUID uniqueId, @NotNull String name) {
+		return FRIENDS.intern(new Friend(UNIQUE_IDS.intern(uniqueId), name));
+	}
+
+	public void addFriendChangeListener(@NotNull FriendChangeListener listener) {
+		this.friendChangeListeners.add(listener);
+	}
+
+	public void removeFriendChangeListener(@NotNull FriendChangeListener listener) {
+		this.friendChangeListeners.remove(listener);
+	}
+
+	// Only called when a fetched entry replaces an older one, so the first fetch and 304 responses stay silent.
+	private void notifyFriendChange(@Nullable Profile previousProfile, @NotNull Profile profile) {
+		if (previousProfile == null || previousProfile == profile || this.friendChangeListeners.isEmpty()) {
+			return;
+		}
+		FriendChange change = new FriendChange(previousProfile, profile);
+		if (change.isEmpty()) {
+			return;
+		}
+		for (FriendChangeListener listener : this.friendChangeListeners) {
+			try {
+				listener.onFriendsChanged(change);
+			} catch (RuntimeException exception) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+			}
+		}
+	}
+
+	public long getCoalescedQueryCount() {
+		return this.queries.getCoalescedCount();
+	}
+
+	public long getHitCount() {
+		return this.metrics.getHitCount();
+	}
+
+	public long getMissCount() {
+		return this.metrics.getMissCount();
+	}
+
+	public long getNotModifiedCount() {
+		return this.metrics.getNotModifiedCount();
+	}
+
+	@NotNull
+	public RepositoryMetrics getMetrics() {
+		return this.metrics;
 	}
 
 	public boolean isProfileValid(@NotNull Profile profile) {
-		return Duration.between(profile.getCacheTime(), Instant.now()).compareTo(this.cacheDuration) < 0;
+		return this.getRemainingValidity(profile) > 0L;
+	}
+
+	// Nanoseconds the profile stays valid for, negative once it expired. Cached profiles are checked against the deadline
+	// the store keeps, so only profiles the store holds no deadline for, such as shared ones, are measured by their cache
+	// time.
+	private long getRemainingValidity(@NotNull Profile profile) {
+		long validFor = this.profiles.getRemainingValidity(profile.getUniqueId(), profile);
+		return validFor != CacheStore.UNKNOWN_VALIDITY ? validFor : this.getValidFor(profile).toNanos();
+	}
+
+	@NotNull
+	private Duration getValidFor(@NotNull Profile profile) {
+		return this.cacheDuration.minus(Duration.between(profile.getCacheTime(), Instant.now()));
+	}
+
+	// Entries carrying validators are kept for one more cache duration so that they can still be revalidated once they expire.
+	@NotNull
+	private Duration getRetention(@NotNull Profile profile) {
+		Duration retention = this.cacheDuration.plus(this.staleWhileRevalidate);
+		if (profile.hasValidators()) {
+			retention = retention.plus(this.cacheDuration);
+		}
+		return retention;
+	}
+
+	@NotNull
+	private Duration getTimeToLive(@NotNull Profile profile) {
+		return this.getRetention(profile).minus(Duration.between(profile.getCacheTime(), Instant.now()));
+	}
+
+	// Walks every cached friend list, so it is meant for diagnostics rather than frequent polling.
+	@NotNull
+	public FootprintReport getFootprint() {
+		Set<Friend> friends = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<UUID> uniqueIds = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+		int profileCount = 0;
+		long friendReferenceCount = 0L;
+		long estimatedBytes = 0L;
+		long estimatedUnsharedBytes = 0L;
+		for (Profile profile : this.profiles.values()) {
+			profileCount++;
+			estimatedUnsharedBytes += FootprintReport.UNIQUE_ID_SIZE;
+			if (uniqueIds.add(profile.getUniqueId())) {
+				estimatedBytes += FootprintReport.UNIQUE_ID_SIZE;
+			}
+			for (Friend friend : profile.getFriends()) {
+				friendReferenceCount++;
+				long nameSize = FootprintReport.getStringSize(friend.getName());
+				estimatedUnsharedBytes += FootprintReport.FRIEND_SIZE + FootprintReport.UNIQUE_ID_SIZE + nameSize;
+				if (friends.add(friend)) {
+					estimatedBytes += FootprintReport.FRIEND_SIZE;
+				}
+				if (uniqueIds.add(friend.getUniqueId())) {
+					estimatedBytes += FootprintReport.UNIQUE_ID_SIZE;
+				}
+				if (names.add(friend.getName())) {
+					estimatedBytes += nameSize;
+				}
+			}
+		}
+		long internedCount = (long) UNIQUE_IDS.size() + FRIENDS.size();
+		estimatedBytes += internedCount * FootprintReport.INTERNER_ENTRY_SIZE;
+		return new FootprintReport(profileCount, friendReferenceCount, friends.size(), uniqueIds.size(), names.size(), internedCount, estimatedBytes, estimatedUnsharedBytes);
+	}
+
+	public int saveSnapshot(@NotNull Path path) throws IOException {
+		return SnapshotFile.write(path, ProfileCodec.MAGIC, ProfileCodec.VERSION, this.profiles.values(), ProfileCodec::encode);
+	}
+
+	public int loadSnapshot(@NotNull Path path) throws IOException {
+		AtomicInteger restored = new AtomicInteger();
+		SnapshotFile.read(path, ProfileCodec.MAGIC, ProfileCodec.VERSION, ProfileCodec::decode, profile -> {
+			Duration timeToLive = this.getTimeToLive(profile);
+			if (!timeToLive.isNegative() && !timeToLive.isZero() && this.profiles.putIfAbsent(profile.getUniqueId(), profile, timeToLive, this.getValidFor(profile)) == null) {
+				restored.incrementAndGet();
+			}
+		});
+		return restored.get();
 	}
 
 	public void clearProfiles() {
 		this.profiles.clear();
+		this.failures.clear();
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		this.queries.awaitInFlight();
+		if (this.executorOwned && this.executor instanceof ExecutorService) {
+			ExecutorHelper.shutdownAndAwait((ExecutorService) this.executor);
+		}
+		this.profiles.close();
+		this.failures.close();
+		this.metrics.unregisterMBean();
+	}
+
+	private static void closeQuietly(@NotNull Response response) {
+		try {
+			response.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private final class FriendSource implements PullPublisher.Source<Friend> {
+
+		@NotNull
+		private final UUID uniqueId;
+		@NotNull
+		private final Response response;
+		@NotNull
+		private final JsonReader reader;
+		@Nullable
+		private final List<Friend> friends;
+		@Nullable
+		private final String entityTag;
+		@Nullable
+		private final String lastModified;
+		private boolean ended;
+
+		private FriendSource(@NotNull UUID uniqueId, @NotNull Request request, @NotNull Response response, boolean cache) throws IOException {
+			if (!response.isSuccessful()) {
+				throw new HttpStatusException(response.getStatusCode(), request.getPath());
+			}
+			this.uniqueId = uniqueId;
+			this.response = response;
+			this.reader = new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+			this.reader.beginArray();
+			this.friends = cache ? new ArrayList<>() : null;
+			this.entityTag = response.getHeader("ETag");
+			this.lastModified = response.getHeader("Last-Modified");
+		}
+
+		@Override
+		public boolean hasNext() throws IOException {
+			if (this.ended) {
+				return false;
+			}
+			if (this.reader.hasNext()) {
+				return true;
+			}
+			this.reader.endArray();
+			this.ended = true;
+			if (this.friends != null) {
+				Profile profile = new Profile(internUniqueId(this.uniqueId), Collections.unmodifiableList(this.friends), Instant.now(), this.entityTag, this.lastModified);
+				Profile previousProfile = ProfileRepository.this.profiles.put(this.uniqueId, profile, ProfileRepository.this.getRetention(profile), ProfileRepository.this.cacheDuration);
+				ProfileRepository.this.notifyFriendChange(previousProfile, profile);
+				ProfileRepository.this.forgetFailure(this.uniqueId);
+				ProfileRepository.this.storeSharedProfile(profile);
+			}
+			return false;
+		}
+
+		@NotNull
+		@Override
+		public Friend next() throws IOException {
+			Friend friend = ProfileRepository.this.readFriend(this.reader);
+			if (this.friends != null) {
+				this.friends.add(friend);
+			}
+			return friend;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try (this.response) {
+				this.reader.close();
+			}
+		}
 	}
 }
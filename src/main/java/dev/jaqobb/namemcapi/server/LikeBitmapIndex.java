@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.util.CompressedBitmap;
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jetbrains.annotations.NotNull;
+
+// Gives every liking unique id a dense int id, in the order they are first seen, and keeps the likes of each cached
+// server as a compressed bitmap of those ids. Bitmaps are built on first use and kept for as long as the same server
+// instance is cached. Ids are never reused, so the repository replaces the whole index once too many of them belong to
+// unique ids that no cached server has anymore.
+final class LikeBitmapIndex {
+
+	private static final float LOAD_FACTOR = 0.5F;
+
+	@NotNull
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	@NotNull
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	// Pairs of most and least significant bits, stored next to each other, of an open addressing table.
+	@NotNull
+	private long[] keys = new long[128];
+	// Id + 1 of every entry of the table, 0 marks a free entry.
+	@NotNull
+	private int[] ids = new int[64];
+	// Pairs of most and least significant bits, indexed by id.
+	@NotNull
+	private long[] uniqueIds = new long[128];
+	private int size;
+
+	@NotNull
+	CompressedBitmap get(@NotNull String address, @NotNull Server server) {
+		Entry entry = this.entries.get(address);
+		if (entry != null && entry.server == server) {
+			return entry.bitmap;
+		}
+		CompressedBitmap bitmap = this.encode(server.getLikeSet());
+		this.entries.put(address, new Entry(server, bitmap));
+		return bitmap;
+	}
+
+	void invalidate(@NotNull String address) {
+		this.entries.remove(address);
+	}
+
+	int getDictionarySize() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	@NotNull
+	UniqueIdSet decode(@NotNull CompressedBitmap bitmap) {
+		UniqueIdSet.Builder builder = UniqueIdSet.builder(bitmap.getCardinality());
+		this.lock.readLock().lock();
+		try {
+			bitmap.forEach(id -> builder.add(this.uniqueIds[id << 1], this.uniqueIds[(id << 1) + 1]));
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		return builder.build();
+	}
+
+	@NotNull
+	private CompressedBitmap encode(@NotNull UniqueIdSet likes) {
+		CompressedBitmap.Builder builder = CompressedBitmap.builder(likes.size());
+		this.lock.writeLock().lock();
+		try {
+			if (this.size + likes.size() > this.ids.length * LOAD_FACTOR) {
+				int capacity = this.ids.length;
+				while (this.size + likes.size() > capacity * LOAD_FACTOR) {
+					capacity <<= 1;
+				}
+				this.resize(capacity);
+			}
+			for (int like = 0; like < likes.size(); like++) {
+				builder.add(this.getOrAssign(likes.getMostSignificantBits(like), likes.getLeastSignificantBits(like)));
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		return builder.build();
+	}
+
+	private int getOrAssign(long mostSignificantBits, long leastSignificantBits) {
+		int capacityMask = this.ids.length - 1;
+		int index = hash(mostSignificantBits, leastSignificantBits) & capacityMask;
+		while (this.ids[index] != 0) {
+			if (this.keys[index << 1] == mostSignificantBits && this.keys[(index << 1) + 1] == leastSignificantBits) {
+				return this.ids[index] - 1;
+			}
+			index = (index + 1) & capacityMask;
+		}
+		int id = this.size++;
+		this.keys[index << 1] = mostSignificantBits;
+		this.keys[(index << 1) + 1] = leastSignificantBits;
+		this.ids[index] = id + 1;
+		if (id << 1 == this.uniqueIds.length) {
+			this.uniqueIds = Arrays.copyOf(this.uniqueIds, this.uniqueIds.length << 1);
+		}
+		this.uniqueIds[id << 1] = mostSignificantBits;
+		this.uniqueIds[(id << 1) + 1] = leastSignificantBits;
+		return id;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldIds = this.ids;
+		this.keys = new long[capacity << 1];
+		this.ids = new int[capacity];
+		int capacityMask = capacity - 1;
+		for (int oldIndex = 0; oldIndex < oldIds.length; oldIndex++) {
+			if (oldIds[oldIndex] == 0) {
+				continue;
+			}
+			int index = hash(oldKeys[oldIndex << 1], oldKeys[(oldIndex << 1) + 1]) & capacityMask;
+			while (this.ids[index] != 0) {
+				index = (index + 1) & capacityMask;
+			}
+			this.keys[index << 1] = oldKeys[oldIndex << 1];
+			this.keys[(index << 1) + 1] = oldKeys[(oldIndex << 1) + 1];
+			this.ids[index] = oldIds[oldIndex];
+		}
+	}
+
+	private static int hash(long mostSignificantBits, long leastSignificantBits) {
+		long hash = (mostSignificantBits ^ leastSignificantBits) * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private static final class Entry {
+
+		@NotNull
+		private final Server server;
+		@NotNull
+		private final CompressedBitmap bitmap;
+
+		private Entry(@NotNull Server server, @NotNull CompressedBitmap bitmap) {
+			this.server = server;
+			this.bitmap = bitmap;
+		}
+	}
+}
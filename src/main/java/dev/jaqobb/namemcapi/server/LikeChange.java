@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.util.Collection;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+
+public class LikeChange {
+
+	@NotNull
+	private Server previousServer;
+	@NotNull
+	private Server server;
+	@NotNull
+	private UniqueIdSet addedLikes;
+	@NotNull
+	private UniqueIdSet removedLikes;
+
+	public LikeChange(@NotNull Server previousServer, @NotNull Server server) {
+		this.previousServer = previousServer;
+		this.server = server;
+		this.addedLikes = server.getLikeSet().difference(previousServer.getLikeSet());
+		this.removedLikes = previousServer.getLikeSet().difference(server.getLikeSet());
+	}
+
+	@NotNull
+	public String getAddress() {
+		return this.server.getAddress();
+	}
+
+	@NotNull
+	public Server getPreviousServer() {
+		return this.previousServer;
+	}
+
+	@NotNull
+	public Server getServer() {
+		return this.server;
+	}
+
+	@NotNull
+	public Collection<UUID> getAddedLikes() {
+		return this.addedLikes;
+	}
+
+	@NotNull
+	public Collection<UUID> getRemovedLikes() {
+		return this.removedLikes;
+	}
+
+	public boolean isEmpty() {
+		return this.addedLikes.isEmpty() && this.removedLikes.isEmpty();
+	}
+}
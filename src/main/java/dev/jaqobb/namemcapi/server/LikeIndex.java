@@ -0,0 +1,316 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jetbrains.annotations.NotNull;
+
+// Maps every liking unique id to a bit mask of server slots, kept in an open addressing table with linear probing.
+// An entry is in use as long as its mask has a bit set, so an entry whose last bit is cleared is removed right away.
+// Servers only count while they are valid. Expired ones are dropped by the next query, and come back when revalidated.
+// Deadlines are read from the ticker the repository uses.
+final class LikeIndex {
+
+	private static final float LOAD_FACTOR = 0.5F;
+
+	@NotNull
+	private final Ticker ticker;
+	@NotNull
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	@NotNull
+	private final Map<String, Integer> slotsByAddress = new HashMap<>();
+	@NotNull
+	private final BitSet usedSlots = new BitSet();
+	@NotNull
+	private String[] addresses = new String[64];
+	@NotNull
+	private UniqueIdSet[] likesBySlot = new UniqueIdSet[64];
+	@NotNull
+	private long[] validUntil = new long[64];
+	// Only meaningful while a slot is used.
+	private long nextExpiry;
+	// Pairs of most and least significant bits, stored next to each other.
+	@NotNull
+	private long[] keys = new long[32];
+	// Masks of every entry, each one words long.
+	@NotNull
+	private long[] masks = new long[16];
+	private int words = 1;
+	private int size;
+
+	LikeIndex(@NotNull Ticker ticker) {
+		this.ticker = ticker;
+	}
+
+	void add(@NotNull String address, @NotNull UniqueIdSet likes, long validUntil) {
+		this.lock.writeLock().lock();
+		try {
+			if (!this.slotsByAddress.containsKey(address)) {
+				this.addSlot(address, likes, validUntil);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	// Also brings back a server that was dropped when it expired.
+	void replace(@NotNull String address, @NotNull UniqueIdSet likes, long validUntil) {
+		this.lock.writeLock().lock();
+		try {
+			Integer slot = this.slotsByAddress.get(address);
+			if (slot == null) {
+				this.addSlot(address, likes, validUntil);
+				return;
+			}
+			UniqueIdSet oldLikes = this.likesBySlot[slot];
+			this.clearAll(oldLikes.difference(likes), slot);
+			this.setAll(likes.difference(oldLikes), slot);
+			this.likesBySlot[slot] = likes;
+			this.validUntil[slot] = validUntil;
+			if (validUntil - this.nextExpiry < 0L) {
+				this.nextExpiry = validUntil;
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	void remove(@NotNull String address) {
+		this.lock.writeLock().lock();
+		try {
+			Integer slot = this.slotsByAddress.get(address);
+			if (slot != null) {
+				this.removeSlot(slot);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@NotNull
+	List<String> get(long mostSignificantBits, long leastSignificantBits) {
+		long now = this.ticker.read();
+		this.lock.readLock().lock();
+		// Expired servers are dropped under the write lock, which is then downgraded for the lookup.
+		if (!this.usedSlots.isEmpty() && now - this.nextExpiry >= 0L) {
+			this.lock.readLock().unlock();
+			this.lock.writeLock().lock();
+			try {
+				this.removeExpired(now);
+				this.lock.readLock().lock();
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+		try {
+			int index = this.indexOf(mostSignificantBits, leastSignificantBits);
+			if (index < 0) {
+				return Collections.emptyList();
+			}
+			List<String> addresses = new ArrayList<>();
+			int offset = index * this.words;
+			for (int word = 0; word < this.words; word++) {
+				long bits = this.masks[offset + word];
+				while (bits != 0L) {
+					addresses.add(this.addresses[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+					bits &= bits - 1L;
+				}
+			}
+			return Collections.unmodifiableList(addresses);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private void addSlot(@NotNull String address, @NotNull UniqueIdSet likes, long validUntil) {
+		if (this.usedSlots.isEmpty() || validUntil - this.nextExpiry < 0L) {
+			this.nextExpiry = validUntil;
+		}
+		int slot = this.usedSlots.nextClearBit(0);
+		this.usedSlots.set(slot);
+		this.slotsByAddress.put(address, slot);
+		if (slot >= this.addresses.length) {
+			this.addresses = Arrays.copyOf(this.addresses, this.addresses.length << 1);
+			this.likesBySlot = Arrays.copyOf(this.likesBySlot, this.addresses.length);
+			this.validUntil = Arrays.copyOf(this.validUntil, this.addresses.length);
+		}
+		this.addresses[slot] = address;
+		this.likesBySlot[slot] = likes;
+		this.validUntil[slot] = validUntil;
+		if (slot >= this.words << 6) {
+			this.resize(this.masks.length / this.words, (slot >>> 6) + 1);
+		}
+		this.setAll(likes, slot);
+	}
+
+	private void removeSlot(int slot) {
+		this.slotsByAddress.remove(this.addresses[slot]);
+		this.clearAll(this.likesBySlot[slot], slot);
+		this.usedSlots.clear(slot);
+		this.addresses[slot] = null;
+		this.likesBySlot[slot] = null;
+	}
+
+	private void removeExpired(long now) {
+		boolean first = true;
+		for (int slot = this.usedSlots.nextSetBit(0); slot >= 0; slot = this.usedSlots.nextSetBit(slot + 1)) {
+			if (now - this.validUntil[slot] >= 0L) {
+				this.removeSlot(slot);
+			} else if (first || this.validUntil[slot] - this.nextExpiry < 0L) {
+				this.nextExpiry = this.validUntil[slot];
+				first = false;
+			}
+		}
+	}
+
+	private void setAll(@NotNull UniqueIdSet likes, int slot) {
+		if (this.size + likes.size() > (this.masks.length / this.words) * LOAD_FACTOR) {
+			int capacity = this.masks.length / this.words;
+			while (this.size + likes.size() > capacity * LOAD_FACTOR) {
+				capacity <<= 1;
+			}
+			this.resize(capacity, this.words);
+		}
+		int capacityMask = this.masks.length / this.words - 1;
+		for (int like = 0; like < likes.size(); like++) {
+			long mostSignificantBits = likes.getMostSignificantBits(like);
+			long leastSignificantBits = likes.getLeastSignificantBits(like);
+			int index = hash(mostSignificantBits, leastSignificantBits) & capacityMask;
+			while (this.isUsed(index) && (this.keys[index << 1] != mostSignificantBits || this.keys[(index << 1) + 1] != leastSignificantBits)) {
+				index = (index + 1) & capacityMask;
+			}
+			if (!this.isUsed(index)) {
+				this.keys[index << 1] = mostSignificantBits;
+				this.keys[(index << 1) + 1] = leastSignificantBits;
+				this.size++;
+			}
+			this.masks[index * this.words + (slot >>> 6)] |= 1L << slot;
+		}
+	}
+
+	private void clearAll(@NotNull UniqueIdSet likes, int slot) {
+		for (int like = 0; like < likes.size(); like++) {
+			int index = this.indexOf(likes.getMostSignificantBits(like), likes.getLeastSignificantBits(like));
+			if (index < 0) {
+				continue;
+			}
+			this.masks[index * this.words + (slot >>> 6)] &= ~(1L << slot);
+			if (!this.isUsed(index)) {
+				this.delete(index);
+			}
+		}
+	}
+
+	private int indexOf(long mostSignificantBits, long leastSignificantBits) {
+		int capacityMask = this.masks.length / this.words - 1;
+		int index = hash(mostSignificantBits, leastSignificantBits) & capacityMask;
+		while (this.isUsed(index)) {
+			if (this.keys[index << 1] == mostSignificantBits && this.keys[(index << 1) + 1] == leastSignificantBits) {
+				return index;
+			}
+			index = (index + 1) & capacityMask;
+		}
+		return -1;
+	}
+
+	// Backward shift deletion, which keeps every probe sequence intact without leaving tombstones behind.
+	private void delete(int index) {
+		int capacityMask = this.masks.length / this.words - 1;
+		int hole = index;
+		int next = (hole + 1) & capacityMask;
+		while (this.isUsed(next)) {
+			int home = hash(this.keys[next << 1], this.keys[(next << 1) + 1]) & capacityMask;
+			if (((next - home) & capacityMask) >= ((next - hole) & capacityMask)) {
+				this.keys[hole << 1] = this.keys[next << 1];
+				this.keys[(hole << 1) + 1] = this.keys[(next << 1) + 1];
+				System.arraycopy(this.masks, next * this.words, this.masks, hole * this.words, this.words);
+				hole = next;
+			}
+			next = (next + 1) & capacityMask;
+		}
+		Arrays.fill(this.masks, hole * this.words, (hole + 1) * this.words, 0L);
+		this.size--;
+	}
+
+	private boolean isUsed(int index) {
+		int offset = index * this.words;
+		for (int word = 0; word < this.words; word++) {
+			if (this.masks[offset + word] != 0L) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void resize(int capacity, int words) {
+		long[] oldKeys = this.keys;
+		long[] oldMasks = this.masks;
+		int oldWords = this.words;
+		int oldCapacity = oldMasks.length / oldWords;
+		this.keys = new long[capacity << 1];
+		this.masks = new long[capacity * words];
+		this.words = words;
+		int capacityMask = capacity - 1;
+		for (int oldIndex = 0; oldIndex < oldCapacity; oldIndex++) {
+			boolean used = false;
+			for (int word = 0; word < oldWords && !used; word++) {
+				used = oldMasks[oldIndex * oldWords + word] != 0L;
+			}
+			if (!used) {
+				continue;
+			}
+			int index = hash(oldKeys[oldIndex << 1], oldKeys[(oldIndex << 1) + 1]) & capacityMask;
+			while (this.isUsed(index)) {
+				index = (index + 1) & capacityMask;
+			}
+			this.keys[index << 1] = oldKeys[oldIndex << 1];
+			this.keys[(index << 1) + 1] = oldKeys[(oldIndex << 1) + 1];
+			System.arraycopy(oldMasks, oldIndex * oldWords, this.masks, index * words, oldWords);
+		}
+	}
+
+	private static int hash(long mostSignificantBits, long leastSignificantBits) {
+		long hash = (mostSignificantBits ^ leastSignificantBits) * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
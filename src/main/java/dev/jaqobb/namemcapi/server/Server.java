@@ -24,9 +24,9 @@
 
 package dev.jaqobb.namemcapi.server;
 
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
 import java.time.Instant;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
@@ -37,14 +37,28 @@ public class Server {
 	@NotNull
 	private String address;
 	@NotNull
-	private Collection<UUID> likes;
+	private UniqueIdSet likes;
 	@NotNull
 	private Instant cacheTime;
+	@Nullable
+	private String entityTag;
+	@Nullable
+	private String lastModified;
 
 	public Server(@NotNull String address, @NotNull Collection<UUID> likes) {
+		this(address, likes, Instant.now());
+	}
+
+	public Server(@NotNull String address, @NotNull Collection<UUID> likes, @NotNull Instant cacheTime) {
+		this(address, likes, cacheTime, null, null);
+	}
+
+	public Server(@NotNull String address, @NotNull Collection<UUID> likes, @NotNull Instant cacheTime, @Nullable String entityTag, @Nullable String lastModified) {
 		this.address = address.toLowerCase();
-		this.likes = likes;
-		this.cacheTime = Instant.now();
+		this.likes = UniqueIdSet.copyOf(likes);
+		this.cacheTime = cacheTime;
+		this.entityTag = entityTag;
+		this.lastModified = lastModified;
 	}
 
 	@NotNull
@@ -54,7 +68,12 @@ public class Server {
 
 	@NotNull
 	public Collection<UUID> getLikes() {
-		return Collections.unmodifiableCollection(this.likes);
+		return this.likes;
+	}
+
+	@NotNull
+	UniqueIdSet getLikeSet() {
+		return this.likes;
 	}
 
 	public boolean hasLiked(@NotNull UUID uniqueId) {
@@ -66,6 +85,26 @@ public class Server {
 		return this.cacheTime;
 	}
 
+	// Servers are shared by callers and the cache time takes part in equality, so a revalidated server is a new copy.
+	@NotNull
+	Server withCacheTime(@NotNull Instant cacheTime) {
+		return new Server(this.address, this.likes, cacheTime, this.entityTag, this.lastModified);
+	}
+
+	@Nullable
+	public String getEntityTag() {
+		return this.entityTag;
+	}
+
+	@Nullable
+	public String getLastModified() {
+		return this.lastModified;
+	}
+
+	public boolean hasValidators() {
+		return this.entityTag != null || this.lastModified != null;
+	}
+
 	@Override
 	public boolean equals(@Nullable Object object) {
 		if (this == object) {
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final class ServerCodec {
+
+	static final int MAGIC = 0x4E4D4353;
+	static final int VERSION = 2;
+
+	private static final int LIKE_SIZE = 16;
+
+	private ServerCodec() {
+		throw new UnsupportedOperationException("Cannot create instance of this class");
+	}
+
+	// Standalone form used by the second level cache: the version, then a single record.
+	@NotNull
+	static byte[] toBytes(@NotNull Server server) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(VERSION);
+		encode(server, output);
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	@NotNull
+	static Server fromBytes(@NotNull byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		try {
+			int version = buffer.getInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException("Unsupported version " + version);
+			}
+			return decode(buffer, version);
+		} catch (BufferUnderflowException exception) {
+			throw new IOException("Truncated server record", exception);
+		}
+	}
+
+	static void encode(@NotNull Server server, @NotNull DataOutput output) throws IOException {
+		byte[] address = server.getAddress().getBytes(StandardCharsets.UTF_8);
+		if (address.length > 0xFFFF) {
+			throw new IOException("Server address is too long to be encoded");
+		}
+		output.writeShort(address.length);
+		output.write(address);
+		output.writeLong(server.getCacheTime().getEpochSecond());
+		output.writeInt(server.getCacheTime().getNano());
+		writeValidator(output, server.getEntityTag());
+		writeValidator(output, server.getLastModified());
+		UniqueIdSet likes = server.getLikeSet();
+		output.writeInt(likes.size());
+		for (int index = 0; index < likes.size(); index++) {
+			output.writeLong(likes.getMostSignificantBits(index));
+			output.writeLong(likes.getLeastSignificantBits(index));
+		}
+	}
+
+	@NotNull
+	static Server decode(@NotNull ByteBuffer buffer, int version) throws IOException {
+		byte[] address = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(address);
+		Instant cacheTime = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+		String entityTag = null;
+		String lastModified = null;
+		// Version 1 snapshots were written before validators were kept.
+		if (version >= 2) {
+			entityTag = readValidator(buffer);
+			lastModified = readValidator(buffer);
+		}
+		int likeCount = buffer.getInt();
+		if (likeCount < 0 || likeCount > buffer.remaining() / LIKE_SIZE) {
+			throw new IOException("Malformed like count " + likeCount);
+		}
+		UniqueIdSet.Builder likes = UniqueIdSet.builder(likeCount);
+		for (int index = 0; index < likeCount; index++) {
+			likes.add(buffer.getLong(), buffer.getLong());
+		}
+		return new Server(new String(address, StandardCharsets.UTF_8), likes.build(), cacheTime, entityTag, lastModified);
+	}
+
+	private static void writeValidator(@NotNull DataOutput output, @Nullable String validator) throws IOException {
+		if (validator == null) {
+			output.writeShort(0xFFFF);
+			return;
+		}
+		byte[] bytes = validator.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length >= 0xFFFF) {
+			throw new IOException("Validator is too long to be encoded");
+		}
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+
+	@Nullable
+	private static String readValidator(@NotNull ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		if (length == 0xFFFF) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -24,46 +24,169 @@
 
 package dev.jaqobb.namemcapi.server;
 
-import dev.jaqobb.namemcapi.util.IOHelper;
+import dev.jaqobb.namemcapi.cache.BoundedCacheStore;
+import dev.jaqobb.namemcapi.cache.CacheListener;
+import dev.jaqobb.namemcapi.cache.CacheStore;
+import dev.jaqobb.namemcapi.cache.LookupResult;
+import dev.jaqobb.namemcapi.cache.RemovalCause;
+import dev.jaqobb.namemcapi.cache.SecondLevelCache;
+import dev.jaqobb.namemcapi.cache.SingleFlight;
+import dev.jaqobb.namemcapi.cache.SnapshotFile;
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import dev.jaqobb.namemcapi.http.HttpTransport;
+import dev.jaqobb.namemcapi.http.RateLimitedHttpTransport;
+import dev.jaqobb.namemcapi.http.Request;
+import dev.jaqobb.namemcapi.http.Response;
+import dev.jaqobb.namemcapi.metrics.RepositoryMetrics;
+import dev.jaqobb.namemcapi.util.BatchHelper;
+import dev.jaqobb.namemcapi.util.CompressedBitmap;
+import dev.jaqobb.namemcapi.util.ExecutorHelper;
+import dev.jaqobb.namemcapi.util.FutureHelper;
+import dev.jaqobb.namemcapi.util.JsonReader;
+import dev.jaqobb.namemcapi.util.PullPublisher;
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
-import org.json.JSONArray;
+import org.jetbrains.annotations.Nullable;
 
-public class ServerRepository {
+public class ServerRepository implements AutoCloseable {
 
-	private static final String SERVER_LIKES_URL = "https://api.namemc.com/server/%s/likes";
+	private static final String SERVER_LIKES_PATH = "/server/%s/likes";
 
-	private static final AtomicInteger EXECUTOR_THREAD_COUNTER = new AtomicInteger();
-	private static final Executor EXECUTOR = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "NameMCAPI Server Query #" + EXECUTOR_THREAD_COUNTER.getAndIncrement()));
+	private static final long DEFAULT_MAXIMUM_WEIGHT = 10_000_000L;
+
+	private static final int DEFAULT_BATCH_PARALLELISM = 16;
+
+	private static final long DEFAULT_NEGATIVE_CACHE_SIZE = 10_000L;
+
+	private static final String SECOND_LEVEL_NAMESPACE = "servers";
+
+	private static final int MINIMUM_LIKE_DICTIONARY_SIZE = 65_536;
+
+	private static final String EXECUTOR_NAME = "NameMCAPI Server Query";
 
 	@NotNull
 	private Duration cacheDuration;
 	@NotNull
-	private Map<String, Server> servers = Collections.synchronizedMap(new HashMap<>(1, 1.0F));
+	private CacheStore<String, Server> servers;
+	@NotNull
+	private CacheStore<String, LookupResult<Server>> failures;
+	@NotNull
+	private Duration notFoundDuration = Duration.ofMinutes(1L);
+	@NotNull
+	private Duration transientFailureDuration = Duration.ofSeconds(5L);
+	@NotNull
+	private SingleFlight<String, Server> queries = new SingleFlight<>();
+	@NotNull
+	private Predicate<Server> validityCheck = this::isServerValid;
+	@NotNull
+	private RepositoryMetrics metrics;
+	@NotNull
+	private List<LikeChangeListener> likeChangeListeners = new CopyOnWriteArrayList<>();
+	@Nullable
+	private LikeIndex likeIndex;
+	@Nullable
+	private volatile LikeBitmapIndex likeBitmapIndex;
+	@NotNull
+	private HttpTransport transport;
+	@NotNull
+	private Executor executor;
+	private boolean executorOwned;
+	@NotNull
+	private Ticker ticker;
+	@NotNull
+	private Duration staleWhileRevalidate = Duration.ZERO;
+	private double refreshAheadFactor;
+	@Nullable
+	private SecondLevelCache secondLevelCache;
+	private volatile boolean closed;
 
 	public ServerRepository() {
 		this(10, ChronoUnit.MINUTES);
 	}
 
 	public ServerRepository(long duration, @NotNull TemporalUnit unit) {
+		this(duration, unit, RateLimitedHttpTransport.getDefault());
+	}
+
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, server -> 1 + server.getLikes().size()), transport);
+	}
+
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport, @NotNull Executor executor) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, server -> 1 + server.getLikes().size()), transport, executor);
+	}
+
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<String, Server> store) {
+		this(duration, unit, store, RateLimitedHttpTransport.getDefault());
+	}
+
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<String, Server> store, @NotNull HttpTransport transport) {
+		this(duration, unit, store, transport, ExecutorHelper.newQueryExecutor(EXECUTOR_NAME), true, Ticker.system());
+	}
+
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<String, Server> store, @NotNull HttpTransport transport, @NotNull Executor executor) {
+		this(duration, unit, store, transport, executor, false, Ticker.system());
+	}
+
+	// Every freshness check follows the ticker: queries, getIfPresent, isServerValid, refreshing ahead, dropping entries
+	// once they are no longer kept and forgetting failures. Cache times only matter for servers from snapshots and the
+	// second level cache, whose age is measured against the wall clock once, as they are loaded.
+	public ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull HttpTransport transport, @NotNull Executor executor, @NotNull Ticker ticker) {
+		this(duration, unit, new BoundedCacheStore<>(DEFAULT_MAXIMUM_WEIGHT, server -> 1 + server.getLikes().size(), ticker), transport, executor, false, ticker);
+	}
+
+	private ServerRepository(long duration, @NotNull TemporalUnit unit, @NotNull CacheStore<String, Server> store, @NotNull HttpTransport transport, @NotNull Executor executor, boolean executorOwned, @NotNull Ticker ticker) {
 		if (duration < 1) {
 			throw new IllegalArgumentException("duration cannot be smaller than 1");
 		}
 		this.cacheDuration = Duration.of(duration, unit);
+		this.servers = store;
+		this.failures = new BoundedCacheStore<>(DEFAULT_NEGATIVE_CACHE_SIZE, value -> 1, ticker);
+		this.transport = transport;
+		this.executor = executor;
+		this.executorOwned = executorOwned;
+		this.ticker = ticker;
+		this.metrics = new RepositoryMetrics("ServerRepository", store::size, this.queries::getInFlightCount, this.queries::getCoalescedCount);
+		store.addListener(this.metrics.asCacheListener());
+		LikeIndex likeIndex = new LikeIndex(ticker);
+		if (store.addListener(new LikeIndexUpdater(likeIndex))) {
+			for (Server server : store.values()) {
+				likeIndex.add(server.getAddress(), server.getLikeSet(), this.getValidUntil(server.getAddress().toLowerCase(), server));
+			}
+			this.likeIndex = likeIndex;
+		}
+		if (store.addListener(new LikeBitmapInvalidator())) {
+			this.likeBitmapIndex = new LikeBitmapIndex();
+		}
 	}
 
 	@NotNull
@@ -71,6 +194,89 @@ public class ServerRepository {
 		return this.cacheDuration;
 	}
 
+	@NotNull
+	public Duration getStaleWhileRevalidate() {
+		return this.staleWhileRevalidate;
+	}
+
+	public void setStaleWhileRevalidate(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.staleWhileRevalidate = Duration.of(duration, unit);
+	}
+
+	public double getRefreshAheadFactor() {
+		return this.refreshAheadFactor;
+	}
+
+	public void setRefreshAheadFactor(double refreshAheadFactor) {
+		if (refreshAheadFactor < 0.0D || refreshAheadFactor >= 1.0D) {
+			throw new IllegalArgumentException("refreshAheadFactor has to be between 0 (disabled) and 1 (exclusive)");
+		}
+		this.refreshAheadFactor = refreshAheadFactor;
+	}
+
+	@NotNull
+	public Duration getNotFoundDuration() {
+		return this.notFoundDuration;
+	}
+
+	// How long keys NameMC does not know are remembered. 0 turns this off.
+	public void setNotFoundDuration(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.notFoundDuration = Duration.of(duration, unit);
+	}
+
+	@NotNull
+	public Duration getTransientFailureDuration() {
+		return this.transientFailureDuration;
+	}
+
+	// How long network errors, rate limiting and server errors are remembered. 0 turns this off.
+	public void setTransientFailureDuration(long duration, @NotNull TemporalUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("duration cannot be smaller than 0");
+		}
+		this.transientFailureDuration = Duration.of(duration, unit);
+	}
+
+	public int getNegativeCacheSize() {
+		return this.failures.size();
+	}
+
+	// Replaces the store that remembers failed lookups, for example to change its size bound.
+	public void setNegativeCacheStore(@NotNull CacheStore<String, LookupResult<Server>> store) {
+		CacheStore<String, LookupResult<Server>> previousStore = this.failures;
+		this.failures = store;
+		previousStore.close();
+	}
+
+	public void clearNegativeCache() {
+		this.failures.clear();
+	}
+
+	@Nullable
+	public SecondLevelCache getSecondLevelCache() {
+		return this.secondLevelCache;
+	}
+
+	public void setSecondLevelCache(@Nullable SecondLevelCache secondLevelCache) {
+		this.secondLevelCache = secondLevelCache;
+	}
+
+	@NotNull
+	public HttpTransport getTransport() {
+		return this.transport;
+	}
+
+	@NotNull
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
 	@NotNull
 	public Collection<Server> getServers() {
 		return Collections.unmodifiableCollection(this.servers.values());
@@ -91,43 +297,673 @@ public class ServerRepository {
 	}
 
 	public void addServer(@NotNull Server server) {
-		this.servers.putIfAbsent(server.getAddress().toLowerCase(), server);
+		this.servers.putIfAbsent(server.getAddress().toLowerCase(), server, this.getTimeToLive(server), this.getValidFor(server));
+		this.forgetFailure(server.getAddress().toLowerCase());
 	}
 
 	public void removeServer(@NotNull Server server) {
 		this.servers.remove(server.getAddress().toLowerCase());
 	}
 
+	// Returns the cached server while it is valid, without asking NameMC, waiting or scheduling a refresh. The map is read
+	// once and expiry is checked against a nanosecond deadline kept by the store, so looking up a lowercase address
+	// allocates nothing. Misses are not counted, as the query that usually follows counts them.
+	@Nullable
+	public Server getIfPresent(@NotNull String address) {
+		Server server = this.servers.getIfValid(address.toLowerCase(), this.validityCheck);
+		if (server != null) {
+			this.metrics.recordHit();
+		}
+		return server;
+	}
+
 	public void cacheServer(@NotNull String address, boolean recache, @NotNull BiConsumer<Server, Throwable> callback) {
-		if (this.servers.containsKey(address.toLowerCase())) {
-			Server server = this.servers.get(address.toLowerCase());
-			if (this.isServerValid(server) && !recache) {
-				callback.accept(server, null);
-				return;
+		this.queryServer(address.toLowerCase(), recache, false).whenComplete(callback);
+	}
+
+	public void cacheServer(@NotNull String address, boolean recache, @NotNull Duration timeout, @NotNull BiConsumer<Server, Throwable> callback) {
+		this.cacheServer(address, recache, timeout).whenComplete(callback);
+	}
+
+	// Cancelling the returned future stops waiting for the server. The request itself is only cancelled once no other caller waits for it.
+	@NotNull
+	public CompletableFuture<Server> cacheServer(@NotNull String address, boolean recache) {
+		return this.queryServer(address.toLowerCase(), recache, true);
+	}
+
+	// The returned future fails with a TimeoutException once the timeout passes, which counts as cancelling it.
+	@NotNull
+	public CompletableFuture<Server> cacheServer(@NotNull String address, boolean recache, @NotNull Duration timeout) {
+		if (timeout.isNegative() || timeout.isZero()) {
+			throw new IllegalArgumentException("timeout has to be positive");
+		}
+		return this.queryServer(address.toLowerCase(), recache, true).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	// Never fails. Instead, the result tells a server NameMC does not know apart from a lookup that failed.
+	@NotNull
+	public CompletableFuture<LookupResult<Server>> lookupServer(@NotNull String address, boolean recache) {
+		return toLookupResult(this.cacheServer(address, recache));
+	}
+
+	@NotNull
+	public CompletableFuture<LookupResult<Server>> lookupServer(@NotNull String address, boolean recache, @NotNull Duration timeout) {
+		return toLookupResult(this.cacheServer(address, recache, timeout));
+	}
+
+	@NotNull
+	private static CompletableFuture<LookupResult<Server>> toLookupResult(@NotNull CompletableFuture<Server> future) {
+		CompletableFuture<LookupResult<Server>> result = future.handle((server, throwable) -> throwable == null ? LookupResult.found(server) : LookupResult.failed(throwable));
+		FutureHelper.propagateCancellation(result, future);
+		return result;
+	}
+
+	// Emits the likes while NameMC's response is still being read, one per unit of demand, so even a huge list is handled
+	// in constant memory. A valid cached server is streamed from memory instead. With cache set, the likes are collected
+	// as well and the server is cached once the stream completes.
+	@NotNull
+	public Flow.Publisher<UUID> streamLikes(@NotNull String address, boolean cache) {
+		String key = address.toLowerCase();
+		return new PullPublisher<>(this.executor, () -> {
+			Server cachedServer = this.servers.getIfValid(key, this.validityCheck);
+			if (cachedServer != null) {
+				this.metrics.recordHit();
+				return CompletableFuture.completedFuture(PullPublisher.Source.of(cachedServer.getLikes().iterator()));
+			}
+			if (this.closed) {
+				return CompletableFuture.failedFuture(new IllegalStateException("ServerRepository is closed"));
+			}
+			this.metrics.recordMiss();
+			Request request = new Request(String.format(SERVER_LIKES_PATH, key));
+			CompletableFuture<Response> responseFuture = this.transport.send(request);
+			CompletableFuture<PullPublisher.Source<UUID>> future = responseFuture.thenApplyAsync(response -> {
+				try {
+					return new LikeSource(key, request, response, cache);
+				} catch (IOException exception) {
+					closeQuietly(response);
+					throw new CompletionException(exception);
+				}
+			}, this.executor);
+			future.whenComplete((source, throwable) -> {
+				if (throwable != null && !FutureHelper.isCancellation(throwable)) {
+					this.metrics.recordFailure(FutureHelper.unwrap(throwable));
+				}
+			});
+			return future;
+		});
+	}
+
+	@NotNull
+	public Map<String, CompletableFuture<Server>> cacheServers(@NotNull Collection<String> addresses, boolean recache) {
+		return this.cacheServers(addresses, recache, DEFAULT_BATCH_PARALLELISM);
+	}
+
+	@NotNull
+	public Map<String, CompletableFuture<Server>> cacheServers(@NotNull Collection<String> addresses, boolean recache, int parallelism) {
+		return BatchHelper.executeBounded(addresses, parallelism, address -> recache ? null : this.getUsableServer(address.toLowerCase()), address -> this.queryServer(address.toLowerCase(), recache, false));
+	}
+
+	@NotNull
+	private CompletableFuture<Server> queryServer(@NotNull String address, boolean recache, boolean cancellable) {
+		if (!recache) {
+			Server usableServer = this.getUsableServer(address);
+			if (usableServer != null) {
+				return CompletableFuture.completedFuture(usableServer);
+			}
+			LookupResult<Server> failure = this.failures.get(address);
+			if (failure != null) {
+				this.metrics.recordNegativeHit();
+				return CompletableFuture.failedFuture(failure.getFailure());
 			}
 		}
-		EXECUTOR.execute(() -> {
-			String url = String.format(SERVER_LIKES_URL, address.toLowerCase());
-			try {
-				JSONArray array = new JSONArray(IOHelper.getWebsiteContent(url));
-				Collection<UUID> likes = IntStream.range(0, array.length())
-					.boxed()
-					.map(index -> UUID.fromString(array.getString(index)))
-					.collect(Collectors.toUnmodifiableList());
-				Server server = new Server(address.toLowerCase(), likes);
-				this.servers.put(address.toLowerCase(), server);
-				callback.accept(server, null);
-			} catch (Exception exception) {
-				callback.accept(null, exception);
+		this.metrics.recordMiss();
+		return this.fetchServer(address, recache, cancellable);
+	}
+
+	// Returns the cached entry if it is valid or stale within the grace period, scheduling a background refresh when needed.
+	@Nullable
+	private Server getUsableServer(@NotNull String address) {
+		if (this.refreshAheadFactor == 0.0D) {
+			Server validServer = this.servers.getIfValid(address, this.validityCheck);
+			if (validServer != null) {
+				this.metrics.recordHit();
+				return validServer;
+			}
+		}
+		Server cachedServer = this.servers.get(address);
+		if (cachedServer == null) {
+			return null;
+		}
+		long validFor = this.getRemainingValidity(address, cachedServer);
+		if (validFor > 0L) {
+			long age = this.cacheDuration.toNanos() - validFor;
+			if (this.refreshAheadFactor > 0.0D && age >= this.cacheDuration.toNanos() * this.refreshAheadFactor) {
+				this.refreshServer(address);
+			}
+			this.metrics.recordHit();
+			return cachedServer;
+		}
+		if (-validFor < this.staleWhileRevalidate.toNanos()) {
+			this.refreshServer(address);
+			this.metrics.recordHit();
+			return cachedServer;
+		}
+		return null;
+	}
+
+	private void refreshServer(@NotNull String address) {
+		if (!this.closed && !this.queries.isInFlight(address)) {
+			this.fetchServer(address, false, false);
+		}
+	}
+
+	@NotNull
+	private CompletableFuture<Server> fetchServer(@NotNull String address, boolean recache, boolean cancellable) {
+		if (this.closed) {
+			return CompletableFuture.failedFuture(new IllegalStateException("ServerRepository is closed"));
+		}
+		Supplier<CompletableFuture<Server>> loader = () -> {
+			SecondLevelCache secondLevelCache = this.secondLevelCache;
+			if (recache || secondLevelCache == null) {
+				return this.requestServer(address);
+			}
+			return FutureHelper.thenComposeCancellable(this.loadSharedServer(secondLevelCache, address), sharedServer -> sharedServer != null ? CompletableFuture.completedFuture(sharedServer) : this.requestServer(address));
+		};
+		return cancellable ? this.queries.executeCancellable(address, loader) : this.queries.execute(address, loader);
+	}
+
+	// Any problem with the second level cache counts as a miss, since NameMC can still answer.
+	@NotNull
+	private CompletableFuture<Server> loadSharedServer(@NotNull SecondLevelCache secondLevelCache, @NotNull String address) {
+		CompletableFuture<byte[]> future;
+		try {
+			future = secondLevelCache.get(SECOND_LEVEL_NAMESPACE, address);
+		} catch (RuntimeException exception) {
+			future = CompletableFuture.failedFuture(exception);
+		}
+		return future.handleAsync((bytes, throwable) -> {
+			Server sharedServer = null;
+			if (bytes != null) {
+				try {
+					sharedServer = ServerCodec.fromBytes(bytes);
+				} catch (IOException | RuntimeException exception) {
+					sharedServer = null;
+				}
+			}
+			Server cachedServer = this.servers.get(address);
+			// An entry that is not newer than the local one would only roll it back.
+			if (sharedServer == null || !sharedServer.getAddress().equals(address) || !this.isServerValid(sharedServer) || (cachedServer != null && !sharedServer.getCacheTime().isAfter(cachedServer.getCacheTime()))) {
+				this.metrics.recordSecondLevelMiss();
+				return null;
+			}
+			this.metrics.recordSecondLevelHit();
+			this.forgetFailure(address);
+			Server previousServer = this.servers.put(address, sharedServer, this.getTimeToLive(sharedServer), this.getValidFor(sharedServer));
+			this.notifyLikeChange(previousServer, sharedServer);
+			return sharedServer;
+		}, this.executor);
+	}
+
+	@NotNull
+	private CompletableFuture<Server> requestServer(@NotNull String address) {
+		Server cachedServer = this.servers.get(address);
+		Request request = this.createRequest(address, cachedServer);
+		long startTime = System.nanoTime();
+		CompletableFuture<Response> responseFuture = this.transport.send(request);
+		CompletableFuture<Server> future = responseFuture.thenApplyAsync(response -> {
+			long networkTime = System.nanoTime() - startTime;
+			try (response) {
+				if (cachedServer != null && response.getStatusCode() == 304) {
+					this.metrics.recordNotModified(networkTime);
+					Server revalidatedServer = cachedServer.withCacheTime(Instant.now());
+					this.servers.put(address, revalidatedServer, this.getRetention(revalidatedServer), this.cacheDuration);
+					this.storeSharedServer(revalidatedServer);
+					return revalidatedServer;
+				}
+				long parseStartTime = System.nanoTime();
+				Server server = this.readServer(address, request, response);
+				this.metrics.recordFetch(networkTime, System.nanoTime() - parseStartTime);
+				Server previousServer = this.servers.put(address, server, this.getRetention(server), this.cacheDuration);
+				this.notifyLikeChange(previousServer, server);
+				this.storeSharedServer(server);
+				return server;
+			} catch (IOException exception) {
+				throw new CompletionException(exception);
+			}
+		}, this.executor).whenComplete((fetchedServer, throwable) -> {
+			if (throwable == null) {
+				this.forgetFailure(address);
+			} else if (!FutureHelper.isCancellation(throwable)) {
+				this.metrics.recordFailure(FutureHelper.unwrap(throwable));
+				this.rememberFailure(address, throwable);
 			}
 		});
+		FutureHelper.propagateCancellation(future, responseFuture);
+		return future;
+	}
+
+	// Failures NameMC caused are remembered, while local ones such as a full rate limiter queue are not about the key.
+	private void rememberFailure(@NotNull String address, @NotNull Throwable throwable) {
+		LookupResult<Server> failure = LookupResult.failed(throwable);
+		Duration timeToLive;
+		if (failure.isNotFound()) {
+			timeToLive = this.notFoundDuration;
+		} else if (failure.getFailure() instanceof IOException) {
+			timeToLive = this.transientFailureDuration;
+		} else {
+			return;
+		}
+		if (!timeToLive.isZero()) {
+			this.failures.put(address, failure, timeToLive);
+		}
+	}
+
+	private void forgetFailure(@NotNull String address) {
+		if (this.failures.get(address) != null) {
+			this.failures.remove(address);
+		}
+	}
+
+	// Sharing is best effort, the entry is already cached locally.
+	private void storeSharedServer(@NotNull Server server) {
+		SecondLevelCache secondLevelCache = this.secondLevelCache;
+		if (secondLevelCache == null) {
+			return;
+		}
+		try {
+			secondLevelCache.put(SECOND_LEVEL_NAMESPACE, server.getAddress(), ServerCodec.toBytes(server), this.getTimeToLive(server));
+		} catch (IOException | RuntimeException exception) {
+			// Ignored.
+		}
+	}
+
+	@NotNull
+	private Request createRequest(@NotNull String address, @Nullable Server cachedServer) {
+		String path = String.format(SERVER_LIKES_PATH, address);
+		if (cachedServer == null || !cachedServer.hasValidators()) {
+			return new Request(path);
+		}
+		Map<String, String> headers = new HashMap<>(2);
+		if (cachedServer.getEntityTag() != null) {
+			headers.put("If-None-Match", cachedServer.getEntityTag());
+		}
+		if (cachedServer.getLastModified() != null) {
+			headers.put("If-Modified-Since", cachedServer.getLastModified());
+		}
+		return new Request(path, headers);
+	}
+
+	@NotNull
+	private Server readServer(@NotNull String address, @NotNull Request request, @NotNull Response response) throws IOException {
+		if (!response.isSuccessful()) {
+			throw new HttpStatusException(response.getStatusCode(), request.getPath());
+		}
+		UniqueIdSet.Builder likes = UniqueIdSet.builder();
+		try (JsonReader reader = new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				reader.nextUniqueId(likes);
+			}
+			reader.endArray();
+		}
+		return new Server(address, likes.build(), Instant.now(), response.getHeader("ETag"), response.getHeader("Last-Modified"));
+	}
+
+	public void addLikeChangeListener(@NotNull LikeChangeListener listener) {
+		this.likeChangeListeners.add(listener);
+	}
+
+	public void removeLikeChangeListener(@NotNull LikeChangeListener listener) {
+		this.likeChangeListeners.remove(listener);
+	}
+
+	// Only called when a fetched entry replaces an older one, so the first fetch and 304 responses stay silent.
+	private void notifyLikeChange(@Nullable Server previousServer, @NotNull Server server) {
+		if (previousServer == null || previousServer == server || this.likeChangeListeners.isEmpty()) {
+			return;
+		}
+		LikeChange change = new LikeChange(previousServer, server);
+		if (change.isEmpty()) {
+			return;
+		}
+		for (LikeChangeListener listener : this.likeChangeListeners) {
+			try {
+				listener.onLikesChanged(change);
+			} catch (RuntimeException exception) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+			}
+		}
+	}
+
+	public long getCoalescedQueryCount() {
+		return this.queries.getCoalescedCount();
+	}
+
+	public long getHitCount() {
+		return this.metrics.getHitCount();
+	}
+
+	public long getMissCount() {
+		return this.metrics.getMissCount();
+	}
+
+	public long getNotModifiedCount() {
+		return this.metrics.getNotModifiedCount();
+	}
+
+	@NotNull
+	public RepositoryMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	// Only valid servers count. Answered by the like index in constant time, unless the cache store cannot report its changes and every cached server has to be checked.
+	@NotNull
+	public Collection<String> getLikedServerAddresses(@NotNull UUID uniqueId) {
+		if (this.likeIndex != null) {
+			return this.likeIndex.get(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+		}
+		return this.servers.values().stream()
+			.filter(server -> server.hasLiked(uniqueId) && this.isServerValid(server))
+			.map(Server::getAddress)
+			.collect(Collectors.toUnmodifiableList());
+	}
+
+	// Unique ids that liked every one of the given cached servers. The servers are intersected from the one with the
+	// fewest likes up, stopping as soon as nothing is left.
+	@NotNull
+	public UniqueIdSet getCommonLikes(@NotNull Collection<String> addresses) {
+		LikeBitmapIndex index = this.getLikeBitmapIndex();
+		return index.decode(this.intersectLikes(index, addresses));
+	}
+
+	public int getCommonLikeCount(@NotNull Collection<String> addresses) {
+		LikeBitmapIndex index = this.getLikeBitmapIndex();
+		List<CompressedBitmap> bitmaps = this.getLikeBitmaps(index, addresses);
+		if (bitmaps.size() == 2) {
+			return bitmaps.get(0).andCardinality(bitmaps.get(1));
+		}
+		return this.intersectLikes(index, addresses).getCardinality();
+	}
+
+	// Unique ids that liked at least one of the given cached servers.
+	@NotNull
+	public UniqueIdSet getAllLikes(@NotNull Collection<String> addresses) {
+		LikeBitmapIndex index = this.getLikeBitmapIndex();
+		return index.decode(this.uniteLikes(index, addresses));
+	}
+
+	public int getAllLikeCount(@NotNull Collection<String> addresses) {
+		return this.uniteLikes(this.getLikeBitmapIndex(), addresses).getCardinality();
+	}
+
+	// Unique ids that liked the given cached server but none of the other ones.
+	@NotNull
+	public UniqueIdSet getExclusiveLikes(@NotNull String address, @NotNull Collection<String> otherAddresses) {
+		LikeBitmapIndex index = this.getLikeBitmapIndex();
+		return index.decode(this.subtractLikes(index, address, otherAddresses));
+	}
+
+	public int getExclusiveLikeCount(@NotNull String address, @NotNull Collection<String> otherAddresses) {
+		return this.subtractLikes(this.getLikeBitmapIndex(), address, otherAddresses).getCardinality();
+	}
+
+	@NotNull
+	private CompressedBitmap intersectLikes(@NotNull LikeBitmapIndex index, @NotNull Collection<String> addresses) {
+		List<CompressedBitmap> bitmaps = this.getLikeBitmaps(index, addresses);
+		if (bitmaps.isEmpty()) {
+			return CompressedBitmap.empty();
+		}
+		bitmaps.sort(Comparator.comparingInt(CompressedBitmap::getCardinality));
+		CompressedBitmap result = bitmaps.get(0);
+		for (int bitmap = 1; bitmap < bitmaps.size() && !result.isEmpty(); bitmap++) {
+			result = result.and(bitmaps.get(bitmap));
+		}
+		return result;
+	}
+
+	@NotNull
+	private CompressedBitmap uniteLikes(@NotNull LikeBitmapIndex index, @NotNull Collection<String> addresses) {
+		CompressedBitmap result = CompressedBitmap.empty();
+		for (CompressedBitmap bitmap : this.getLikeBitmaps(index, addresses)) {
+			result = result.or(bitmap);
+		}
+		return result;
+	}
+
+	@NotNull
+	private CompressedBitmap subtractLikes(@NotNull LikeBitmapIndex index, @NotNull String address, @NotNull Collection<String> otherAddresses) {
+		CompressedBitmap result = this.getLikeBitmap(index, address);
+		for (String otherAddress : otherAddresses) {
+			if (result.isEmpty()) {
+				break;
+			}
+			result = result.andNot(this.getLikeBitmap(index, otherAddress));
+		}
+		return result;
+	}
+
+	@NotNull
+	private List<CompressedBitmap> getLikeBitmaps(@NotNull LikeBitmapIndex index, @NotNull Collection<String> addresses) {
+		List<CompressedBitmap> bitmaps = new ArrayList<>(addresses.size());
+		for (String address : addresses) {
+			bitmaps.add(this.getLikeBitmap(index, address));
+		}
+		return bitmaps;
+	}
+
+	@NotNull
+	private CompressedBitmap getLikeBitmap(@NotNull LikeBitmapIndex index, @NotNull String address) {
+		String key = address.toLowerCase();
+		Server server = this.servers.get(key);
+		if (server == null) {
+			throw new IllegalArgumentException("Server " + address + " is not cached");
+		}
+		return index.get(key, server);
+	}
+
+	// Every query works on one index, so all of its ids come from the same dictionary. Without change notifications from
+	// the store nothing can be kept between queries, and each query builds its own index.
+	@NotNull
+	private LikeBitmapIndex getLikeBitmapIndex() {
+		LikeBitmapIndex index = this.likeBitmapIndex;
+		if (index == null) {
+			return new LikeBitmapIndex();
+		}
+		if (this.likeIndex != null && index.getDictionarySize() > Math.max(MINIMUM_LIKE_DICTIONARY_SIZE, this.likeIndex.size() << 1)) {
+			index = new LikeBitmapIndex();
+			this.likeBitmapIndex = index;
+		}
+		return index;
 	}
 
 	public boolean isServerValid(@NotNull Server server) {
-		return Duration.between(server.getCacheTime(), Instant.now()).compareTo(this.cacheDuration) < 0;
+		return this.getRemainingValidity(server.getAddress().toLowerCase(), server) > 0L;
+	}
+
+	// Nanoseconds the server stays valid for, negative once it expired. Cached servers are checked against the deadline the
+	// store keeps, so only servers the store holds no deadline for, such as shared ones, are measured by their cache time.
+	private long getRemainingValidity(@NotNull String address, @NotNull Server server) {
+		long validFor = this.servers.getRemainingValidity(address, server);
+		return validFor != CacheStore.UNKNOWN_VALIDITY ? validFor : this.getValidFor(server).toNanos();
+	}
+
+	private long getValidUntil(@NotNull String address, @NotNull Server server) {
+		return this.ticker.read() + this.getRemainingValidity(address, server);
+	}
+
+	@NotNull
+	private Duration getValidFor(@NotNull Server server) {
+		return this.cacheDuration.minus(Duration.between(server.getCacheTime(), Instant.now()));
+	}
+
+	// Entries carrying validators are kept for one more cache duration so that they can still be revalidated once they expire.
+	@NotNull
+	private Duration getRetention(@NotNull Server server) {
+		Duration retention = this.cacheDuration.plus(this.staleWhileRevalidate);
+		if (server.hasValidators()) {
+			retention = retention.plus(this.cacheDuration);
+		}
+		return retention;
+	}
+
+	@NotNull
+	private Duration getTimeToLive(@NotNull Server server) {
+		return this.getRetention(server).minus(Duration.between(server.getCacheTime(), Instant.now()));
+	}
+
+	public int saveSnapshot(@NotNull Path path) throws IOException {
+		return SnapshotFile.write(path, ServerCodec.MAGIC, ServerCodec.VERSION, this.servers.values(), ServerCodec::encode);
+	}
+
+	public int loadSnapshot(@NotNull Path path) throws IOException {
+		AtomicInteger restored = new AtomicInteger();
+		SnapshotFile.read(path, ServerCodec.MAGIC, ServerCodec.VERSION, ServerCodec::decode, server -> {
+			Duration timeToLive = this.getTimeToLive(server);
+			if (!timeToLive.isNegative() && !timeToLive.isZero() && this.servers.putIfAbsent(server.getAddress(), server, timeToLive, this.getValidFor(server)) == null) {
+				restored.incrementAndGet();
+			}
+		});
+		return restored.get();
 	}
 
 	public void clearServers() {
 		this.servers.clear();
+		this.failures.clear();
+		if (this.likeBitmapIndex != null) {
+			this.likeBitmapIndex = new LikeBitmapIndex();
+		}
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		this.queries.awaitInFlight();
+		if (this.executorOwned && this.executor instanceof ExecutorService) {
+			ExecutorHelper.shutdownAndAwait((ExecutorService) this.executor);
+		}
+		this.servers.close();
+		this.failures.close();
+		this.metrics.unregisterMBean();
+	}
+
+	private final class LikeIndexUpdater implements CacheListener<String, Server> {
+
+		@NotNull
+		private final LikeIndex likeIndex;
+
+		private LikeIndexUpdater(@NotNull LikeIndex likeIndex) {
+			this.likeIndex = likeIndex;
+		}
+
+		@Override
+		public void onPut(@NotNull String address, @NotNull Server server, @Nullable Server oldServer) {
+			if (oldServer == null) {
+				this.likeIndex.add(address, server.getLikeSet(), ServerRepository.this.getValidUntil(address, server));
+			} else if (oldServer != server) {
+				this.likeIndex.replace(address, server.getLikeSet(), ServerRepository.this.getValidUntil(address, server));
+			}
+		}
+
+		@Override
+		public void onRemoval(@NotNull String address, @NotNull Server server, @NotNull RemovalCause cause) {
+			this.likeIndex.remove(address);
+		}
+	}
+
+	private final class LikeBitmapInvalidator implements CacheListener<String, Server> {
+
+		@Override
+		public void onPut(@NotNull String address, @NotNull Server server, @Nullable Server oldServer) {
+			if (oldServer != null && oldServer != server) {
+				this.invalidate(address);
+			}
+		}
+
+		@Override
+		public void onRemoval(@NotNull String address, @NotNull Server server, @NotNull RemovalCause cause) {
+			this.invalidate(address);
+		}
+
+		private void invalidate(@NotNull String address) {
+			LikeBitmapIndex index = ServerRepository.this.likeBitmapIndex;
+			if (index != null) {
+				index.invalidate(address);
+			}
+		}
+	}
+
+	private static void closeQuietly(@NotNull Response response) {
+		try {
+			response.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private final class LikeSource implements PullPublisher.Source<UUID> {
+
+		@NotNull
+		private final String address;
+		@NotNull
+		private final Response response;
+		@NotNull
+		private final JsonReader reader;
+		@Nullable
+		private final UniqueIdSet.Builder likes;
+		@Nullable
+		private final String entityTag;
+		@Nullable
+		private final String lastModified;
+		private boolean ended;
+
+		private LikeSource(@NotNull String address, @NotNull Request request, @NotNull Response response, boolean cache) throws IOException {
+			if (!response.isSuccessful()) {
+				throw new HttpStatusException(response.getStatusCode(), request.getPath());
+			}
+			this.address = address;
+			this.response = response;
+			this.reader = new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+			this.reader.beginArray();
+			this.likes = cache ? UniqueIdSet.builder() : null;
+			this.entityTag = response.getHeader("ETag");
+			this.lastModified = response.getHeader("Last-Modified");
+		}
+
+		@Override
+		public boolean hasNext() throws IOException {
+			if (this.ended) {
+				return false;
+			}
+			if (this.reader.hasNext()) {
+				return true;
+			}
+			this.reader.endArray();
+			this.ended = true;
+			if (this.likes != null) {
+				Server server = new Server(this.address, this.likes.build(), Instant.now(), this.entityTag, this.lastModified);
+				Server previousServer = ServerRepository.this.servers.put(this.address, server, ServerRepository.this.getRetention(server), ServerRepository.this.cacheDuration);
+				ServerRepository.this.notifyLikeChange(previousServer, server);
+				ServerRepository.this.forgetFailure(this.address);
+				ServerRepository.this.storeSharedServer(server);
+			}
+			return false;
+		}
+
+		@NotNull
+		@Override
+		public UUID next() throws IOException {
+			UUID uniqueId = this.reader.nextUniqueId();
+			if (this.likes != null) {
+				this.likes.add(uniqueId);
+			}
+			return uniqueId;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try (this.response) {
+				this.reader.close();
+			}
+		}
 	}
 }
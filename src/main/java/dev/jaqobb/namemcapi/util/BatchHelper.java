@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+
+public final class BatchHelper {
+
+	private BatchHelper() {
+		throw new UnsupportedOperationException("Cannot create instance of this class");
+	}
+
+	@NotNull
+	public static <K, V> Map<K, CompletableFuture<V>> executeBounded(@NotNull Collection<K> keys, int parallelism, @NotNull Function<K, V> lookup, @NotNull Function<K, CompletableFuture<V>> query) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism cannot be smaller than 1");
+		}
+		Map<K, CompletableFuture<V>> results = new LinkedHashMap<>((int) (keys.size() / 0.75F) + 1);
+		Queue<Map.Entry<K, CompletableFuture<V>>> pending = new ConcurrentLinkedQueue<>();
+		for (K key : keys) {
+			if (results.containsKey(key)) {
+				continue;
+			}
+			V value = lookup.apply(key);
+			if (value != null) {
+				results.put(key, CompletableFuture.completedFuture(value));
+				continue;
+			}
+			CompletableFuture<V> future = new CompletableFuture<>();
+			results.put(key, future);
+			pending.add(Map.entry(key, future));
+		}
+		int workers = Math.min(parallelism, pending.size());
+		for (int worker = 0; worker < workers; worker++) {
+			runNext(pending, query);
+		}
+		return Collections.unmodifiableMap(results);
+	}
+
+	// Queries that complete synchronously are drained in a loop rather than by recursion to keep the stack flat.
+	private static <K, V> void runNext(@NotNull Queue<Map.Entry<K, CompletableFuture<V>>> pending, @NotNull Function<K, CompletableFuture<V>> query) {
+		Map.Entry<K, CompletableFuture<V>> entry;
+		while ((entry = pending.poll()) != null) {
+			CompletableFuture<V> result = entry.getValue();
+			CompletableFuture<V> future;
+			try {
+				future = query.apply(entry.getKey());
+			} catch (Throwable throwable) {
+				future = CompletableFuture.failedFuture(throwable);
+			}
+			if (!future.isDone()) {
+				future.whenComplete((value, throwable) -> {
+					complete(result, value, throwable);
+					runNext(pending, query);
+				});
+				return;
+			}
+			future.whenComplete((value, throwable) -> complete(result, value, throwable));
+		}
+	}
+
+	private static <V> void complete(@NotNull CompletableFuture<V> future, V value, Throwable throwable) {
+		if (throwable == null) {
+			future.complete(value);
+		} else if (throwable instanceof CompletionException && throwable.getCause() != null) {
+			future.completeExceptionally(throwable.getCause());
+		} else {
+			future.completeExceptionally(throwable);
+		}
+	}
+}
@@ -0,0 +1,649 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// An immutable set of ints, split Roaring-style into chunks of 65536 values by their upper 16 bits. A chunk holds a
+// sorted array of its lower 16 bits while it has at most 4096 values, and a 65536 bit bitmap once it has more, so every
+// chunk stays within 8 KiB and set operations work a chunk, or a machine word, at a time.
+public final class CompressedBitmap {
+
+	private static final int MAXIMUM_ARRAY_SIZE = 4096;
+	private static final int BITMAP_WORDS = 1024;
+	private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Object[0], 0);
+
+	// Upper 16 bits of every chunk, sorted.
+	@NotNull
+	private final char[] keys;
+	// Either char[] (sorted lower 16 bits) or long[] (a bitmap of BITMAP_WORDS words), never empty.
+	@NotNull
+	private final Object[] containers;
+	private final int cardinality;
+
+	private CompressedBitmap(@NotNull char[] keys, @NotNull Object[] containers, int cardinality) {
+		this.keys = keys;
+		this.containers = containers;
+		this.cardinality = cardinality;
+	}
+
+	@NotNull
+	public static CompressedBitmap empty() {
+		return EMPTY;
+	}
+
+	@NotNull
+	public static CompressedBitmap of(@NotNull int... values) {
+		Builder builder = new Builder(values.length);
+		for (int value : values) {
+			builder.add(value);
+		}
+		return builder.build();
+	}
+
+	@NotNull
+	public static Builder builder() {
+		return new Builder(16);
+	}
+
+	@NotNull
+	public static Builder builder(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("expectedSize cannot be smaller than 0");
+		}
+		return new Builder(expectedSize);
+	}
+
+	public int getCardinality() {
+		return this.cardinality;
+	}
+
+	public boolean isEmpty() {
+		return this.cardinality == 0;
+	}
+
+	public boolean contains(int value) {
+		int index = Arrays.binarySearch(this.keys, (char) (value >>> 16));
+		return index >= 0 && containerContains(this.containers[index], (char) value);
+	}
+
+	@NotNull
+	public CompressedBitmap and(@NotNull CompressedBitmap other) {
+		if (this.isEmpty() || other.isEmpty()) {
+			return EMPTY;
+		}
+		int length = Math.min(this.keys.length, other.keys.length);
+		char[] keys = new char[length];
+		Object[] containers = new Object[length];
+		int size = 0;
+		int cardinality = 0;
+		int index = 0;
+		int otherIndex = 0;
+		while (index < this.keys.length && otherIndex < other.keys.length) {
+			char key = this.keys[index];
+			char otherKey = other.keys[otherIndex];
+			if (key < otherKey) {
+				index++;
+			} else if (key > otherKey) {
+				otherIndex++;
+			} else {
+				Object container = and(this.containers[index++], other.containers[otherIndex++]);
+				if (container != null) {
+					keys[size] = key;
+					containers[size++] = container;
+					cardinality += cardinalityOf(container);
+				}
+			}
+		}
+		return create(keys, containers, size, cardinality);
+	}
+
+	// Counts the common values without building the intersection.
+	public int andCardinality(@NotNull CompressedBitmap other) {
+		int cardinality = 0;
+		int index = 0;
+		int otherIndex = 0;
+		while (index < this.keys.length && otherIndex < other.keys.length) {
+			char key = this.keys[index];
+			char otherKey = other.keys[otherIndex];
+			if (key < otherKey) {
+				index++;
+			} else if (key > otherKey) {
+				otherIndex++;
+			} else {
+				cardinality += andCardinality(this.containers[index++], other.containers[otherIndex++]);
+			}
+		}
+		return cardinality;
+	}
+
+	@NotNull
+	public CompressedBitmap or(@NotNull CompressedBitmap other) {
+		if (other.isEmpty()) {
+			return this;
+		}
+		if (this.isEmpty()) {
+			return other;
+		}
+		char[] keys = new char[this.keys.length + other.keys.length];
+		Object[] containers = new Object[keys.length];
+		int size = 0;
+		int cardinality = 0;
+		int index = 0;
+		int otherIndex = 0;
+		while (index < this.keys.length || otherIndex < other.keys.length) {
+			Object container;
+			char key;
+			if (otherIndex >= other.keys.length || (index < this.keys.length && this.keys[index] < other.keys[otherIndex])) {
+				key = this.keys[index];
+				container = this.containers[index++];
+			} else if (index >= this.keys.length || this.keys[index] > other.keys[otherIndex]) {
+				key = other.keys[otherIndex];
+				container = other.containers[otherIndex++];
+			} else {
+				key = this.keys[index];
+				container = or(this.containers[index++], other.containers[otherIndex++]);
+			}
+			keys[size] = key;
+			containers[size++] = container;
+			cardinality += cardinalityOf(container);
+		}
+		return create(keys, containers, size, cardinality);
+	}
+
+	// Returns the values of this bitmap that are not in the other one.
+	@NotNull
+	public CompressedBitmap andNot(@NotNull CompressedBitmap other) {
+		if (this.isEmpty() || other.isEmpty()) {
+			return this;
+		}
+		char[] keys = new char[this.keys.length];
+		Object[] containers = new Object[keys.length];
+		int size = 0;
+		int cardinality = 0;
+		int otherIndex = 0;
+		for (int index = 0; index < this.keys.length; index++) {
+			char key = this.keys[index];
+			while (otherIndex < other.keys.length && other.keys[otherIndex] < key) {
+				otherIndex++;
+			}
+			Object container = this.containers[index];
+			if (otherIndex < other.keys.length && other.keys[otherIndex] == key) {
+				container = andNot(container, other.containers[otherIndex]);
+			}
+			if (container != null) {
+				keys[size] = key;
+				containers[size++] = container;
+				cardinality += cardinalityOf(container);
+			}
+		}
+		return cardinality == this.cardinality ? this : create(keys, containers, size, cardinality);
+	}
+
+	public void forEach(@NotNull IntConsumer consumer) {
+		for (int index = 0; index < this.keys.length; index++) {
+			int high = this.keys[index] << 16;
+			Object container = this.containers[index];
+			if (container instanceof char[]) {
+				for (char low : (char[]) container) {
+					consumer.accept(high | low);
+				}
+			} else {
+				long[] words = (long[]) container;
+				for (int wordIndex = 0; wordIndex < BITMAP_WORDS; wordIndex++) {
+					long word = words[wordIndex];
+					while (word != 0L) {
+						consumer.accept(high | (wordIndex << 6) | Long.numberOfTrailingZeros(word));
+						word &= word - 1L;
+					}
+				}
+			}
+		}
+	}
+
+	@NotNull
+	public int[] toArray() {
+		int[] values = new int[this.cardinality];
+		int[] size = new int[1];
+		this.forEach(value -> values[size[0]++] = value);
+		return values;
+	}
+
+	@NotNull
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+
+			private int containerIndex;
+			private int position;
+			private long word = this.loadWord();
+
+			@Override
+			public boolean hasNext() {
+				return this.containerIndex < CompressedBitmap.this.keys.length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int high = CompressedBitmap.this.keys[this.containerIndex] << 16;
+				Object container = CompressedBitmap.this.containers[this.containerIndex];
+				int value;
+				if (container instanceof char[]) {
+					char[] values = (char[]) container;
+					value = high | values[this.position++];
+					if (this.position == values.length) {
+						this.advanceContainer();
+					}
+				} else {
+					value = high | (this.position << 6) | Long.numberOfTrailingZeros(this.word);
+					this.word &= this.word - 1L;
+					this.skipEmptyWords();
+				}
+				return value;
+			}
+
+			private void advanceContainer() {
+				this.containerIndex++;
+				this.position = 0;
+				this.word = this.loadWord();
+			}
+
+			// Positions a bitmap container on its first non-empty word.
+			private long loadWord() {
+				if (this.containerIndex >= CompressedBitmap.this.keys.length || !(CompressedBitmap.this.containers[this.containerIndex] instanceof long[])) {
+					return 0L;
+				}
+				long[] words = (long[]) CompressedBitmap.this.containers[this.containerIndex];
+				while (words[this.position] == 0L) {
+					this.position++;
+				}
+				return words[this.position];
+			}
+
+			private void skipEmptyWords() {
+				if (this.word != 0L) {
+					return;
+				}
+				long[] words = (long[]) CompressedBitmap.this.containers[this.containerIndex];
+				while (++this.position < BITMAP_WORDS) {
+					if (words[this.position] != 0L) {
+						this.word = words[this.position];
+						return;
+					}
+				}
+				this.advanceContainer();
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(@Nullable Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof CompressedBitmap)) {
+			return false;
+		}
+		CompressedBitmap that = (CompressedBitmap) object;
+		if (this.cardinality != that.cardinality || !Arrays.equals(this.keys, that.keys)) {
+			return false;
+		}
+		// Containers are always stored in the same form for the same values, so they can be compared directly.
+		for (int index = 0; index < this.containers.length; index++) {
+			Object container = this.containers[index];
+			Object otherContainer = that.containers[index];
+			boolean equal = container instanceof char[] ? otherContainer instanceof char[] && Arrays.equals((char[]) container, (char[]) otherContainer) : otherContainer instanceof long[] && Arrays.equals((long[]) container, (long[]) otherContainer);
+			if (!equal) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int[] hashCode = {this.cardinality};
+		this.forEach(value -> hashCode[0] = 31 * hashCode[0] + value);
+		return hashCode[0];
+	}
+
+	@Override
+	public String toString() {
+		return "CompressedBitmap{cardinality=" + this.cardinality + ", chunks=" + this.keys.length + "}";
+	}
+
+	@NotNull
+	private static CompressedBitmap create(@NotNull char[] keys, @NotNull Object[] containers, int size, int cardinality) {
+		if (size == 0) {
+			return EMPTY;
+		}
+		return new CompressedBitmap(size == keys.length ? keys : Arrays.copyOf(keys, size), size == containers.length ? containers : Arrays.copyOf(containers, size), cardinality);
+	}
+
+	private static int cardinalityOf(@NotNull Object container) {
+		if (container instanceof char[]) {
+			return ((char[]) container).length;
+		}
+		int cardinality = 0;
+		for (long word : (long[]) container) {
+			cardinality += Long.bitCount(word);
+		}
+		return cardinality;
+	}
+
+	private static boolean containerContains(@NotNull Object container, char low) {
+		if (container instanceof char[]) {
+			return Arrays.binarySearch((char[]) container, low) >= 0;
+		}
+		return (((long[]) container)[low >>> 6] & (1L << low)) != 0L;
+	}
+
+	@Nullable
+	private static Object and(@NotNull Object container, @NotNull Object otherContainer) {
+		if (container instanceof char[]) {
+			if (otherContainer instanceof char[]) {
+				return intersect((char[]) container, (char[]) otherContainer);
+			}
+			return filter((char[]) container, (long[]) otherContainer, true);
+		}
+		if (otherContainer instanceof char[]) {
+			return filter((char[]) otherContainer, (long[]) container, true);
+		}
+		long[] words = (long[]) container;
+		long[] otherWords = (long[]) otherContainer;
+		long[] result = new long[BITMAP_WORDS];
+		int cardinality = 0;
+		for (int index = 0; index < BITMAP_WORDS; index++) {
+			result[index] = words[index] & otherWords[index];
+			cardinality += Long.bitCount(result[index]);
+		}
+		return fromWords(result, cardinality);
+	}
+
+	private static int andCardinality(@NotNull Object container, @NotNull Object otherContainer) {
+		if (container instanceof long[] && otherContainer instanceof long[]) {
+			long[] words = (long[]) container;
+			long[] otherWords = (long[]) otherContainer;
+			int cardinality = 0;
+			for (int index = 0; index < BITMAP_WORDS; index++) {
+				cardinality += Long.bitCount(words[index] & otherWords[index]);
+			}
+			return cardinality;
+		}
+		if (container instanceof long[]) {
+			Object swap = container;
+			container = otherContainer;
+			otherContainer = swap;
+		}
+		char[] values = (char[]) container;
+		int cardinality = 0;
+		for (char value : values) {
+			if (containerContains(otherContainer, value)) {
+				cardinality++;
+			}
+		}
+		return cardinality;
+	}
+
+	@NotNull
+	private static Object or(@NotNull Object container, @NotNull Object otherContainer) {
+		if (container instanceof char[] && otherContainer instanceof char[]) {
+			char[] values = (char[]) container;
+			char[] otherValues = (char[]) otherContainer;
+			if (values.length + otherValues.length <= MAXIMUM_ARRAY_SIZE) {
+				return union(values, otherValues);
+			}
+		}
+		long[] result = new long[BITMAP_WORDS];
+		setAll(result, container);
+		setAll(result, otherContainer);
+		int cardinality = 0;
+		for (long word : result) {
+			cardinality += Long.bitCount(word);
+		}
+		return fromWords(result, cardinality);
+	}
+
+	@Nullable
+	private static Object andNot(@NotNull Object container, @NotNull Object otherContainer) {
+		if (container instanceof char[]) {
+			if (otherContainer instanceof char[]) {
+				return subtract((char[]) container, (char[]) otherContainer);
+			}
+			return filter((char[]) container, (long[]) otherContainer, false);
+		}
+		long[] result = ((long[]) container).clone();
+		if (otherContainer instanceof char[]) {
+			for (char value : (char[]) otherContainer) {
+				result[value >>> 6] &= ~(1L << value);
+			}
+		} else {
+			long[] otherWords = (long[]) otherContainer;
+			for (int index = 0; index < BITMAP_WORDS; index++) {
+				result[index] &= ~otherWords[index];
+			}
+		}
+		int cardinality = 0;
+		for (long word : result) {
+			cardinality += Long.bitCount(word);
+		}
+		return fromWords(result, cardinality);
+	}
+
+	private static void setAll(@NotNull long[] words, @NotNull Object container) {
+		if (container instanceof char[]) {
+			for (char value : (char[]) container) {
+				words[value >>> 6] |= 1L << value;
+			}
+		} else {
+			long[] otherWords = (long[]) container;
+			for (int index = 0; index < BITMAP_WORDS; index++) {
+				words[index] |= otherWords[index];
+			}
+		}
+	}
+
+	// Keeps the values that are (or are not) in the bitmap.
+	@Nullable
+	private static char[] filter(@NotNull char[] values, @NotNull long[] words, boolean keep) {
+		char[] result = new char[values.length];
+		int size = 0;
+		for (char value : values) {
+			if (((words[value >>> 6] & (1L << value)) != 0L) == keep) {
+				result[size++] = value;
+			}
+		}
+		return trim(result, size);
+	}
+
+	@Nullable
+	private static char[] intersect(@NotNull char[] values, @NotNull char[] otherValues) {
+		char[] result = new char[Math.min(values.length, otherValues.length)];
+		int size = 0;
+		int index = 0;
+		int otherIndex = 0;
+		while (index < values.length && otherIndex < otherValues.length) {
+			if (values[index] < otherValues[otherIndex]) {
+				index++;
+			} else if (values[index] > otherValues[otherIndex]) {
+				otherIndex++;
+			} else {
+				result[size++] = values[index++];
+				otherIndex++;
+			}
+		}
+		return trim(result, size);
+	}
+
+	@NotNull
+	private static char[] union(@NotNull char[] values, @NotNull char[] otherValues) {
+		char[] result = new char[values.length + otherValues.length];
+		int size = 0;
+		int index = 0;
+		int otherIndex = 0;
+		while (index < values.length && otherIndex < otherValues.length) {
+			if (values[index] < otherValues[otherIndex]) {
+				result[size++] = values[index++];
+			} else if (values[index] > otherValues[otherIndex]) {
+				result[size++] = otherValues[otherIndex++];
+			} else {
+				result[size++] = values[index++];
+				otherIndex++;
+			}
+		}
+		while (index < values.length) {
+			result[size++] = values[index++];
+		}
+		while (otherIndex < otherValues.length) {
+			result[size++] = otherValues[otherIndex++];
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+	@Nullable
+	private static char[] subtract(@NotNull char[] values, @NotNull char[] otherValues) {
+		char[] result = new char[values.length];
+		int size = 0;
+		int otherIndex = 0;
+		for (char value : values) {
+			while (otherIndex < otherValues.length && otherValues[otherIndex] < value) {
+				otherIndex++;
+			}
+			if (otherIndex >= otherValues.length || otherValues[otherIndex] != value) {
+				result[size++] = value;
+			}
+		}
+		return trim(result, size);
+	}
+
+	@Nullable
+	private static char[] trim(@NotNull char[] values, int size) {
+		if (size == 0) {
+			return null;
+		}
+		return size == values.length ? values : Arrays.copyOf(values, size);
+	}
+
+	// Bitmaps that became small enough are turned back into arrays, so equal sets are always stored the same way.
+	@Nullable
+	private static Object fromWords(@NotNull long[] words, int cardinality) {
+		if (cardinality == 0) {
+			return null;
+		}
+		if (cardinality > MAXIMUM_ARRAY_SIZE) {
+			return words;
+		}
+		char[] values = new char[cardinality];
+		int size = 0;
+		for (int index = 0; index < BITMAP_WORDS; index++) {
+			long word = words[index];
+			while (word != 0L) {
+				values[size++] = (char) ((index << 6) | Long.numberOfTrailingZeros(word));
+				word &= word - 1L;
+			}
+		}
+		return values;
+	}
+
+	public static final class Builder {
+
+		@NotNull
+		private int[] values;
+		private int size;
+
+		private Builder(int expectedSize) {
+			this.values = new int[Math.max(1, expectedSize)];
+		}
+
+		@NotNull
+		public Builder add(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.values.length + (this.values.length >>> 1) + 1);
+			}
+			this.values[this.size++] = value;
+			return this;
+		}
+
+		@NotNull
+		public CompressedBitmap build() {
+			if (this.size == 0) {
+				return EMPTY;
+			}
+			int[] values = this.values;
+			int size = this.size;
+			this.values = new int[1];
+			this.size = 0;
+			// Values are ordered as unsigned ints, the same order chunks are stored in.
+			for (int index = 0; index < size; index++) {
+				values[index] ^= Integer.MIN_VALUE;
+			}
+			Arrays.sort(values, 0, size);
+			for (int index = 0; index < size; index++) {
+				values[index] ^= Integer.MIN_VALUE;
+			}
+			char[] keys = new char[Math.min(size, 65536)];
+			Object[] containers = new Object[keys.length];
+			int containerCount = 0;
+			int cardinality = 0;
+			int start = 0;
+			while (start < size) {
+				int key = values[start] >>> 16;
+				int end = start;
+				int unique = 0;
+				// Only a full array of the largest size can overflow, and the value that overflows it switches to a bitmap.
+				char[] lows = new char[Math.min(MAXIMUM_ARRAY_SIZE, size - start)];
+				long[] words = null;
+				while (end < size && values[end] >>> 16 == key) {
+					char low = (char) values[end];
+					if (end == start || values[end] != values[end - 1]) {
+						if (words == null && unique == lows.length) {
+							words = new long[BITMAP_WORDS];
+							setAll(words, lows);
+						}
+						if (words != null) {
+							words[low >>> 6] |= 1L << low;
+						} else {
+							lows[unique] = low;
+						}
+						unique++;
+					}
+					end++;
+				}
+				keys[containerCount] = (char) key;
+				containers[containerCount++] = words != null ? words : unique == lows.length ? lows : Arrays.copyOf(lows, unique);
+				cardinality += unique;
+				start = end;
+			}
+			return create(keys, containers, containerCount, cardinality);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public final class FutureHelper {
+
+	private FutureHelper() {
+		throw new UnsupportedOperationException("Cannot create instance of this class");
+	}
+
+	// Cancelling a dependent future never reaches the stage it depends on, so it has to be forwarded by hand.
+	public static void propagateCancellation(@NotNull CompletableFuture<?> source, @NotNull Future<?> target) {
+		source.whenComplete((value, throwable) -> {
+			if (source.isCancelled()) {
+				target.cancel(true);
+			}
+		});
+	}
+
+	// Like thenCompose, but cancelling the returned future also cancels the stage it is currently waiting for.
+	@NotNull
+	public static <T, U> CompletableFuture<U> thenComposeCancellable(@NotNull CompletableFuture<T> source, @NotNull Function<T, CompletableFuture<U>> function) {
+		CompletableFuture<U> result = new CompletableFuture<>();
+		source.whenComplete((value, throwable) -> {
+			if (throwable != null) {
+				result.completeExceptionally(unwrap(throwable));
+				return;
+			}
+			if (result.isDone()) {
+				return;
+			}
+			CompletableFuture<U> next;
+			try {
+				next = function.apply(value);
+			} catch (Throwable exception) {
+				result.completeExceptionally(exception);
+				return;
+			}
+			propagateCancellation(result, next);
+			next.whenComplete((nextValue, nextThrowable) -> {
+				if (nextThrowable != null) {
+					result.completeExceptionally(unwrap(nextThrowable));
+				} else {
+					result.complete(nextValue);
+				}
+			});
+		});
+		propagateCancellation(result, source);
+		return result;
+	}
+
+	@NotNull
+	public static Throwable unwrap(@NotNull Throwable throwable) {
+		return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+	}
+
+	public static boolean isCancellation(@Nullable Throwable throwable) {
+		return throwable != null && unwrap(throwable) instanceof CancellationException;
+	}
+}
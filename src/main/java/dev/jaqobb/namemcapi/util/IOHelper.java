@@ -26,10 +26,6 @@ package dev.jaqobb.namemcapi.util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import org.jetbrains.annotations.NotNull;
 
 public final class IOHelper {
@@ -39,21 +35,12 @@ public final class IOHelper {
 	}
 
 	public static String getReaderContent(@NotNull BufferedReader reader) throws IOException {
-		String content = "";
-		String line;
-		while ((line = reader.readLine()) != null) {
-			content += line;
-			content += System.lineSeparator();
-		}
-		return content;
-	}
-
-	public static String getWebsiteContent(@NotNull String websiteUrl) throws IOException {
-		if (websiteUrl.isBlank()) {
-			throw new IllegalArgumentException("websiteUrl cannot be blank");
-		}
-		try (InputStream inputStream = new URL(websiteUrl).openStream(); BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-			return getReaderContent(reader);
+		StringBuilder content = new StringBuilder(8192);
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			content.append(buffer, 0, read);
 		}
+		return content.toString();
 	}
 }
@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+
+public final class JsonReader implements Closeable {
+
+	private static final int EMPTY_ARRAY = 1;
+	private static final int NONEMPTY_ARRAY = 2;
+	private static final int EMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int NONEMPTY_OBJECT = 5;
+
+	@NotNull
+	private final Reader reader;
+	@NotNull
+	private final char[] buffer = new char[8192];
+	private int position;
+	private int limit;
+	private long consumed;
+	@NotNull
+	private final StringBuilder builder = new StringBuilder(32);
+	@NotNull
+	private int[] stack = new int[8];
+	private int depth;
+	private long mostSignificantBits;
+	private long leastSignificantBits;
+
+	public JsonReader(@NotNull Reader reader) {
+		this.reader = reader;
+	}
+
+	public void beginArray() throws IOException {
+		this.beforeValue();
+		this.expect('[');
+		this.push(EMPTY_ARRAY);
+	}
+
+	public void endArray() throws IOException {
+		this.expect(']');
+		this.pop(EMPTY_ARRAY, NONEMPTY_ARRAY);
+	}
+
+	public void beginObject() throws IOException {
+		this.beforeValue();
+		this.expect('{');
+		this.push(EMPTY_OBJECT);
+	}
+
+	public void endObject() throws IOException {
+		this.expect('}');
+		this.pop(EMPTY_OBJECT, NONEMPTY_OBJECT);
+	}
+
+	public boolean hasNext() throws IOException {
+		char character = this.peek();
+		return character != ']' && character != '}';
+	}
+
+	@NotNull
+	public String nextName() throws IOException {
+		int state = this.depth == 0 ? 0 : this.stack[this.depth - 1];
+		if (state == NONEMPTY_OBJECT) {
+			this.expect(',');
+		} else if (state != EMPTY_OBJECT) {
+			throw this.syntaxError("Expected a value, not a name");
+		}
+		this.stack[this.depth - 1] = DANGLING_NAME;
+		this.expect('"');
+		return this.readString();
+	}
+
+	@NotNull
+	public String nextString() throws IOException {
+		this.beforeValue();
+		this.expect('"');
+		return this.readString();
+	}
+
+	@NotNull
+	public UUID nextUniqueId() throws IOException {
+		this.readUniqueId();
+		return new UUID(this.mostSignificantBits, this.leastSignificantBits);
+	}
+
+	public void nextUniqueId(@NotNull UniqueIdSet.Builder builder) throws IOException {
+		this.readUniqueId();
+		builder.add(this.mostSignificantBits, this.leastSignificantBits);
+	}
+
+	private void readUniqueId() throws IOException {
+		this.beforeValue();
+		this.expect('"');
+		long mostSignificantBits = 0L;
+		long leastSignificantBits = 0L;
+		int digits = 0;
+		while (true) {
+			if (this.position == this.limit && !this.fill()) {
+				throw new EOFException("Unterminated string at offset " + this.getOffset());
+			}
+			char character = this.buffer[this.position++];
+			if (character == '"') {
+				break;
+			}
+			if (character == '-') {
+				continue;
+			}
+			int value = Character.digit(character, 16);
+			if (value < 0 || digits == 32) {
+				throw this.syntaxError("Malformed unique id");
+			}
+			if (digits < 16) {
+				mostSignificantBits = (mostSignificantBits << 4) | value;
+			} else {
+				leastSignificantBits = (leastSignificantBits << 4) | value;
+			}
+			digits++;
+		}
+		if (digits != 32) {
+			throw this.syntaxError("Malformed unique id");
+		}
+		this.mostSignificantBits = mostSignificantBits;
+		this.leastSignificantBits = leastSignificantBits;
+	}
+
+	public void skipValue() throws IOException {
+		this.beforeValue();
+		int nesting = 0;
+		do {
+			char character = this.peek();
+			this.position++;
+			if (character == '[' || character == '{') {
+				nesting++;
+			} else if (character == ']' || character == '}') {
+				nesting--;
+			} else if (character == '"') {
+				this.readString();
+			} else if (nesting == 0) {
+				while (this.position < this.limit || this.fill()) {
+					char next = this.buffer[this.position];
+					if (next == ',' || next == ']' || next == '}' || next <= ' ') {
+						break;
+					}
+					this.position++;
+				}
+			}
+		} while (nesting > 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+	private void beforeValue() throws IOException {
+		if (this.depth == 0) {
+			return;
+		}
+		int state = this.stack[this.depth - 1];
+		if (state == EMPTY_ARRAY) {
+			this.stack[this.depth - 1] = NONEMPTY_ARRAY;
+		} else if (state == NONEMPTY_ARRAY) {
+			this.expect(',');
+		} else if (state == DANGLING_NAME) {
+			this.expect(':');
+			this.stack[this.depth - 1] = NONEMPTY_OBJECT;
+		} else {
+			throw this.syntaxError("Expected a name, not a value");
+		}
+	}
+
+	@NotNull
+	private String readString() throws IOException {
+		this.builder.setLength(0);
+		while (true) {
+			int start = this.position;
+			while (this.position < this.limit) {
+				char character = this.buffer[this.position++];
+				if (character == '"') {
+					this.builder.append(this.buffer, start, this.position - start - 1);
+					return this.builder.toString();
+				}
+				if (character == '\\') {
+					this.builder.append(this.buffer, start, this.position - start - 1);
+					this.builder.append(this.readEscape());
+					start = this.position;
+				}
+			}
+			this.builder.append(this.buffer, start, this.position - start);
+			if (!this.fill()) {
+				throw new EOFException("Unterminated string at offset " + this.getOffset());
+			}
+		}
+	}
+
+	private char readEscape() throws IOException {
+		char escaped = this.read();
+		switch (escaped) {
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'u':
+				int value = 0;
+				for (int index = 0; index < 4; index++) {
+					int digit = Character.digit(this.read(), 16);
+					if (digit < 0) {
+						throw this.syntaxError("Malformed unicode escape");
+					}
+					value = (value << 4) | digit;
+				}
+				return (char) value;
+			default:
+				return escaped;
+		}
+	}
+
+	private char read() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			throw new EOFException("Unexpected end of input at offset " + this.getOffset());
+		}
+		return this.buffer[this.position++];
+	}
+
+	private char peek() throws IOException {
+		while (this.position < this.limit || this.fill()) {
+			char character = this.buffer[this.position];
+			if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+				return character;
+			}
+			this.position++;
+		}
+		throw new EOFException("Unexpected end of input at offset " + this.getOffset());
+	}
+
+	private void expect(char expected) throws IOException {
+		char character = this.peek();
+		if (character != expected) {
+			throw this.syntaxError("Expected '" + expected + "' but found '" + character + "'");
+		}
+		this.position++;
+	}
+
+	private void push(int state) {
+		if (this.depth == this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+		}
+		this.stack[this.depth++] = state;
+	}
+
+	private void pop(int emptyState, int nonEmptyState) throws IOException {
+		int state = this.depth == 0 ? 0 : this.stack[this.depth - 1];
+		if (state != emptyState && state != nonEmptyState) {
+			throw this.syntaxError("Unexpected end of container");
+		}
+		this.depth--;
+	}
+
+	private boolean fill() throws IOException {
+		this.consumed += this.limit;
+		this.position = 0;
+		this.limit = 0;
+		int read = this.reader.read(this.buffer, 0, this.buffer.length);
+		if (read <= 0) {
+			return false;
+		}
+		this.limit = read;
+		return true;
+	}
+
+	private long getOffset() {
+		return this.consumed + this.position;
+	}
+
+	@NotNull
+	private IOException syntaxError(@NotNull String message) {
+		return new IOException(message + " at offset " + this.getOffset());
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Pulls one element from a blocking source per unit of demand. Every subscriber opens its own source once it first
+// requests something, and elements are read and emitted on the executor, so a slow subscriber simply stops the reads.
+// Nothing is read without outstanding demand, so the end of the source is only signalled once more is requested.
+public class PullPublisher<T> implements Flow.Publisher<T> {
+
+	@NotNull
+	private final Executor executor;
+	@NotNull
+	private final Supplier<CompletableFuture<Source<T>>> opener;
+
+	public PullPublisher(@NotNull Executor executor, @NotNull Supplier<CompletableFuture<Source<T>>> opener) {
+		this.executor = executor;
+		this.opener = opener;
+	}
+
+	@Override
+	public void subscribe(@NotNull Flow.Subscriber<? super T> subscriber) {
+		PullSubscription<T> subscription = new PullSubscription<>(subscriber, this.executor, this.opener);
+		subscriber.onSubscribe(subscription);
+	}
+
+	public interface Source<T> extends Closeable {
+
+		boolean hasNext() throws IOException;
+
+		@NotNull
+		T next() throws IOException;
+
+		@NotNull
+		static <T> Source<T> of(@NotNull Iterator<T> iterator) {
+			return new Source<>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@NotNull
+				@Override
+				public T next() {
+					return iterator.next();
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+	}
+
+	private static final class PullSubscription<T> implements Flow.Subscription {
+
+		@NotNull
+		private final Flow.Subscriber<? super T> subscriber;
+		@NotNull
+		private final Executor executor;
+		@NotNull
+		private final Supplier<CompletableFuture<Source<T>>> opener;
+		@NotNull
+		private final AtomicLong demand = new AtomicLong();
+		// Counts drain requests, so only one thread drains at a time and no request is lost while it does.
+		@NotNull
+		private final AtomicInteger drains = new AtomicInteger();
+		@Nullable
+		private volatile Source<T> source;
+		@Nullable
+		private volatile Throwable failure;
+		private volatile boolean cancelled;
+		private boolean opening;
+		private boolean done;
+		private boolean sourceClosed;
+
+		private PullSubscription(@NotNull Flow.Subscriber<? super T> subscriber, @NotNull Executor executor, @NotNull Supplier<CompletableFuture<Source<T>>> opener) {
+			this.subscriber = subscriber;
+			this.executor = executor;
+			this.opener = opener;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0L) {
+				this.failure = new IllegalArgumentException("n has to be positive (was " + n + ")");
+			} else {
+				this.demand.accumulateAndGet(n, (current, added) -> current + added < 0L ? Long.MAX_VALUE : current + added);
+			}
+			this.schedule();
+		}
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			this.schedule();
+		}
+
+		private void schedule() {
+			if (this.drains.getAndIncrement() != 0) {
+				return;
+			}
+			try {
+				this.executor.execute(this::drain);
+			} catch (RuntimeException exception) {
+				this.failure = exception;
+				this.drain();
+			}
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				this.drainOnce();
+				missed = this.drains.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drainOnce() {
+			if (this.done) {
+				// A source that opened after the subscription ended still has to be released.
+				this.closeSource();
+				return;
+			}
+			if (this.cancelled) {
+				this.finish(null, false);
+				return;
+			}
+			Throwable failure = this.failure;
+			if (failure != null) {
+				this.finish(failure, true);
+				return;
+			}
+			Source<T> source = this.source;
+			if (source == null) {
+				if (!this.opening && this.demand.get() > 0L) {
+					this.opening = true;
+					this.open();
+				}
+				return;
+			}
+			try {
+				long requested = this.demand.get();
+				long emitted = 0L;
+				while (true) {
+					if (emitted == requested) {
+						if (requested != Long.MAX_VALUE) {
+							requested = this.demand.addAndGet(-emitted);
+							emitted = 0L;
+						}
+						// Even checking for the end reads from the source, so that waits for more demand too.
+						if (requested == 0L) {
+							return;
+						}
+					}
+					if (this.cancelled) {
+						this.finish(null, false);
+						return;
+					}
+					if (!source.hasNext()) {
+						this.finish(null, true);
+						return;
+					}
+					this.subscriber.onNext(source.next());
+					emitted++;
+				}
+			} catch (Throwable throwable) {
+				this.finish(throwable, true);
+			}
+		}
+
+		private void open() {
+			CompletableFuture<Source<T>> future;
+			try {
+				future = this.opener.get();
+			} catch (Throwable throwable) {
+				future = CompletableFuture.failedFuture(throwable);
+			}
+			future.whenComplete((source, throwable) -> {
+				if (throwable != null) {
+					this.failure = FutureHelper.unwrap(throwable);
+				} else {
+					this.source = source;
+				}
+				this.schedule();
+			});
+		}
+
+		private void finish(@Nullable Throwable failure, boolean signal) {
+			this.done = true;
+			IOException closeFailure = this.closeSource();
+			if (failure == null) {
+				failure = closeFailure;
+			}
+			if (!signal) {
+				return;
+			}
+			if (failure != null) {
+				this.subscriber.onError(failure);
+			} else {
+				this.subscriber.onComplete();
+			}
+		}
+
+		@Nullable
+		private IOException closeSource() {
+			Source<T> source = this.source;
+			if (source == null || this.sourceClosed) {
+				return null;
+			}
+			this.sourceClosed = true;
+			try {
+				source.close();
+				return null;
+			} catch (IOException exception) {
+				return exception;
+			}
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public final class UniqueIdSet extends AbstractSet<UUID> {
+
+	private static final UniqueIdSet EMPTY = new UniqueIdSet(new long[0]);
+
+	// Sorted pairs of most and least significant bits, stored next to each other.
+	@NotNull
+	private final long[] bits;
+
+	private UniqueIdSet(@NotNull long[] bits) {
+		this.bits = bits;
+	}
+
+	@NotNull
+	public static UniqueIdSet empty() {
+		return EMPTY;
+	}
+
+	@NotNull
+	public static UniqueIdSet copyOf(@NotNull Collection<UUID> uniqueIds) {
+		if (uniqueIds instanceof UniqueIdSet) {
+			return (UniqueIdSet) uniqueIds;
+		}
+		Builder builder = new Builder(uniqueIds.size());
+		for (UUID uniqueId : uniqueIds) {
+			builder.add(uniqueId);
+		}
+		return builder.build();
+	}
+
+	@NotNull
+	public static Builder builder() {
+		return new Builder(16);
+	}
+
+	@NotNull
+	public static Builder builder(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("expectedSize cannot be smaller than 0");
+		}
+		return new Builder(expectedSize);
+	}
+
+	@Override
+	public int size() {
+		return this.bits.length >>> 1;
+	}
+
+	@Override
+	public boolean contains(@Nullable Object object) {
+		if (!(object instanceof UUID)) {
+			return false;
+		}
+		UUID uniqueId = (UUID) object;
+		return this.contains(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+	}
+
+	public boolean contains(long mostSignificantBits, long leastSignificantBits) {
+		return this.indexOf(mostSignificantBits, leastSignificantBits) >= 0;
+	}
+
+	public int indexOf(long mostSignificantBits, long leastSignificantBits) {
+		int low = 0;
+		int high = this.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(this.bits[middle << 1], this.bits[(middle << 1) + 1], mostSignificantBits, leastSignificantBits);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	public long getMostSignificantBits(int index) {
+		return this.bits[index << 1];
+	}
+
+	public long getLeastSignificantBits(int index) {
+		return this.bits[(index << 1) + 1];
+	}
+
+	@NotNull
+	public UUID get(int index) {
+		return new UUID(this.bits[index << 1], this.bits[(index << 1) + 1]);
+	}
+
+	// Returns the unique ids of this set that are not in the other one, walking both sorted arrays once.
+	@NotNull
+	public UniqueIdSet difference(@NotNull UniqueIdSet other) {
+		if (this == other || this.bits.length == 0) {
+			return EMPTY;
+		}
+		if (other.bits.length == 0) {
+			return this;
+		}
+		long[] bits = new long[this.bits.length];
+		int length = 0;
+		int otherIndex = 0;
+		for (int index = 0; index < this.bits.length; index += 2) {
+			int comparison = -1;
+			while (otherIndex < other.bits.length && (comparison = compare(this.bits[index], this.bits[index + 1], other.bits[otherIndex], other.bits[otherIndex + 1])) > 0) {
+				otherIndex += 2;
+			}
+			if (otherIndex >= other.bits.length || comparison < 0) {
+				bits[length++] = this.bits[index];
+				bits[length++] = this.bits[index + 1];
+			}
+		}
+		if (length == 0) {
+			return EMPTY;
+		}
+		return length == bits.length ? this : new UniqueIdSet(Arrays.copyOf(bits, length));
+	}
+
+	@NotNull
+	@Override
+	public Iterator<UUID> iterator() {
+		return new Iterator<>() {
+
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return this.index < UniqueIdSet.this.size();
+			}
+
+			@Override
+			public UUID next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return UniqueIdSet.this.get(this.index++);
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(@Nullable Object object) {
+		if (object instanceof UniqueIdSet) {
+			return Arrays.equals(this.bits, ((UniqueIdSet) object).bits);
+		}
+		return super.equals(object);
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 0;
+		for (int index = 0; index < this.bits.length; index += 2) {
+			long bits = this.bits[index] ^ this.bits[index + 1];
+			hashCode += ((int) (bits >> 32)) ^ (int) bits;
+		}
+		return hashCode;
+	}
+
+	static int compare(long mostSignificantBits, long leastSignificantBits, long otherMostSignificantBits, long otherLeastSignificantBits) {
+		int comparison = Long.compare(mostSignificantBits, otherMostSignificantBits);
+		return comparison != 0 ? comparison : Long.compare(leastSignificantBits, otherLeastSignificantBits);
+	}
+
+	public static final class Builder {
+
+		@NotNull
+		private long[] bits;
+		private int size;
+
+		private Builder(int expectedSize) {
+			this.bits = new long[Math.max(2, expectedSize << 1)];
+		}
+
+		@NotNull
+		public Builder add(@NotNull UUID uniqueId) {
+			return this.add(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+		}
+
+		@NotNull
+		public Builder add(long mostSignificantBits, long leastSignificantBits) {
+			if ((this.size << 1) == this.bits.length) {
+				this.bits = Arrays.copyOf(this.bits, this.bits.length + ((this.bits.length >>> 1) & ~1) + 2);
+			}
+			this.bits[this.size << 1] = mostSignificantBits;
+			this.bits[(this.size << 1) + 1] = leastSignificantBits;
+			this.size++;
+			return this;
+		}
+
+		public int size() {
+			return this.size;
+		}
+
+		@NotNull
+		public UniqueIdSet build() {
+			if (this.size == 0) {
+				return EMPTY;
+			}
+			this.sort();
+			int unique = 1;
+			for (int index = 1; index < this.size; index++) {
+				if (this.bits[index << 1] != this.bits[(unique - 1) << 1] || this.bits[(index << 1) + 1] != this.bits[((unique - 1) << 1) + 1]) {
+					this.bits[unique << 1] = this.bits[index << 1];
+					this.bits[(unique << 1) + 1] = this.bits[(index << 1) + 1];
+					unique++;
+				}
+			}
+			long[] bits = unique << 1 == this.bits.length ? this.bits : Arrays.copyOf(this.bits, unique << 1);
+			this.bits = new long[2];
+			this.size = 0;
+			return new UniqueIdSet(bits);
+		}
+
+		private void sort() {
+			if (this.isSorted()) {
+				return;
+			}
+			for (int index = (this.size >>> 1) - 1; index >= 0; index--) {
+				this.siftDown(index, this.size);
+			}
+			for (int end = this.size - 1; end > 0; end--) {
+				this.swap(0, end);
+				this.siftDown(0, end);
+			}
+		}
+
+		private boolean isSorted() {
+			for (int index = 1; index < this.size; index++) {
+				if (this.compareAt(index - 1, index) > 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void siftDown(int index, int end) {
+			while (true) {
+				int child = (index << 1) + 1;
+				if (child >= end) {
+					return;
+				}
+				if (child + 1 < end && this.compareAt(child, child + 1) < 0) {
+					child++;
+				}
+				if (this.compareAt(index, child) >= 0) {
+					return;
+				}
+				this.swap(index, child);
+				index = child;
+			}
+		}
+
+		private int compareAt(int first, int second) {
+			return compare(this.bits[first << 1], this.bits[(first << 1) + 1], this.bits[second << 1], this.bits[(second << 1) + 1]);
+		}
+
+		private void swap(int first, int second) {
+			long mostSignificantBits = this.bits[first << 1];
+			long leastSignificantBits = this.bits[(first << 1) + 1];
+			this.bits[first << 1] = this.bits[second << 1];
+			this.bits[(first << 1) + 1] = this.bits[(second << 1) + 1];
+			this.bits[second << 1] = mostSignificantBits;
+			this.bits[(second << 1) + 1] = leastSignificantBits;
+		}
+	}
+}
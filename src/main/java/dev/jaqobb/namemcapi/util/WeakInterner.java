@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Canonicalizes equal values to one instance without keeping them alive: entries are weak and go away with their value.
+public final class WeakInterner<T> {
+
+	// Lookups go through a per-thread probe, so a value that is already known costs no allocation.
+	private static final ThreadLocal<Probe> PROBE = ThreadLocal.withInitial(Probe::new);
+
+	@NotNull
+	private final Map<Object, Entry<T>> entries = new ConcurrentHashMap<>(16, 0.75F);
+	@NotNull
+	private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+	@NotNull
+	private final LongAdder sharedCount = new LongAdder();
+
+	@NotNull
+	public T intern(@NotNull T value) {
+		this.expungeStaleEntries();
+		int hashCode = value.hashCode();
+		Probe probe = PROBE.get();
+		probe.value = value;
+		probe.hashCode = hashCode;
+		Entry<T> knownEntry;
+		try {
+			knownEntry = this.entries.get(probe);
+		} finally {
+			probe.value = null;
+		}
+		T knownValue = knownEntry == null ? null : knownEntry.get();
+		if (knownValue != null) {
+			this.sharedCount.increment();
+			return knownValue;
+		}
+		Entry<T> entry = new Entry<>(value, hashCode, this.queue);
+		while (true) {
+			Entry<T> existingEntry = this.entries.putIfAbsent(entry, entry);
+			if (existingEntry == null) {
+				return value;
+			}
+			T existingValue = existingEntry.get();
+			if (existingValue != null) {
+				this.sharedCount.increment();
+				return existingValue;
+			}
+			// Cleared between the lookup and now, the queue will catch up with it later.
+			this.entries.remove(existingEntry, existingEntry);
+		}
+	}
+
+	public int size() {
+		this.expungeStaleEntries();
+		return this.entries.size();
+	}
+
+	// Number of intern calls that returned an already known instance.
+	public long getSharedCount() {
+		return this.sharedCount.sum();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void expungeStaleEntries() {
+		Reference<? extends T> reference;
+		while ((reference = this.queue.poll()) != null) {
+			Entry<T> entry = (Entry<T>) reference;
+			this.entries.remove(entry, entry);
+		}
+	}
+
+	private static final class Entry<T> extends WeakReference<T> {
+
+		private final int hashCode;
+
+		private Entry(@NotNull T value, int hashCode, @NotNull ReferenceQueue<T> queue) {
+			super(value, queue);
+			this.hashCode = hashCode;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof Entry)) {
+				return false;
+			}
+			Entry<?> that = (Entry<?>) object;
+			Object value = this.get();
+			return this.hashCode == that.hashCode && value != null && value.equals(that.get());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+	private static final class Probe {
+
+		@Nullable
+		private Object value;
+		private int hashCode;
+
+		// Only ever compared with entries, as the map asks the key it was given.
+		@Override
+		public boolean equals(@Nullable Object object) {
+			if (!(object instanceof Entry)) {
+				return false;
+			}
+			Entry<?> entry = (Entry<?>) object;
+			Object value = this.value;
+			return this.hashCode == entry.hashCode && value != null && value.equals(entry.get());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+}
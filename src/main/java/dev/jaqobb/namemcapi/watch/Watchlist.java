@@ -0,0 +1,420 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.watch;
+
+import dev.jaqobb.namemcapi.profile.ProfileRepository;
+import dev.jaqobb.namemcapi.server.ServerRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Keeps watched profiles and servers fresh by re-caching them in the background. Every refresh interval is jittered so
+// entries registered together drift apart, and only a few refreshes run at once, highest priority first, so the
+// watchlist shares the repositories' transport and rate limits without crowding out regular queries.
+public class Watchlist implements AutoCloseable {
+
+	private static final double DEFAULT_JITTER = 0.1D;
+	private static final int DEFAULT_MAXIMUM_IN_FLIGHT = 4;
+	private static final double PROMOTED_INTERVAL_FACTOR = 0.8D;
+	private static final long MAXIMUM_INITIAL_SPREAD = TimeUnit.SECONDS.toNanos(1L);
+	private static final Duration MINIMUM_INTERVAL = Duration.ofSeconds(1L);
+
+	@NotNull
+	private final ProfileRepository profileRepository;
+	@NotNull
+	private final ServerRepository serverRepository;
+	private final double jitter;
+	private final int maximumInFlight;
+	@NotNull
+	private final Map<UUID, Entry> profiles = new HashMap<>();
+	@NotNull
+	private final Map<String, Entry> servers = new HashMap<>();
+	@NotNull
+	private final PriorityQueue<Entry> waiting = new PriorityQueue<>(Comparator.comparingLong((Entry entry) -> entry.nextRefreshTime).thenComparingLong(entry -> entry.sequence));
+	@NotNull
+	private final PriorityQueue<Entry> ready = new PriorityQueue<>(Comparator.comparing((Entry entry) -> entry.priority).reversed().thenComparingLong(entry -> entry.nextRefreshTime).thenComparingLong(entry -> entry.sequence));
+	@NotNull
+	private Duration promotedProfileInterval;
+	@NotNull
+	private WatchPriority promotedProfilePriority = WatchPriority.LOW;
+	@Nullable
+	private ScheduledExecutorService scheduler;
+	@Nullable
+	private ScheduledFuture<?> wakeUp;
+	private long wakeUpTime;
+	private long wakeUpGeneration;
+	private boolean pumpScheduled;
+	private long sequence;
+	private int inFlight;
+	private long refreshCount;
+	private long failureCount;
+	private boolean closed;
+
+	public Watchlist(@NotNull ProfileRepository profileRepository, @NotNull ServerRepository serverRepository) {
+		this(profileRepository, serverRepository, DEFAULT_JITTER, DEFAULT_MAXIMUM_IN_FLIGHT);
+	}
+
+	public Watchlist(@NotNull ProfileRepository profileRepository, @NotNull ServerRepository serverRepository, double jitter, int maximumInFlight) {
+		if (jitter < 0.0D || jitter >= 1.0D) {
+			throw new IllegalArgumentException("jitter has to be between 0 and 1 (exclusive)");
+		}
+		if (maximumInFlight < 1) {
+			throw new IllegalArgumentException("maximumInFlight cannot be smaller than 1");
+		}
+		this.profileRepository = profileRepository;
+		this.serverRepository = serverRepository;
+		this.jitter = jitter;
+		this.maximumInFlight = maximumInFlight;
+		this.promotedProfileInterval = scale(profileRepository.getCacheDuration(), PROMOTED_INTERVAL_FACTOR);
+	}
+
+	@NotNull
+	public synchronized Duration getPromotedProfileInterval() {
+		return this.promotedProfileInterval;
+	}
+
+	@NotNull
+	public synchronized WatchPriority getPromotedProfilePriority() {
+		return this.promotedProfilePriority;
+	}
+
+	// Applies to profiles promoted from now on.
+	public synchronized void setPromotedProfiles(@NotNull Duration interval, @NotNull WatchPriority priority) {
+		checkInterval(interval);
+		this.promotedProfileInterval = interval;
+		this.promotedProfilePriority = priority;
+	}
+
+	public void watchProfile(@NotNull UUID uniqueId, @NotNull Duration interval) {
+		this.watchProfile(uniqueId, interval, WatchPriority.NORMAL);
+	}
+
+	public synchronized void watchProfile(@NotNull UUID uniqueId, @NotNull Duration interval, @NotNull WatchPriority priority) {
+		checkInterval(interval);
+		Entry entry = this.register(this.profiles, uniqueId, interval, priority, () -> this.profileRepository.cacheProfile(uniqueId, true));
+		entry.watched = true;
+	}
+
+	public synchronized void unwatchProfile(@NotNull UUID uniqueId) {
+		Entry entry = this.profiles.get(uniqueId);
+		if (entry != null) {
+			entry.watched = false;
+			this.removeIfUnused(this.profiles, uniqueId, entry);
+		}
+	}
+
+	// Meant for players while they are online. An explicitly watched profile keeps its own interval and priority.
+	public synchronized void promoteProfile(@NotNull UUID uniqueId) {
+		Entry entry = this.profiles.get(uniqueId);
+		if (entry == null) {
+			entry = this.register(this.profiles, uniqueId, this.promotedProfileInterval, this.promotedProfilePriority, () -> this.profileRepository.cacheProfile(uniqueId, true));
+		}
+		entry.promoted = true;
+	}
+
+	public synchronized void demoteProfile(@NotNull UUID uniqueId) {
+		Entry entry = this.profiles.get(uniqueId);
+		if (entry != null) {
+			entry.promoted = false;
+			this.removeIfUnused(this.profiles, uniqueId, entry);
+		}
+	}
+
+	public void watchServer(@NotNull String address, @NotNull Duration interval) {
+		this.watchServer(address, interval, WatchPriority.NORMAL);
+	}
+
+	public synchronized void watchServer(@NotNull String address, @NotNull Duration interval, @NotNull WatchPriority priority) {
+		checkInterval(interval);
+		String key = address.toLowerCase();
+		Entry entry = this.register(this.servers, key, interval, priority, () -> this.serverRepository.cacheServer(key, true));
+		entry.watched = true;
+	}
+
+	public synchronized void unwatchServer(@NotNull String address) {
+		String key = address.toLowerCase();
+		Entry entry = this.servers.get(key);
+		if (entry != null) {
+			entry.watched = false;
+			this.removeIfUnused(this.servers, key, entry);
+		}
+	}
+
+	public synchronized boolean isWatchingProfile(@NotNull UUID uniqueId) {
+		return this.profiles.containsKey(uniqueId);
+	}
+
+	public synchronized boolean isWatchingServer(@NotNull String address) {
+		return this.servers.containsKey(address.toLowerCase());
+	}
+
+	public synchronized int getProfileCount() {
+		return this.profiles.size();
+	}
+
+	public synchronized int getServerCount() {
+		return this.servers.size();
+	}
+
+	public synchronized int getInFlightCount() {
+		return this.inFlight;
+	}
+
+	public synchronized long getRefreshCount() {
+		return this.refreshCount;
+	}
+
+	public synchronized long getFailureCount() {
+		return this.failureCount;
+	}
+
+	@Override
+	public void close() {
+		ScheduledExecutorService scheduler;
+		synchronized (this) {
+			this.closed = true;
+			this.profiles.clear();
+			this.servers.clear();
+			this.waiting.clear();
+			this.ready.clear();
+			scheduler = this.scheduler;
+		}
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	// Re-registering a key replaces its entry, because the queues cannot reorder an entry whose priority changed.
+	@NotNull
+	private <K> Entry register(@NotNull Map<K, Entry> entries, @NotNull K key, @NotNull Duration interval, @NotNull WatchPriority priority, @NotNull Supplier<CompletableFuture<?>> refresher) {
+		if (this.closed) {
+			throw new IllegalStateException("Watchlist is closed");
+		}
+		Entry entry = new Entry(refresher, interval.toNanos(), priority, this.sequence++);
+		Entry previousEntry = entries.put(key, entry);
+		if (previousEntry != null) {
+			previousEntry.removed = true;
+			entry.watched = previousEntry.watched;
+			entry.promoted = previousEntry.promoted;
+			entry.nextRefreshTime = previousEntry.nextRefreshTime;
+		} else {
+			long spread = Math.min(MAXIMUM_INITIAL_SPREAD, (long) (entry.interval * this.jitter));
+			entry.nextRefreshTime = System.nanoTime() + (spread > 0L ? ThreadLocalRandom.current().nextLong(spread) : 0L);
+		}
+		if (previousEntry != null && (previousEntry.running || previousEntry.waitingForPredecessor)) {
+			// Queued once the running refresh completes, so one key is never refreshed twice at the same time.
+			entry.waitingForPredecessor = true;
+			previousEntry.successor = entry;
+		} else {
+			this.waiting.add(entry);
+		}
+		this.scheduleWakeUp();
+		return entry;
+	}
+
+	private <K> void removeIfUnused(@NotNull Map<K, Entry> entries, @NotNull K key, @NotNull Entry entry) {
+		if (!entry.watched && !entry.promoted) {
+			entries.remove(key);
+			entry.removed = true;
+		}
+	}
+
+	private void pump() {
+		List<Entry> dueEntries = new ArrayList<>();
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			long now = System.nanoTime();
+			while (!this.waiting.isEmpty() && this.waiting.peek().nextRefreshTime - now <= 0L) {
+				Entry entry = this.waiting.poll();
+				if (!entry.removed) {
+					this.ready.add(entry);
+				}
+			}
+			while (this.inFlight < this.maximumInFlight && !this.ready.isEmpty()) {
+				Entry entry = this.ready.poll();
+				if (entry.removed) {
+					continue;
+				}
+				entry.running = true;
+				this.inFlight++;
+				dueEntries.add(entry);
+			}
+			this.scheduleWakeUp();
+		}
+		for (Entry entry : dueEntries) {
+			CompletableFuture<?> future;
+			try {
+				future = entry.refresher.get();
+			} catch (RuntimeException exception) {
+				future = CompletableFuture.failedFuture(exception);
+			}
+			future.whenComplete((value, throwable) -> this.onRefreshed(entry, throwable));
+		}
+	}
+
+	private void onRefreshed(@NotNull Entry entry, @Nullable Throwable throwable) {
+		synchronized (this) {
+			this.inFlight--;
+			this.refreshCount++;
+			if (throwable != null) {
+				this.failureCount++;
+			}
+			entry.running = false;
+			Entry nextEntry = entry;
+			while (nextEntry.successor != null) {
+				nextEntry = nextEntry.successor;
+			}
+			if (!nextEntry.removed && !this.closed) {
+				nextEntry.nextRefreshTime = System.nanoTime() + this.jittered(nextEntry.interval);
+				nextEntry.waitingForPredecessor = false;
+				this.waiting.add(nextEntry);
+			}
+			this.schedulePump();
+		}
+	}
+
+	// The freed slot is filled on the scheduler thread. Pumping right here would nest a pump inside the pump for every
+	// refresh that completes right away, until the stack overflows. Completions in a row share one scheduled pump.
+	private void schedulePump() {
+		if (this.pumpScheduled || this.closed) {
+			return;
+		}
+		this.pumpScheduled = true;
+		try {
+			this.getScheduler().execute(() -> {
+				synchronized (this) {
+					this.pumpScheduled = false;
+				}
+				this.pump();
+			});
+		} catch (RejectedExecutionException exception) {
+			this.pumpScheduled = false;
+		}
+	}
+
+	private long jittered(long interval) {
+		if (this.jitter == 0.0D) {
+			return interval;
+		}
+		return (long) (interval * ThreadLocalRandom.current().nextDouble(1.0D - this.jitter, 1.0D + this.jitter));
+	}
+
+	// The wake-up that is running is forgotten before it pumps, so the pump can schedule the next one. A replaced wake-up
+	// that already started leaves its successor alone.
+	private void onWakeUp(long generation) {
+		synchronized (this) {
+			if (this.wakeUpGeneration == generation) {
+				this.wakeUp = null;
+			}
+		}
+		this.pump();
+	}
+
+	// Only one wake-up is kept, for the earliest waiting entry.
+	private void scheduleWakeUp() {
+		Entry next = this.waiting.peek();
+		if (next == null || this.closed) {
+			return;
+		}
+		if (this.wakeUp != null && !this.wakeUp.isDone() && this.wakeUpTime - next.nextRefreshTime <= 0L) {
+			return;
+		}
+		if (this.wakeUp != null) {
+			this.wakeUp.cancel(false);
+		}
+		this.wakeUpTime = next.nextRefreshTime;
+		long generation = ++this.wakeUpGeneration;
+		try {
+			this.wakeUp = this.getScheduler().schedule(() -> this.onWakeUp(generation), Math.max(0L, next.nextRefreshTime - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException exception) {
+			this.wakeUp = null;
+		}
+	}
+
+	@NotNull
+	private ScheduledExecutorService getScheduler() {
+		if (this.scheduler == null) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "NameMCAPI Watchlist");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.scheduler;
+	}
+
+	private static void checkInterval(@NotNull Duration interval) {
+		if (interval.compareTo(MINIMUM_INTERVAL) < 0) {
+			throw new IllegalArgumentException("interval cannot be shorter than " + MINIMUM_INTERVAL.getSeconds() + " second");
+		}
+	}
+
+	@NotNull
+	private static Duration scale(@NotNull Duration duration, double factor) {
+		return Duration.ofNanos(Math.max(MINIMUM_INTERVAL.toNanos(), (long) (duration.toNanos() * factor)));
+	}
+
+	private static final class Entry {
+
+		@NotNull
+		private final Supplier<CompletableFuture<?>> refresher;
+		private final long interval;
+		@NotNull
+		private final WatchPriority priority;
+		private final long sequence;
+		private long nextRefreshTime;
+		private boolean watched;
+		private boolean promoted;
+		private boolean running;
+		private boolean removed;
+		private boolean waitingForPredecessor;
+		@Nullable
+		private Entry successor;
+
+		private Entry(@NotNull Supplier<CompletableFuture<?>> refresher, long interval, @NotNull WatchPriority priority, long sequence) {
+			this.refresher = refresher;
+			this.interval = interval;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+	}
+}
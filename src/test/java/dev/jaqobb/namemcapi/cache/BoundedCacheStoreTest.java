@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheStoreTest {
+
+	private final AtomicLong time = new AtomicLong();
+	private final Ticker ticker = this.time::get;
+
+	@Test
+	void putReplacesAndPutIfAbsentKeeps() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		assertNull(store.put("key", "first", Duration.ofMinutes(1L)));
+		assertEquals("first", store.put("key", "second", Duration.ofMinutes(1L)));
+		assertEquals("second", store.putIfAbsent("key", "third", Duration.ofMinutes(1L)));
+		assertEquals("second", store.get("key"));
+		assertEquals(1, store.size());
+		store.close();
+	}
+
+	@Test
+	void expiresEntriesOnTheTicker() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		RecordingListener<String, String> listener = new RecordingListener<>();
+		store.addListener(listener);
+		store.put("short", "value", Duration.ofSeconds(1L));
+		store.put("long", "value", Duration.ofMinutes(5L));
+		this.advance(Duration.ofMillis(900L));
+		store.cleanUp();
+		assertNotNull(store.get("short"));
+		this.advance(Duration.ofSeconds(2L));
+		store.cleanUp();
+		assertNull(store.get("short"));
+		assertNotNull(store.get("long"));
+		assertEquals(1L, store.getExpirationCount());
+		assertEquals(List.of("short:EXPIRED"), listener.removals);
+		store.close();
+	}
+
+	@Test
+	void hidesExpiredEntriesBeforeMaintenanceDropsThem() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		store.put("key", "value", Duration.ofSeconds(1L));
+		this.advance(Duration.ofSeconds(1L));
+		// The timer wheel has not dropped the entry yet, but it is past its time to live.
+		assertEquals(1, store.size());
+		assertNull(store.get("key"));
+		store.close();
+	}
+
+	@Test
+	void expiresEntriesOnEveryWheelLevel() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		Duration[] timesToLive = {Duration.ofMillis(500L), Duration.ofSeconds(30L), Duration.ofMinutes(90L), Duration.ofHours(30L), Duration.ofDays(10L)};
+		for (int entry = 0; entry < timesToLive.length; entry++) {
+			store.put("entry" + entry, "value", timesToLive[entry]);
+		}
+		for (int entry = 0; entry < timesToLive.length; entry++) {
+			this.time.set(timesToLive[entry].toNanos() - TimeUnit.MILLISECONDS.toNanos(1L));
+			store.cleanUp();
+			assertNotNull(store.get("entry" + entry), "entry" + entry + " expired early");
+			this.time.set(timesToLive[entry].toNanos() + TimeUnit.SECONDS.toNanos(2L));
+			store.cleanUp();
+			assertNull(store.get("entry" + entry), "entry" + entry + " did not expire");
+			assertEquals(timesToLive.length - entry - 1, store.size());
+		}
+		store.close();
+	}
+
+	@Test
+	void replacingAnEntryReschedulesItsExpiration() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		store.put("key", "first", Duration.ofSeconds(1L));
+		store.put("key", "second", Duration.ofMinutes(1L));
+		this.advance(Duration.ofSeconds(5L));
+		store.cleanUp();
+		assertEquals("second", store.get("key"));
+		store.close();
+	}
+
+	@Test
+	void evictsOnceTheWeightIsExceeded() {
+		BoundedCacheStore<Integer, String> store = new BoundedCacheStore<>(100L, String::length, this.ticker);
+		RecordingListener<Integer, String> listener = new RecordingListener<>();
+		store.addListener(listener);
+		for (int key = 0; key < 50; key++) {
+			store.put(key, "0123456789", Duration.ofMinutes(1L));
+		}
+		assertEquals(100L, store.getWeightedSize());
+		assertEquals(10, store.size());
+		assertEquals(40L, store.getEvictionCount());
+		assertEquals(40, listener.removals.size());
+		assertTrue(listener.removals.stream().allMatch(removal -> removal.endsWith(":SIZE")));
+		store.close();
+	}
+
+	@Test
+	void keepsFrequentlyUsedEntriesOverOneHitWonders() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		for (int key = 0; key < 5; key++) {
+			store.put("hot" + key, "value", Duration.ofMinutes(1L));
+		}
+		for (int access = 0; access < 10; access++) {
+			for (int key = 0; key < 5; key++) {
+				store.get("hot" + key);
+			}
+		}
+		// Ten inserts between two reads of the hot entries would push all of them out of a plain LRU of this size.
+		for (int key = 0; key < 1000; key++) {
+			store.put("cold" + key, "value", Duration.ofMinutes(1L));
+			if (key % 10 == 9) {
+				for (int hotKey = 0; hotKey < 5; hotKey++) {
+					assertNotNull(store.get("hot" + hotKey), "hot" + hotKey + " was evicted");
+				}
+			}
+		}
+		for (int key = 0; key < 5; key++) {
+			assertNotNull(store.get("hot" + key), "hot" + key + " was evicted");
+		}
+		assertTrue(store.size() <= 10);
+		store.close();
+	}
+
+	@Test
+	void removeAndClearNotifyListeners() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		RecordingListener<String, String> listener = new RecordingListener<>();
+		store.addListener(listener);
+		store.put("first", "value", Duration.ofMinutes(1L));
+		store.put("second", "value", Duration.ofMinutes(1L));
+		assertEquals("value", store.remove("first"));
+		assertNull(store.remove("first"));
+		store.clear();
+		assertEquals(0, store.size());
+		assertEquals(0L, store.getWeightedSize());
+		assertEquals(List.of("first:EXPLICIT", "second:EXPLICIT"), listener.removals);
+		assertEquals(List.of("first", "second"), listener.puts);
+		store.close();
+	}
+
+	@Test
+	void staysWithinItsBoundsUnderConcurrentUse() throws Exception {
+		BoundedCacheStore<Integer, Integer> store = new BoundedCacheStore<>(500L, value -> 1 + (value & 3), this.ticker);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				futures.add(executor.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int operation = 0; operation < 20_000; operation++) {
+						int key = random.nextInt(2_000);
+						switch (random.nextInt(4)) {
+							case 0:
+								store.put(key, key, Duration.ofSeconds(1L + random.nextInt(60)));
+								break;
+							case 1:
+								store.remove(key);
+								break;
+							default:
+								Integer value = store.get(key);
+								if (value != null && value != key) {
+									throw new AssertionError("key " + key + " mapped to " + value);
+								}
+								break;
+						}
+						if (operation % 1_000 == 0) {
+							this.time.addAndGet(TimeUnit.SECONDS.toNanos(1L));
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30L, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		store.cleanUp();
+		assertTrue(store.getWeightedSize() <= 500L);
+		long weight = 0L;
+		for (Integer value : store.values()) {
+			weight += 1 + (value & 3);
+		}
+		assertEquals(weight, store.getWeightedSize());
+		store.close();
+	}
+
+	@Test
+	void keepsTheValidityGivenToPutOnTheTicker() {
+		BoundedCacheStore<String, String> store = new BoundedCacheStore<>(10L, value -> 1, this.ticker);
+		String value = "value";
+		store.put("key", value, Duration.ofMinutes(5L), Duration.ofMinutes(1L));
+		store.put("unknown", value, Duration.ofMinutes(5L));
+		assertEquals(Duration.ofMinutes(1L).toNanos(), store.getRemainingValidity("key", value));
+		assertEquals(CacheStore.UNKNOWN_VALIDITY, store.getRemainingValidity("key", new String(value)));
+		assertEquals(CacheStore.UNKNOWN_VALIDITY, store.getRemainingValidity("unknown", value));
+		assertEquals(CacheStore.UNKNOWN_VALIDITY, store.getRemainingValidity("missing", value));
+		this.advance(Duration.ofSeconds(90L));
+		assertEquals(-Duration.ofSeconds(30L).toNanos(), store.getRemainingValidity("key", value));
+		assertNull(store.getIfValid("key", any -> true));
+		// Without a known validity, the given check decides.
+		assertEquals(value, store.getIfValid("unknown", any -> true));
+		assertNull(store.getIfValid("unknown", any -> false));
+		assertEquals(value, store.get("key"));
+		store.close();
+	}
+
+	private void advance(@NotNull Duration duration) {
+		this.time.addAndGet(duration.toNanos());
+	}
+
+	private static final class RecordingListener<K, V> implements CacheListener<K, V> {
+
+		private final List<String> puts = new ArrayList<>();
+		private final List<String> removals = new ArrayList<>();
+
+		@Override
+		public void onPut(@NotNull K key, @NotNull V value, @Nullable V oldValue) {
+			this.puts.add(String.valueOf(key));
+		}
+
+		@Override
+		public void onRemoval(@NotNull K key, @NotNull V value, @NotNull RemovalCause cause) {
+			this.removals.add(key + ":" + cause);
+		}
+	}
+}
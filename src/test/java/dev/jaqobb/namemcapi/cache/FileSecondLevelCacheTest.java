@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.cache;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSecondLevelCacheTest {
+
+	private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5L);
+
+	private Path directory;
+	private FileSecondLevelCache cache;
+
+	@BeforeEach
+	void createCache() throws IOException {
+		this.directory = Files.createTempDirectory("second-level");
+		this.cache = new FileSecondLevelCache(this.directory, Runnable::run);
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		this.cache.close();
+		try (Stream<Path> paths = Files.walk(this.directory)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	void readsBackWhatWasWritten() {
+		byte[] value = {1, 2, 3, 4, 5};
+		this.cache.put("profiles", "key", value, TIME_TO_LIVE).join();
+		assertArrayEquals(value, this.cache.get("profiles", "key").join());
+		assertNull(this.cache.get("servers", "key").join());
+		assertNull(this.cache.get("profiles", "other").join());
+		this.cache.remove("profiles", "key").join();
+		assertNull(this.cache.get("profiles", "key").join());
+	}
+
+	@Test
+	void deletesExpiredEntriesWhenReadingThem() throws IOException {
+		this.cache.put("profiles", "key", new byte[] {1}, Duration.ofMillis(-1L)).join();
+		assertEquals(1, this.countFiles());
+		assertNull(this.cache.get("profiles", "key").join());
+		assertEquals(0, this.countFiles());
+	}
+
+	@Test
+	void readsCorruptAndTruncatedFilesAsMisses() throws IOException {
+		byte[] value = new byte[100];
+		Arrays.fill(value, (byte) 7);
+		this.cache.put("profiles", "key", value, TIME_TO_LIVE).join();
+		Path file = this.getOnlyFile();
+		byte[] content = Files.readAllBytes(file);
+		content[content.length - 1] ^= 1;
+		Files.write(file, content);
+		assertNull(this.cache.get("profiles", "key").join());
+		Files.write(file, Arrays.copyOf(content, content.length / 2));
+		assertNull(this.cache.get("profiles", "key").join());
+		Files.write(file, new byte[3]);
+		assertNull(this.cache.get("profiles", "key").join());
+		this.cache.put("profiles", "key", value, TIME_TO_LIVE).join();
+		assertArrayEquals(value, this.cache.get("profiles", "key").join());
+	}
+
+	@Test
+	void readersNeverSeeTornValuesWhileWritersReplaceThem() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int writer = 0; writer < 3; writer++) {
+				int seed = writer;
+				futures.add(executor.submit(() -> {
+					for (int round = 0; round < 300; round++) {
+						// Every value is filled with its own length, so a reader can tell a whole value from a torn one.
+						int length = 1 + (round * 31 + seed * 17) % 4000;
+						byte[] value = new byte[length];
+						Arrays.fill(value, (byte) length);
+						if (round % 10 == 9) {
+							this.cache.remove("profiles", "key").join();
+						} else {
+							this.cache.put("profiles", "key", value, TIME_TO_LIVE).join();
+						}
+					}
+				}));
+			}
+			for (int reader = 0; reader < 3; reader++) {
+				futures.add(executor.submit(() -> {
+					for (int round = 0; round < 1000; round++) {
+						byte[] value = this.cache.get("profiles", "key").join();
+						if (value == null) {
+							continue;
+						}
+						for (int index = 0; index < value.length; index++) {
+							assertEquals((byte) value.length, value[index]);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30L, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		// No temporary files are left behind.
+		assertTrue(this.countFiles() <= 1);
+		assertEquals(0, this.cache.cleanUp());
+		assertFalse(this.cache.get("profiles", "key").isCompletedExceptionally());
+	}
+
+	private int countFiles() throws IOException {
+		try (Stream<Path> paths = Files.walk(this.directory)) {
+			return (int) paths.filter(Files::isRegularFile).count();
+		}
+	}
+
+	private Path getOnlyFile() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory.resolve("profiles"))) {
+			List<Path> paths = new ArrayList<>();
+			files.forEach(paths::add);
+			assertEquals(1, paths.size());
+			return paths.get(0);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+	@Test
+	void countsIncrementsUpToFifteen() {
+		FrequencySketch sketch = new FrequencySketch(1_000L);
+		int hash = FrequencySketch.spread("key".hashCode());
+		assertEquals(0, sketch.frequency(hash));
+		for (int increment = 1; increment <= 20; increment++) {
+			sketch.increment(hash);
+			assertEquals(Math.min(increment, 15), sketch.frequency(hash));
+		}
+	}
+
+	@Test
+	void neverUnderestimates() {
+		FrequencySketch sketch = new FrequencySketch(1_000L);
+		for (int key = 0; key < 500; key++) {
+			for (int increment = 0; increment < key % 10; increment++) {
+				sketch.increment(FrequencySketch.spread(key));
+			}
+		}
+		for (int key = 0; key < 500; key++) {
+			assertTrue(sketch.frequency(FrequencySketch.spread(key)) >= key % 10, "key " + key + " was underestimated");
+		}
+	}
+
+	@Test
+	void halvesEveryCounterOnceTheSampleIsFull() {
+		FrequencySketch sketch = new FrequencySketch(16L);
+		int hotHash = FrequencySketch.spread(-1);
+		for (int increment = 0; increment < 12; increment++) {
+			sketch.increment(hotHash);
+		}
+		assertEquals(12, sketch.frequency(hotHash));
+		// The sample size is ten times the capacity, so this many distinct keys triggers at least one reset.
+		for (int key = 0; key < 400; key++) {
+			sketch.increment(FrequencySketch.spread(key));
+		}
+		assertTrue(sketch.frequency(hotHash) < 12, "counters were not aged");
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LookupStatusTest {
+
+	@Test
+	void treatsRejectedKeysAsNotFound() {
+		assertEquals(LookupStatus.NOT_FOUND, LookupStatus.of(new HttpStatusException(400, "/server/bad/likes")));
+		assertEquals(LookupStatus.NOT_FOUND, LookupStatus.of(new HttpStatusException(404, "/server/unknown/likes")));
+		assertEquals(LookupStatus.NOT_FOUND, LookupStatus.of(new HttpStatusException(410, "/server/gone/likes")));
+		assertEquals(LookupStatus.NOT_FOUND, LookupStatus.of(new CompletionException(new HttpStatusException(404, "/server/unknown/likes"))));
+	}
+
+	@Test
+	void treatsEverythingElseAsFailed() {
+		assertEquals(LookupStatus.FAILED, LookupStatus.of(new HttpStatusException(500, "/server/broken/likes")));
+		assertEquals(LookupStatus.FAILED, LookupStatus.of(new HttpStatusException(429, "/server/busy/likes")));
+		assertEquals(LookupStatus.FAILED, LookupStatus.of(new IOException("Connection reset")));
+		assertEquals(LookupStatus.FAILED, LookupStatus.of(new RejectedExecutionException("Rate limiter queue is full")));
+	}
+
+	@Test
+	void unwrapsTheFailureOfAResult() {
+		IOException exception = new IOException("Connection reset");
+		LookupResult<String> result = LookupResult.failed(new CompletionException(exception));
+		assertTrue(result.isFailed());
+		assertSame(exception, result.getFailure());
+		assertNull(result.getValue());
+		assertThrows(NoSuchElementException.class, result::getValueOrThrow);
+		LookupResult<String> found = LookupResult.found("value");
+		assertTrue(found.isFound());
+		assertEquals("value", found.getValueOrThrow());
+		assertNull(found.getFailure());
+	}
+}
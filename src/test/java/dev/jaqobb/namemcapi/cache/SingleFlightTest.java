@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+	@Test
+	void coalescesConcurrentCallsForTheSameKey() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		AtomicInteger loads = new AtomicInteger();
+		int callers = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<CompletableFuture<String>>> futures = new ArrayList<>();
+			for (int caller = 0; caller < callers; caller++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return singleFlight.execute("key", () -> {
+						loads.incrementAndGet();
+						return load;
+					});
+				}));
+			}
+			start.countDown();
+			List<CompletableFuture<String>> results = new ArrayList<>();
+			for (Future<CompletableFuture<String>> future : futures) {
+				results.add(future.get(5L, TimeUnit.SECONDS));
+			}
+			assertEquals(1, loads.get());
+			assertEquals(callers - 1, singleFlight.getCoalescedCount());
+			assertTrue(singleFlight.isInFlight("key"));
+			load.complete("value");
+			for (CompletableFuture<String> result : results) {
+				assertEquals("value", result.get(5L, TimeUnit.SECONDS));
+			}
+			assertFalse(singleFlight.isInFlight("key"));
+			assertEquals(0, singleFlight.getInFlightCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loadsDifferentKeysSeparately() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> first = singleFlight.execute("first", CompletableFuture::new);
+		CompletableFuture<String> second = singleFlight.execute("second", CompletableFuture::new);
+		assertEquals(2, singleFlight.getInFlightCount());
+		assertEquals(0L, singleFlight.getCoalescedCount());
+		assertNotSame(first, second);
+	}
+
+	@Test
+	void releasesTheKeyAfterAFailure() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		IllegalStateException failure = new IllegalStateException("failed");
+		CompletableFuture<String> failed = singleFlight.execute("key", () -> CompletableFuture.failedFuture(failure));
+		CompletionException exception = assertThrows(CompletionException.class, failed::join);
+		assertSame(failure, exception.getCause());
+		assertFalse(singleFlight.isInFlight("key"));
+		assertEquals("value", singleFlight.execute("key", () -> CompletableFuture.completedFuture("value")).join());
+	}
+
+	@Test
+	void turnsAThrowingLoaderIntoAFailedFuture() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> future = singleFlight.execute("key", () -> {
+			throw new IllegalArgumentException("broken");
+		});
+		assertTrue(future.isCompletedExceptionally());
+		assertFalse(singleFlight.isInFlight("key"));
+	}
+
+	@Test
+	void keepsTheLoadWhileAnotherCallerWaits() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		CompletableFuture<String> first = singleFlight.executeCancellable("key", () -> load);
+		CompletableFuture<String> second = singleFlight.executeCancellable("key", () -> load);
+		first.cancel(true);
+		assertFalse(load.isCancelled());
+		load.complete("value");
+		assertEquals("value", second.join());
+	}
+
+	@Test
+	void cancelsTheLoadOnceEveryCallerDetached() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<String> first = singleFlight.executeCancellable("key", () -> {
+			loads.incrementAndGet();
+			return load;
+		});
+		CompletableFuture<String> second = singleFlight.executeCancellable("key", CompletableFuture::new);
+		first.cancel(true);
+		second.completeExceptionally(new IllegalStateException("timed out"));
+		assertTrue(load.isCancelled());
+		assertFalse(singleFlight.isInFlight("key"));
+		// A new caller starts a fresh load instead of joining the cancelled one.
+		CompletableFuture<String> third = singleFlight.executeCancellable("key", () -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture("value");
+		});
+		assertEquals("value", third.join());
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void pinnedCallsAreNeverCancelled() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		CompletableFuture<String> cancellable = singleFlight.executeCancellable("key", () -> load);
+		CompletableFuture<String> pinned = singleFlight.execute("key", () -> load);
+		cancellable.cancel(true);
+		assertFalse(load.isCancelled());
+		load.complete("value");
+		assertEquals("value", pinned.join());
+	}
+
+	@Test
+	void awaitInFlightWaitsForEveryCall() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		singleFlight.execute("key", () -> load);
+		Thread completer = new Thread(() -> {
+			try {
+				Thread.sleep(100L);
+			} catch (InterruptedException ignored) {
+			}
+			load.completeExceptionally(new IllegalStateException("failed"));
+		});
+		completer.start();
+		singleFlight.awaitInFlight();
+		assertEquals(0, singleFlight.getInFlightCount());
+		completer.join();
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFileTest {
+
+	private static final int MAGIC = 0x54455354;
+	private static final SnapshotFile.Encoder<String> ENCODER = (value, output) -> output.writeUTF(value);
+	private static final SnapshotFile.Decoder<String> DECODER = (buffer, version) -> {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	};
+
+	private Path directory;
+	private Path path;
+
+	@BeforeEach
+	void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("snapshot");
+		this.path = this.directory.resolve("values.snapshot");
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	@Test
+	void readsBackWhatWasWritten() throws IOException {
+		List<String> values = new ArrayList<>();
+		for (int index = 0; index < 1000; index++) {
+			values.add("value-" + index);
+		}
+		assertEquals(1000, SnapshotFile.write(this.path, MAGIC, 1, values, ENCODER));
+		List<String> read = new ArrayList<>();
+		assertEquals(1000, SnapshotFile.read(this.path, MAGIC, 1, DECODER, read::add));
+		assertIterableEquals(values, read);
+		// Only the snapshot itself is left behind, the temporary file was moved into place.
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			assertEquals(1L, paths.count());
+		}
+	}
+
+	@Test
+	void replacesAnExistingSnapshot() throws IOException {
+		SnapshotFile.write(this.path, MAGIC, 1, List.of("old"), ENCODER);
+		SnapshotFile.write(this.path, MAGIC, 1, List.of("new"), ENCODER);
+		List<String> read = new ArrayList<>();
+		SnapshotFile.read(this.path, MAGIC, 1, DECODER, read::add);
+		assertIterableEquals(List.of("new"), read);
+	}
+
+	@Test
+	void skipsRecordsWithABadChecksum() throws IOException {
+		SnapshotFile.write(this.path, MAGIC, 1, List.of("alpha", "bravo", "charlie"), ENCODER);
+		byte[] bytes = Files.readAllBytes(this.path);
+		// Header (8 bytes), "alpha" (8 + 7 bytes), then the length and checksum of "bravo" and its UTF length.
+		bytes[8 + 15 + 8 + 2] ^= 1;
+		Files.write(this.path, bytes);
+		List<String> read = new ArrayList<>();
+		assertEquals(2, SnapshotFile.read(this.path, MAGIC, 1, DECODER, read::add));
+		assertIterableEquals(List.of("alpha", "charlie"), read);
+	}
+
+	@Test
+	void skipsRecordsThatFailToDecode() throws IOException {
+		SnapshotFile.write(this.path, MAGIC, 1, List.of("alpha", "bravo", "charlie"), ENCODER);
+		List<String> read = new ArrayList<>();
+		SnapshotFile.Decoder<String> decoder = (buffer, version) -> {
+			String value = DECODER.decode(buffer, version);
+			if (value.equals("bravo")) {
+				throw new IOException("Malformed value");
+			}
+			return value;
+		};
+		assertEquals(2, SnapshotFile.read(this.path, MAGIC, 1, decoder, read::add));
+		assertIterableEquals(List.of("alpha", "charlie"), read);
+	}
+
+	@Test
+	void stopsAtATruncatedRecord() throws IOException {
+		SnapshotFile.write(this.path, MAGIC, 1, List.of("alpha", "bravo", "charlie"), ENCODER);
+		byte[] bytes = Files.readAllBytes(this.path);
+		Files.write(this.path, Arrays.copyOf(bytes, bytes.length - 1));
+		List<String> read = new ArrayList<>();
+		assertEquals(2, SnapshotFile.read(this.path, MAGIC, 1, DECODER, read::add));
+		assertIterableEquals(List.of("alpha", "bravo"), read);
+	}
+
+	@Test
+	void rejectsForeignAndNewerSnapshots() throws IOException {
+		SnapshotFile.write(this.path, MAGIC, 2, List.of("alpha"), ENCODER);
+		assertThrows(IOException.class, () -> SnapshotFile.read(this.path, MAGIC + 1, 2, DECODER, value -> {
+		}));
+		assertThrows(IOException.class, () -> SnapshotFile.read(this.path, MAGIC, 1, DECODER, value -> {
+		}));
+		Files.write(this.path, ByteBuffer.allocate(4).putInt(MAGIC).array());
+		assertThrows(IOException.class, () -> SnapshotFile.read(this.path, MAGIC, 2, DECODER, value -> {
+		}));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+	@Test
+	void expiresNodesOnceTheirTimeHasPassed() {
+		long origin = 1_000L;
+		TimerWheel<String, String> wheel = new TimerWheel<>(origin);
+		long[] delays = {TimeUnit.MILLISECONDS.toNanos(10L), TimeUnit.SECONDS.toNanos(5L), TimeUnit.MINUTES.toNanos(3L), TimeUnit.HOURS.toNanos(5L), TimeUnit.DAYS.toNanos(2L), TimeUnit.DAYS.toNanos(30L)};
+		for (int node = 0; node < delays.length; node++) {
+			wheel.schedule(new CacheNode<>("node" + node, "value", 1, origin + delays[node]));
+		}
+		List<String> expired = new ArrayList<>();
+		for (int node = 0; node < delays.length; node++) {
+			wheel.advance(origin + delays[node] - 1L, expiredNode -> expired.add(expiredNode.key));
+			assertEquals(node, expired.size(), "node" + node + " expired early");
+			wheel.advance(origin + delays[node] + TimeUnit.SECONDS.toNanos(2L), expiredNode -> expired.add(expiredNode.key));
+			assertEquals(node + 1, expired.size(), "node" + node + " did not expire");
+			assertEquals("node" + node, expired.get(node));
+		}
+	}
+
+	@Test
+	void keepsNodesTheExpirerRejects() {
+		TimerWheel<String, String> wheel = new TimerWheel<>(0L);
+		CacheNode<String, String> node = new CacheNode<>("key", "value", 1, TimeUnit.SECONDS.toNanos(1L));
+		wheel.schedule(node);
+		wheel.advance(TimeUnit.SECONDS.toNanos(3L), expiredNode -> false);
+		List<String> expired = new ArrayList<>();
+		node.expirationTime = TimeUnit.SECONDS.toNanos(10L);
+		wheel.reschedule(node);
+		wheel.advance(TimeUnit.SECONDS.toNanos(5L), expiredNode -> expired.add(expiredNode.key));
+		assertTrue(expired.isEmpty());
+		wheel.advance(TimeUnit.SECONDS.toNanos(12L), expiredNode -> expired.add(expiredNode.key));
+		assertEquals(List.of("key"), expired);
+	}
+
+	@Test
+	void descheduledNodesNeverExpire() {
+		TimerWheel<String, String> wheel = new TimerWheel<>(0L);
+		CacheNode<String, String> node = new CacheNode<>("key", "value", 1, TimeUnit.SECONDS.toNanos(1L));
+		wheel.schedule(node);
+		wheel.deschedule(node);
+		List<String> expired = new ArrayList<>();
+		wheel.advance(TimeUnit.MINUTES.toNanos(1L), expiredNode -> expired.add(expiredNode.key));
+		assertTrue(expired.isEmpty());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingHttpTransportTest {
+
+	private static final int WARM_UP_REQUESTS = 20;
+
+	@Test
+	void cancelsAndClosesTheSlowAttemptWhenTheHedgeWins() throws Exception {
+		AtomicBoolean primaryCancelled = new AtomicBoolean();
+		AtomicBoolean primaryClosed = new AtomicBoolean();
+		// Cancelling does not reach this attempt in time, so it still answers once the hedge has won.
+		CompletableFuture<Response> primary = new CompletableFuture<>() {
+
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				primaryCancelled.set(true);
+				return false;
+			}
+		};
+		Response hedgeResponse = StubTransport.response(200, "hedge");
+		AtomicInteger requestCount = new AtomicInteger();
+		StubTransport delegate = new StubTransport(request -> {
+			int index = requestCount.getAndIncrement();
+			if (index == WARM_UP_REQUESTS) {
+				return primary;
+			}
+			return CompletableFuture.completedFuture(index < WARM_UP_REQUESTS ? StubTransport.response(200, "") : hedgeResponse);
+		});
+		try (HedgingHttpTransport transport = new HedgingHttpTransport(delegate, 95.0D, 0.5D, Duration.ofMillis(10L))) {
+			assertNull(transport.getHedgeDelay());
+			for (int index = 0; index < WARM_UP_REQUESTS; index++) {
+				transport.send(new Request("/warm")).get(5L, TimeUnit.SECONDS);
+			}
+			assertEquals(Duration.ofMillis(10L), transport.getHedgeDelay());
+			assertSame(hedgeResponse, transport.send(new Request("/slow")).get(5L, TimeUnit.SECONDS));
+			assertEquals(WARM_UP_REQUESTS + 2, delegate.getRequestCount());
+			assertEquals(1L, transport.getHedgedCount());
+			assertEquals(1L, transport.getHedgeWinCount());
+			assertTrue(primaryCancelled.get());
+			primary.complete(new Response(200, Map.of(), new ByteArrayInputStream(new byte[0]) {
+
+				@Override
+				public void close() {
+					primaryClosed.set(true);
+				}
+			}));
+			assertTrue(primaryClosed.get());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.http;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpClientTransportTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private HttpServer server;
+	private HttpClientTransport transport;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/complete", exchange -> {
+			byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		});
+		// Sends the headers and the start of the body, then stops until the test ends.
+		this.server.createContext("/stalled", exchange -> {
+			exchange.sendResponseHeaders(200, 1000L);
+			OutputStream output = exchange.getResponseBody();
+			output.write(new byte[100]);
+			output.flush();
+			try {
+				this.release.await(30L, TimeUnit.SECONDS);
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		});
+		this.server.start();
+		URI baseUri = URI.create("http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort());
+		this.transport = new HttpClientTransport(baseUri, Duration.ofSeconds(5L), Duration.ofMillis(500L));
+	}
+
+	@AfterEach
+	void stopServer() {
+		this.release.countDown();
+		this.server.stop(0);
+	}
+
+	@Test
+	void readsCompleteBodies() throws Exception {
+		try (Response response = this.transport.send(new Request("/complete")).get(5L, TimeUnit.SECONDS)) {
+			assertEquals(200, response.getStatusCode());
+			assertEquals("[]", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void timesOutBodiesThatStall() throws Exception {
+		try (Response response = this.transport.send(new Request("/stalled")).get(5L, TimeUnit.SECONDS)) {
+			InputStream body = response.getBody();
+			long start = System.nanoTime();
+			assertThrows(HttpTimeoutException.class, body::readAllBytes);
+			long elapsed = System.nanoTime() - start;
+			assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(400L));
+			assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5L));
+			// Reading again fails right away instead of blocking.
+			assertThrows(HttpTimeoutException.class, body::read);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import dev.jaqobb.namemcapi.metrics.MetricsListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeteredHttpTransportTest {
+
+	@Test
+	void reportsResponsesAndFailures() {
+		List<CompletableFuture<Response>> responses = new ArrayList<>();
+		StubTransport delegate = new StubTransport(request -> {
+			CompletableFuture<Response> response = new CompletableFuture<>();
+			responses.add(response);
+			return response;
+		});
+		MeteredHttpTransport transport = new MeteredHttpTransport(delegate, "NameMC");
+		List<String> events = new ArrayList<>();
+		transport.addListener(new MetricsListener() {
+
+			@Override
+			public void onResponse(@NotNull String source, int statusCode, long responseTime) {
+				events.add(source + " " + statusCode);
+			}
+
+			@Override
+			public void onFailure(@NotNull String source, @NotNull Throwable throwable) {
+				events.add(source + " " + throwable.getMessage());
+			}
+		});
+		CompletableFuture<Response> ok = transport.send(new Request("/ok"));
+		CompletableFuture<Response> missing = transport.send(new Request("/missing"));
+		CompletableFuture<Response> broken = transport.send(new Request("/broken"));
+		CompletableFuture<Response> abandoned = transport.send(new Request("/abandoned"));
+		// The caller gets the delegate's future, so cancelling it reaches the delegate.
+		assertSame(responses.get(3), abandoned);
+		responses.get(0).complete(StubTransport.response(200, ""));
+		responses.get(1).complete(StubTransport.response(404, ""));
+		responses.get(2).completeExceptionally(new IOException("Connection reset"));
+		abandoned.cancel(true);
+		assertTrue(ok.isDone() && missing.isDone() && broken.isDone());
+		assertEquals(List.of("NameMC 200", "NameMC 404", "NameMC Connection reset"), events);
+		assertEquals(2L, transport.getResponseCount());
+		assertEquals(1L, transport.getFailureCount());
+		assertEquals(2L, transport.getResponseTime().getCount());
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitedHttpTransportTest {
+
+	@Test
+	void keepsInFlightRequestsWithinTheConcurrencyLimit() throws Exception {
+		List<CompletableFuture<Response>> responses = new ArrayList<>();
+		StubTransport delegate = new StubTransport(request -> {
+			CompletableFuture<Response> response = new CompletableFuture<>();
+			responses.add(response);
+			return response;
+		});
+		// A maximum concurrency of 4 starts the adaptive limit at a single request.
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 4, 10)) {
+			CompletableFuture<Response> first = transport.send(new Request("/first"));
+			CompletableFuture<Response> second = transport.send(new Request("/second"));
+			CompletableFuture<Response> third = transport.send(new Request("/third"));
+			assertEquals(1, delegate.getRequestCount());
+			assertEquals(1, transport.getInFlightCount());
+			assertEquals(2, transport.getQueuedCount());
+			responses.get(0).complete(StubTransport.response(200, ""));
+			assertEquals(200, first.get(5L, TimeUnit.SECONDS).getStatusCode());
+			// The success grows the limit to two, letting both waiting requests through.
+			assertEquals(2.0D, transport.getConcurrencyLimit(), 0.0D);
+			assertEquals(3, delegate.getRequestCount());
+			assertEquals("/second", delegate.getRequests().get(1).getPath());
+			assertEquals(2, transport.getInFlightCount());
+			responses.get(1).complete(StubTransport.response(200, ""));
+			second.get(5L, TimeUnit.SECONDS);
+			responses.get(2).complete(StubTransport.response(200, ""));
+			third.get(5L, TimeUnit.SECONDS);
+			assertEquals(0, transport.getInFlightCount());
+			assertEquals(0, transport.getQueuedCount());
+		}
+	}
+
+	@Test
+	void rejectsRequestsOnceTheQueueIsFull() {
+		StubTransport delegate = new StubTransport(request -> new CompletableFuture<>());
+		RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 4, 1);
+		transport.send(new Request("/dispatched"));
+		CompletableFuture<Response> queued = transport.send(new Request("/queued"));
+		CompletableFuture<Response> rejected = transport.send(new Request("/rejected"));
+		assertTrue(rejected.isCompletedExceptionally());
+		ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+		assertTrue(exception.getCause() instanceof RejectedExecutionException);
+		assertEquals(1L, transport.getRejectedCount());
+		transport.close();
+		assertThrows(ExecutionException.class, queued::get);
+	}
+
+	@Test
+	void freesTheQueueSlotsOfRequestsGivenUpOn() {
+		StubTransport delegate = new StubTransport(request -> new CompletableFuture<>());
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 4, 1)) {
+			transport.send(new Request("/dispatched"));
+			transport.send(new Request("/cancelled")).cancel(true);
+			assertEquals(0, transport.getQueuedCount());
+			CompletableFuture<Response> timedOut = transport.send(new Request("/timedOut"));
+			timedOut.completeExceptionally(new TimeoutException());
+			assertEquals(0, transport.getQueuedCount());
+			CompletableFuture<Response> queued = transport.send(new Request("/queued"));
+			assertFalse(queued.isDone());
+			assertEquals(1, transport.getQueuedCount());
+			assertEquals(0L, transport.getRejectedCount());
+		}
+	}
+
+	@Test
+	void spendsTokensAndWaitsForTheBucketToRefill() throws Exception {
+		StubTransport delegate = StubTransport.answering(200, "");
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 4.0D, 2, 16, 10)) {
+			long start = System.nanoTime();
+			transport.send(new Request("/first"));
+			transport.send(new Request("/second"));
+			CompletableFuture<Response> third = transport.send(new Request("/third"));
+			assertEquals(2, delegate.getRequestCount());
+			assertEquals(200, third.get(5L, TimeUnit.SECONDS).getStatusCode());
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200L));
+			assertEquals(3, delegate.getRequestCount());
+		}
+	}
+
+	@Test
+	void retriesThrottledRequestsAfterRetryAfter() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		StubTransport delegate = new StubTransport(request -> CompletableFuture.completedFuture(attempts.getAndIncrement() == 0 ? StubTransport.response(429, "", Map.of("Retry-After", "1")) : StubTransport.response(200, "")));
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 16, 10)) {
+			long start = System.nanoTime();
+			Response response = transport.send(new Request("/throttled")).get(5L, TimeUnit.SECONDS);
+			assertEquals(200, response.getStatusCode());
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900L));
+			assertEquals(2, delegate.getRequestCount());
+			assertEquals(1L, transport.getThrottledCount());
+			assertEquals(2.5D, transport.getConcurrencyLimit(), 0.0D);
+		}
+	}
+
+	@Test
+	void givesUpAfterTheMaximumRetries() throws Exception {
+		StubTransport delegate = new StubTransport(request -> CompletableFuture.completedFuture(StubTransport.response(503, "", Map.of("Retry-After", "0"))));
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 16, 10)) {
+			assertEquals(503, transport.send(new Request("/unavailable")).get(5L, TimeUnit.SECONDS).getStatusCode());
+			assertEquals(3, delegate.getRequestCount());
+			assertEquals(3L, transport.getThrottledCount());
+		}
+	}
+
+	@Test
+	void halvesTheLimitOnFailuresButNotOnCancellations() throws Exception {
+		CompletableFuture<Response> pending = new CompletableFuture<>();
+		AtomicInteger attempts = new AtomicInteger();
+		StubTransport delegate = new StubTransport(request -> attempts.getAndIncrement() == 0 ? pending : CompletableFuture.failedFuture(new IllegalStateException("Connection reset")));
+		try (RateLimitedHttpTransport transport = new RateLimitedHttpTransport(delegate, 1000.0D, 100, 16, 10)) {
+			CompletableFuture<Response> cancelled = transport.send(new Request("/cancelled"));
+			cancelled.cancel(false);
+			assertTrue(pending.isCancelled());
+			assertThrows(CancellationException.class, cancelled::join);
+			assertEquals(4.0D, transport.getConcurrencyLimit(), 0.0D);
+			assertEquals(0, transport.getInFlightCount());
+			ExecutionException exception = assertThrows(ExecutionException.class, () -> transport.send(new Request("/failed")).get(5L, TimeUnit.SECONDS));
+			assertTrue(exception.getCause() instanceof IllegalStateException);
+			assertEquals(2.0D, transport.getConcurrencyLimit(), 0.0D);
+		}
+	}
+}
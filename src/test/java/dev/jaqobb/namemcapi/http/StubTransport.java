@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.http;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+
+// Answers requests without a network, recording every request it receives.
+public final class StubTransport implements HttpTransport {
+
+	@NotNull
+	private final Function<Request, CompletableFuture<Response>> handler;
+	@NotNull
+	private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+
+	public StubTransport(@NotNull Function<Request, CompletableFuture<Response>> handler) {
+		this.handler = handler;
+	}
+
+	@NotNull
+	public static StubTransport answering(int statusCode, @NotNull String body) {
+		return new StubTransport(request -> CompletableFuture.completedFuture(response(statusCode, body)));
+	}
+
+	@NotNull
+	public static Response response(int statusCode, @NotNull String body) {
+		return response(statusCode, body, Collections.emptyMap());
+	}
+
+	@NotNull
+	public static Response response(int statusCode, @NotNull String body, @NotNull Map<String, String> headers) {
+		Map<String, List<String>> headerValues = new HashMap<>();
+		headers.forEach((name, value) -> headerValues.put(name, List.of(value)));
+		return new Response(statusCode, headerValues, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@NotNull
+	@Override
+	public CompletableFuture<Response> send(@NotNull Request request) {
+		this.requests.add(request);
+		return this.handler.apply(request);
+	}
+
+	@NotNull
+	public List<Request> getRequests() {
+		synchronized (this.requests) {
+			return new ArrayList<>(this.requests);
+		}
+	}
+
+	public int getRequestCount() {
+		return this.requests.size();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+	@Test
+	void isEmptyAtFirst() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0L, histogram.getCount());
+		assertEquals(0L, histogram.getMean());
+		assertEquals(0L, histogram.getPercentile(99.0D));
+		assertEquals(0L, histogram.getMaximum());
+	}
+
+	@Test
+	void keepsSmallValuesExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long nanos = 1L; nanos <= 10L; nanos++) {
+			histogram.record(nanos);
+		}
+		assertEquals(10L, histogram.getCount());
+		assertEquals(5L, histogram.getMean());
+		assertEquals(1L, histogram.getPercentile(0.0D));
+		assertEquals(5L, histogram.getPercentile(50.0D));
+		assertEquals(9L, histogram.getPercentile(90.0D));
+		assertEquals(10L, histogram.getPercentile(100.0D));
+		assertEquals(10L, histogram.getMaximum());
+	}
+
+	@Test
+	void keepsLargeValuesWithinTheBucketError() {
+		for (long nanos : new long[] {16L, 17L, 1_000L, 123_456L, 999_999_999L, 1_000_000_000L}) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(nanos);
+			// A larger value keeps the maximum from capping the bucket bound.
+			histogram.record(Long.MAX_VALUE / 2L);
+			long median = histogram.getPercentile(50.0D);
+			assertTrue(median >= nanos && median <= nanos + nanos / 8L, nanos + " was reported as " + median);
+		}
+	}
+
+	@Test
+	void recordsNegativeValuesAsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5L);
+		assertEquals(1L, histogram.getCount());
+		assertEquals(0L, histogram.getPercentile(50.0D));
+		assertEquals(0L, histogram.getMaximum());
+	}
+
+	@Test
+	void rejectsPercentilesOutOfRange() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(-1.0D));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(100.5D));
+	}
+
+	@Test
+	void snapshotsInMilliseconds() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(2L));
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(4L));
+		LatencySnapshot snapshot = histogram.snapshot();
+		assertEquals(2L, snapshot.getCount());
+		assertEquals(3.0D, snapshot.getMean(), 0.0D);
+		assertEquals(4.0D, snapshot.getMaximum(), 0.0D);
+		assertTrue(snapshot.getMedian() >= 2.0D && snapshot.getMedian() <= 2.25D);
+	}
+}
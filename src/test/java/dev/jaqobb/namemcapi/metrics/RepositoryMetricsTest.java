@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.metrics;
+
+import dev.jaqobb.namemcapi.cache.CacheListener;
+import dev.jaqobb.namemcapi.cache.RemovalCause;
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryMetricsTest {
+
+	@Test
+	void countsHitsAndMisses() {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 7, () -> 2, () -> 3L);
+		assertEquals(1.0D, metrics.getHitRatio(), 0.0D);
+		metrics.recordHit();
+		metrics.recordHit();
+		metrics.recordHit();
+		metrics.recordMiss();
+		assertEquals(3L, metrics.getHitCount());
+		assertEquals(1L, metrics.getMissCount());
+		assertEquals(0.75D, metrics.getHitRatio(), 0.0D);
+		// The rest is read from the repository.
+		assertEquals(7, metrics.getSize());
+		assertEquals(2, metrics.getInFlightCount());
+		assertEquals(3L, metrics.getCoalescedCount());
+	}
+
+	@Test
+	void recordsFetchAndNetworkTimes() {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 0, () -> 0, () -> 0L);
+		metrics.recordFetch(10L, 4L);
+		metrics.recordNotModified(6L);
+		assertEquals(1L, metrics.getFetchCount());
+		assertEquals(1L, metrics.getNotModifiedCount());
+		assertEquals(2L, metrics.getNetworkTimeHistogram().getCount());
+		assertEquals(8L, metrics.getNetworkTimeHistogram().getMean());
+		assertEquals(1L, metrics.getParseTimeHistogram().getCount());
+		assertEquals(4L, metrics.getParseTimeHistogram().getMaximum());
+	}
+
+	@Test
+	void countsFailuresByType() {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 0, () -> 0, () -> 0L);
+		metrics.recordFailure(new HttpStatusException(404, "/server/unknown/likes"));
+		metrics.recordFailure(new HttpStatusException(404, "/server/other/likes"));
+		metrics.recordFailure(new IOException("Connection reset"));
+		assertEquals(3L, metrics.getFailureCount());
+		assertEquals(Map.of("HTTP 404", 2L, "IOException", 1L), metrics.getFailureCounts());
+	}
+
+	@Test
+	void countsRemovalsReportedByTheStore() {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 0, () -> 0, () -> 0L);
+		CacheListener<String, String> listener = metrics.asCacheListener();
+		listener.onRemoval("first", "value", RemovalCause.SIZE);
+		listener.onRemoval("second", "value", RemovalCause.EXPIRED);
+		listener.onRemoval("third", "value", RemovalCause.EXPIRED);
+		listener.onRemoval("fourth", "value", RemovalCause.EXPLICIT);
+		assertEquals(1L, metrics.getEvictionCount());
+		assertEquals(2L, metrics.getExpirationCount());
+	}
+
+	@Test
+	void forwardsEventsToListeners() {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 0, () -> 0, () -> 0L);
+		List<String> events = new ArrayList<>();
+		MetricsListener listener = new MetricsListener() {
+
+			@Override
+			public void onHit(@NotNull String source) {
+				events.add(source + " hit");
+			}
+
+			@Override
+			public void onFetch(@NotNull String source, long networkTime, long parseTime) {
+				events.add(source + " fetch " + networkTime + " " + parseTime);
+			}
+
+			@Override
+			public void onRemoval(@NotNull String source, @NotNull RemovalCause cause) {
+				events.add(source + " " + cause);
+			}
+		};
+		metrics.addListener(listener);
+		metrics.recordHit();
+		metrics.recordMiss();
+		metrics.recordFetch(10L, 4L);
+		metrics.recordRemoval(RemovalCause.SIZE);
+		metrics.removeListener(listener);
+		metrics.recordHit();
+		assertEquals(List.of("Test hit", "Test fetch 10 4", "Test SIZE"), events);
+	}
+
+	@Test
+	void publishesItselfAsAnMBean() throws Exception {
+		RepositoryMetrics metrics = new RepositoryMetrics("Test", () -> 0, () -> 0, () -> 0L);
+		metrics.recordHit();
+		ObjectName objectName = metrics.registerMBean();
+		assertSame(objectName, metrics.registerMBean());
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(1L, server.getAttribute(objectName, "HitCount"));
+		assertEquals("Test", server.getAttribute(objectName, "Name"));
+		metrics.unregisterMBean();
+		assertFalse(server.isRegistered(objectName));
+		// Unregistering twice is harmless.
+		metrics.unregisterMBean();
+		assertTrue(objectName.getCanonicalName().startsWith("dev.jaqobb.namemcapi:"));
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.profile;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FootprintReportTest {
+
+	@Test
+	void sizesLatin1AndOtherStrings() {
+		assertEquals(FootprintReport.STRING_SIZE + 24L, FootprintReport.getStringSize("Notch"));
+		assertEquals(FootprintReport.STRING_SIZE + 32L, FootprintReport.getStringSize("Player_123"));
+		// A single character outside Latin-1 makes every character take two bytes.
+		assertEquals(FootprintReport.STRING_SIZE + 32L, FootprintReport.getStringSize("Graczż"));
+	}
+
+	@Test
+	void alignsToEightBytes() {
+		assertEquals(0L, FootprintReport.align(0L));
+		assertEquals(8L, FootprintReport.align(1L));
+		assertEquals(8L, FootprintReport.align(8L));
+		assertEquals(16L, FootprintReport.align(9L));
+	}
+
+	@Test
+	void reportsTheSavedBytes() {
+		FootprintReport report = new FootprintReport(2, 4L, 3L, 5L, 3L, 8L, 1000L, 1500L);
+		assertEquals(500L, report.getEstimatedSavedBytes());
+		assertEquals(2, report.getProfileCount());
+		assertEquals(8L, report.getInternedCount());
+	}
+}
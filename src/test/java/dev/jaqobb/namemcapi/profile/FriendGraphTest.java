@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.http.Response;
+import dev.jaqobb.namemcapi.http.StubTransport;
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FriendGraphTest {
+
+	private static final UUID ROOT = UUID.fromString("00000000-0000-4000-8000-000000000000");
+	private static final UUID FIRST = UUID.fromString("00000000-0000-4000-8000-000000000001");
+	private static final UUID SECOND = UUID.fromString("00000000-0000-4000-8000-000000000002");
+	private static final UUID THIRD = UUID.fromString("00000000-0000-4000-8000-000000000003");
+	private static final UUID FOURTH = UUID.fromString("00000000-0000-4000-8000-000000000004");
+	private static final UUID FIFTH = UUID.fromString("00000000-0000-4000-8000-000000000005");
+	// The root knows the first and second player, who both know the third. The fourth player is unknown to NameMC.
+	private static final Map<UUID, List<UUID>> FRIENDS = Map.of(
+		ROOT, List.of(FIRST, SECOND),
+		FIRST, List.of(THIRD, ROOT),
+		SECOND, List.of(THIRD, FOURTH),
+		THIRD, List.of(FIFTH),
+		FIFTH, List.of());
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private StubTransport transport;
+	private ProfileRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		this.transport = new StubTransport(request -> CompletableFuture.completedFuture(respond(request.getPath())));
+		this.repository = new ProfileRepository(5L, ChronoUnit.MINUTES, this.transport, this.executor);
+	}
+
+	@AfterEach
+	void shutDown() {
+		this.repository.close();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void findsMutualFriends() throws Exception {
+		FriendGraph graph = new FriendGraph(this.repository);
+		Collection<Friend> mutualFriends = graph.getMutualFriends(FIRST, SECOND).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, mutualFriends.size());
+		assertEquals(THIRD, mutualFriends.iterator().next().getUniqueId());
+	}
+
+	@Test
+	void stopsAtTheMaximumDepth() throws Exception {
+		FriendCrawl crawl = new FriendGraph(this.repository).crawl(ROOT, 2, 100).get(5L, TimeUnit.SECONDS);
+		assertIterableEquals(List.of(ROOT, FIRST, SECOND, THIRD, FOURTH), crawl.getDepths().keySet());
+		assertEquals(0, crawl.getDepth(ROOT));
+		assertIterableEquals(List.of(FIRST, SECOND), crawl.getUniqueIds(1));
+		assertIterableEquals(List.of(THIRD, FOURTH), crawl.getUniqueIds(2));
+		assertEquals(-1, crawl.getDepth(FIFTH));
+		// The unique ids found at the maximum depth are not fetched.
+		assertIterableEquals(List.of(ROOT, FIRST, SECOND), crawl.getProfiles().keySet());
+		assertFalse(crawl.isTruncated());
+		assertTrue(crawl.getFailures().isEmpty());
+	}
+
+	@Test
+	void visitsEveryUniqueIdOnce() throws Exception {
+		FriendCrawl crawl = new FriendGraph(this.repository).crawl(ROOT, 10, 100).get(5L, TimeUnit.SECONDS);
+		assertEquals(6, crawl.getVisitedCount());
+		// The root is a friend of its own friend and the third player is shared, yet each profile is requested once.
+		assertEquals(6, this.transport.getRequestCount());
+		assertEquals(2, crawl.getDepth(THIRD));
+		assertEquals(3, crawl.getDepth(FIFTH));
+	}
+
+	@Test
+	void reportsFailedProfilesWithoutFailingTheCrawl() throws Exception {
+		FriendCrawl crawl = new FriendGraph(this.repository).crawl(ROOT, 10, 100).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, crawl.getFailures().size());
+		assertTrue(crawl.getFailures().get(FOURTH) instanceof IOException);
+		assertNull(crawl.getProfile(FOURTH));
+		assertNotNull(crawl.getProfile(FIFTH));
+	}
+
+	@Test
+	void stopsVisitingOnceTheNodeBudgetIsSpent() throws Exception {
+		FriendCrawl crawl = new FriendGraph(this.repository).crawl(ROOT, 10, 4).get(5L, TimeUnit.SECONDS);
+		assertTrue(crawl.isTruncated());
+		assertIterableEquals(List.of(ROOT, FIRST, SECOND, THIRD), crawl.getDepths().keySet());
+		// Every visited unique id is still fetched, even the one found as the budget ran out.
+		assertIterableEquals(List.of(ROOT, FIRST, SECOND, THIRD), crawl.getProfiles().keySet());
+		assertEquals(4, this.transport.getRequestCount());
+	}
+
+	@Test
+	void rejectsInvalidLimits() {
+		FriendGraph graph = new FriendGraph(this.repository);
+		assertThrows(IllegalArgumentException.class, () -> graph.crawl(ROOT, -1, 100));
+		assertThrows(IllegalArgumentException.class, () -> graph.crawl(ROOT, 1, 0));
+	}
+
+	private static Response respond(String path) {
+		for (Map.Entry<UUID, List<UUID>> entry : FRIENDS.entrySet()) {
+			if (path.contains(entry.getKey().toString())) {
+				StringBuilder body = new StringBuilder("[");
+				for (UUID friend : entry.getValue()) {
+					if (body.length() > 1) {
+						body.append(',');
+					}
+					body.append("{\"uniqueId\":\"").append(friend).append("\",\"name\":\"").append(friend.toString(), 0, 8).append("\"}");
+				}
+				return StubTransport.response(200, body.append(']').toString());
+			}
+		}
+		return StubTransport.response(404, "");
+	}
+}
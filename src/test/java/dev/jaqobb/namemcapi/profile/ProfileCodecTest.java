@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProfileCodecTest {
+
+	private static final UUID UNIQUE_ID = UUID.fromString("2d3f6a1e-5c33-4a3c-9d7e-0c1f2b3a4d5e");
+	private static final Instant CACHE_TIME = Instant.ofEpochSecond(1_600_000_000L, 123_456_789);
+
+	@Test
+	void roundTripsProfilesWithValidators() throws IOException {
+		List<Friend> friends = List.of(new Friend(UUID.randomUUID(), "Friend"), new Friend(UUID.randomUUID(), "Ünïcödé"), new Friend(UUID.randomUUID(), ""));
+		Profile profile = new Profile(UNIQUE_ID, friends, CACHE_TIME, "\"etag\"", "Tue, 15 Sep 2020 12:00:00 GMT");
+		Profile decoded = ProfileCodec.fromBytes(ProfileCodec.toBytes(profile));
+		assertEquals(profile, decoded);
+		assertIterableEquals(friends, decoded.getFriends());
+		assertEquals("\"etag\"", decoded.getEntityTag());
+		assertEquals("Tue, 15 Sep 2020 12:00:00 GMT", decoded.getLastModified());
+	}
+
+	@Test
+	void roundTripsProfilesWithoutValidators() throws IOException {
+		Profile profile = new Profile(UNIQUE_ID, Collections.emptyList(), CACHE_TIME, null, null);
+		Profile decoded = ProfileCodec.fromBytes(ProfileCodec.toBytes(profile));
+		assertEquals(profile, decoded);
+		assertNull(decoded.getEntityTag());
+		assertNull(decoded.getLastModified());
+	}
+
+	@Test
+	void readsVersionOneRecords() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 16 + 12 + 4);
+		buffer.putInt(1);
+		buffer.putLong(UNIQUE_ID.getMostSignificantBits()).putLong(UNIQUE_ID.getLeastSignificantBits());
+		buffer.putLong(CACHE_TIME.getEpochSecond()).putInt(CACHE_TIME.getNano());
+		buffer.putInt(0);
+		Profile decoded = ProfileCodec.fromBytes(buffer.array());
+		assertEquals(new Profile(UNIQUE_ID, Collections.emptyList(), CACHE_TIME), decoded);
+		assertNull(decoded.getEntityTag());
+	}
+
+	@Test
+	void rejectsTruncatedAndUnsupportedRecords() throws IOException {
+		byte[] bytes = ProfileCodec.toBytes(new Profile(UNIQUE_ID, List.of(new Friend(UUID.randomUUID(), "Friend")), CACHE_TIME, "\"etag\"", null));
+		assertThrows(IOException.class, () -> ProfileCodec.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+		ByteBuffer.wrap(bytes).putInt(ProfileCodec.VERSION + 1);
+		assertThrows(IOException.class, () -> ProfileCodec.fromBytes(bytes));
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.profile;
+
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.http.Response;
+import dev.jaqobb.namemcapi.http.StubTransport;
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileRepositoryTest {
+
+	private static final UUID UNIQUE_ID = UUID.fromString("2d3f6a1e-5c33-4a3c-9d7e-0c1f2b3a4d5e");
+	private static final String FRIENDS = "[{\"uniqueId\":\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\",\"name\":\"Friend\"}]";
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void coalescesConcurrentMissesIntoOneRequest() throws Exception {
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		StubTransport transport = new StubTransport(request -> response);
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		List<CompletableFuture<Profile>> futures = new ArrayList<>();
+		for (int caller = 0; caller < 10; caller++) {
+			futures.add(repository.cacheProfile(UNIQUE_ID, false));
+		}
+		response.complete(StubTransport.response(200, FRIENDS));
+		Profile profile = futures.get(0).get(5L, TimeUnit.SECONDS);
+		for (CompletableFuture<Profile> future : futures) {
+			assertSame(profile, future.get(5L, TimeUnit.SECONDS));
+		}
+		assertEquals(1, transport.getRequestCount());
+		assertEquals(1, profile.getFriends().size());
+		assertSame(profile, repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(1, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void storesACopyWhenNotModified() throws Exception {
+		List<Response> responses = new ArrayList<>(List.of(StubTransport.response(200, FRIENDS, Map.of("ETag", "\"v1\"")), StubTransport.response(304, "")));
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(responses.remove(0)));
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		Profile profile = repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		Instant cacheTime = profile.getCacheTime();
+		int hashCode = profile.hashCode();
+		Thread.sleep(5L);
+		Profile revalidatedProfile = repository.cacheProfile(UNIQUE_ID, true).get(5L, TimeUnit.SECONDS);
+		assertEquals("\"v1\"", transport.getRequests().get(1).getHeaders().get("If-None-Match"));
+		// The profile handed out earlier is left untouched.
+		assertNotSame(profile, revalidatedProfile);
+		assertEquals(cacheTime, profile.getCacheTime());
+		assertEquals(hashCode, profile.hashCode());
+		assertTrue(revalidatedProfile.getCacheTime().isAfter(cacheTime));
+		assertIterableEquals(profile.getFriends(), revalidatedProfile.getFriends());
+		assertEquals("\"v1\"", revalidatedProfile.getEntityTag());
+		assertSame(revalidatedProfile, repository.getIfPresent(UNIQUE_ID));
+		repository.close();
+	}
+
+	@Test
+	void getIfPresentFollowsTheTicker() throws Exception {
+		AtomicLong now = new AtomicLong();
+		Ticker ticker = now::get;
+		StubTransport transport = StubTransport.answering(200, FRIENDS);
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor, ticker);
+		Profile profile = new Profile(UNIQUE_ID, List.of());
+		repository.addProfile(profile);
+		assertSame(profile, repository.getIfPresent(UNIQUE_ID));
+		now.addAndGet(TimeUnit.MINUTES.toNanos(4L));
+		assertSame(profile, repository.getIfPresent(UNIQUE_ID));
+		assertTrue(repository.isProfileValid(profile));
+		assertSame(profile, repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(0, transport.getRequestCount());
+		// The wall clock did not move, yet queries agree with getIfPresent that the profile expired.
+		now.addAndGet(TimeUnit.MINUTES.toNanos(1L));
+		assertNull(repository.getIfPresent(UNIQUE_ID));
+		assertFalse(repository.isProfileValid(profile));
+		Profile fetchedProfile = repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, transport.getRequestCount());
+		assertSame(fetchedProfile, repository.getIfPresent(UNIQUE_ID));
+		repository.close();
+	}
+
+	@Test
+	void closeDrainsInFlightQueries() throws Exception {
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, new StubTransport(request -> response), this.executor);
+		CompletableFuture<Profile> future = repository.cacheProfile(UNIQUE_ID, false);
+		Thread closer = new Thread(repository::close);
+		closer.start();
+		closer.join(100L);
+		assertTrue(closer.isAlive());
+		response.complete(StubTransport.response(200, FRIENDS));
+		closer.join(5000L);
+		assertFalse(closer.isAlive());
+		assertEquals(1, future.get(5L, TimeUnit.SECONDS).getFriends().size());
+	}
+
+	@Test
+	void closeRejectsNewQueries() {
+		StubTransport transport = StubTransport.answering(200, FRIENDS);
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		repository.close();
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS));
+		assertTrue(exception.getCause() instanceof IllegalStateException);
+		assertEquals(0, transport.getRequestCount());
+		// The executor was handed in, so it is left running for its owner.
+		assertFalse(this.executor.isShutdown());
+	}
+
+	@Test
+	void closeShutsDownAnOwnedExecutor() throws Exception {
+		List<Thread> readers = new CopyOnWriteArrayList<>();
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(new Response(200, Map.of(), new ByteArrayInputStream(FRIENDS.getBytes(StandardCharsets.UTF_8)) {
+
+			@Override
+			public synchronized int read(byte[] bytes, int offset, int length) {
+				readers.add(Thread.currentThread());
+				return super.read(bytes, offset, length);
+			}
+		})));
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport);
+		repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		Thread reader = readers.get(0);
+		assertNotSame(Thread.currentThread(), reader);
+		repository.close();
+		reader.join(5000L);
+		assertFalse(reader.isAlive());
+	}
+
+	@Test
+	void cachesProfilesInABatch() throws Exception {
+		UUID cachedUniqueId = UUID.fromString("6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6");
+		UUID missingUniqueId = UUID.fromString("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9");
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(request.getPath().contains(missingUniqueId.toString()) ? StubTransport.response(404, "") : StubTransport.response(200, FRIENDS)));
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		Profile cachedProfile = new Profile(cachedUniqueId, List.of());
+		repository.addProfile(cachedProfile);
+		Map<UUID, CompletableFuture<Profile>> results = repository.cacheProfiles(List.of(UNIQUE_ID, cachedUniqueId, missingUniqueId), false, 1);
+		assertEquals(1, results.get(UNIQUE_ID).get(5L, TimeUnit.SECONDS).getFriends().size());
+		assertSame(cachedProfile, results.get(cachedUniqueId).get(5L, TimeUnit.SECONDS));
+		assertThrows(ExecutionException.class, () -> results.get(missingUniqueId).get(5L, TimeUnit.SECONDS));
+		assertEquals(2, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void emitsFriendChangesOnlyWhenARefreshChangesTheFriends() throws Exception {
+		String changedFriends = "[{\"uniqueId\":\"0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9\",\"name\":\"Other\"}]";
+		List<Response> responses = new ArrayList<>(List.of(StubTransport.response(200, FRIENDS, Map.of("ETag", "\"v1\"")), StubTransport.response(304, ""), StubTransport.response(200, changedFriends), StubTransport.response(200, changedFriends)));
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(responses.remove(0)));
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		List<FriendChange> changes = new CopyOnWriteArrayList<>();
+		repository.addFriendChangeListener(changes::add);
+		Profile profile = repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		repository.cacheProfile(UNIQUE_ID, true).get(5L, TimeUnit.SECONDS);
+		// Neither the first fetch nor a 304 is a change.
+		assertTrue(changes.isEmpty());
+		Profile changedProfile = repository.cacheProfile(UNIQUE_ID, true).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, changes.size());
+		FriendChange change = changes.get(0);
+		assertEquals(UNIQUE_ID, change.getUniqueId());
+		assertSame(changedProfile, change.getProfile());
+		assertIterableEquals(changedProfile.getFriends(), change.getAddedFriends());
+		assertIterableEquals(profile.getFriends(), change.getRemovedFriends());
+		repository.cacheProfile(UNIQUE_ID, true).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, changes.size());
+		repository.close();
+	}
+
+	@Test
+	void sharesEqualFriendsAcrossProfilesAndRepositories() throws Exception {
+		UUID otherUniqueId = UUID.fromString("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9");
+		String otherFriends = "[{\"uniqueId\":\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\",\"name\":\"Friend\"},{\"uniqueId\":\"2d3f6a1e-5c33-4a3c-9d7e-0c1f2b3a4d5e\",\"name\":\"Root\"}]";
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(StubTransport.response(200, request.getPath().contains(UNIQUE_ID.toString()) ? FRIENDS : otherFriends)));
+		ProfileRepository repository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		ProfileRepository otherRepository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		Profile profile = repository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		Profile otherProfile = repository.cacheProfile(otherUniqueId, false).get(5L, TimeUnit.SECONDS);
+		Profile copiedProfile = otherRepository.cacheProfile(UNIQUE_ID, false).get(5L, TimeUnit.SECONDS);
+		Friend friend = profile.getFriends().iterator().next();
+		assertSame(friend, otherProfile.getFriends().iterator().next());
+		assertSame(friend, copiedProfile.getFriends().iterator().next());
+		assertSame(profile.getUniqueId(), copiedProfile.getUniqueId());
+		// A profile and the friend entries pointing at it share their unique id too.
+		assertSame(profile.getUniqueId(), otherProfile.getFriend(UNIQUE_ID).getUniqueId());
+		FootprintReport report = repository.getFootprint();
+		assertEquals(2, report.getProfileCount());
+		assertEquals(3L, report.getFriendReferenceCount());
+		assertEquals(2L, report.getDistinctFriendCount());
+		assertEquals(3L, report.getDistinctUniqueIdCount());
+		assertEquals(2L, report.getDistinctNameCount());
+		long nameBytes = FootprintReport.getStringSize("Friend") + FootprintReport.getStringSize("Root");
+		assertEquals(3L * FootprintReport.UNIQUE_ID_SIZE + 2L * FootprintReport.FRIEND_SIZE + nameBytes + report.getInternedCount() * FootprintReport.INTERNER_ENTRY_SIZE, report.getEstimatedBytes());
+		assertEquals(2L * FootprintReport.UNIQUE_ID_SIZE + 3L * (FootprintReport.FRIEND_SIZE + FootprintReport.UNIQUE_ID_SIZE) + 2L * FootprintReport.getStringSize("Friend") + FootprintReport.getStringSize("Root"), report.getEstimatedUnsharedBytes());
+		repository.close();
+		otherRepository.close();
+	}
+}
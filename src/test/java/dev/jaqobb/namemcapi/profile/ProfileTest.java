@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.profile;
+
+import com.sun.management.ThreadMXBean;
+import dev.jaqobb.namemcapi.profile.friend.Friend;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileTest {
+
+	private static final Friend NOTCH = new Friend(new UUID(1L, 1L), "Notch");
+	private static final Friend JEB = new Friend(new UUID(2L, 2L), "jeb_");
+	private static final Friend UPPER_JEB = new Friend(new UUID(3L, 3L), "JEB_");
+
+	@Test
+	void findsFriendsByUniqueId() {
+		Profile profile = new Profile(new UUID(0L, 0L), List.of(NOTCH, JEB));
+		assertSame(NOTCH, profile.getFriend(new UUID(1L, 1L)));
+		assertSame(JEB, profile.getFriend(new UUID(2L, 2L)));
+		assertNull(profile.getFriend(new UUID(9L, 9L)));
+	}
+
+	@Test
+	void findsFriendsByName() {
+		Profile profile = new Profile(new UUID(0L, 0L), List.of(NOTCH, JEB));
+		assertSame(NOTCH, profile.getFriend("Notch"));
+		assertNull(profile.getFriend("notch"));
+		assertSame(NOTCH, profile.getFriend("notch", false));
+		assertSame(NOTCH, profile.getFriend("NOTCH", false));
+		assertSame(JEB, profile.getFriend("JeB_", false));
+		assertNull(profile.getFriend("Dinnerbone", false));
+	}
+
+	@Test
+	void tellsApartNamesThatOnlyDifferByCase() {
+		Profile profile = new Profile(new UUID(0L, 0L), List.of(JEB, UPPER_JEB));
+		assertSame(JEB, profile.getFriend("jeb_"));
+		assertSame(UPPER_JEB, profile.getFriend("JEB_"));
+		assertNull(profile.getFriend("Jeb_"));
+		assertSame(JEB, profile.getFriend("Jeb_", false));
+	}
+
+	@Test
+	void lowerCaseLookupsDoNotAllocate() {
+		Profile profile = new Profile(new UUID(0L, 0L), List.of(NOTCH, JEB));
+		String name = "notch";
+		for (int lookup = 0; lookup < 10_000; lookup++) {
+			profile.getFriend(name, false);
+		}
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		int found = 0;
+		for (int lookup = 0; lookup < 100_000; lookup++) {
+			if (profile.getFriend(name, false) != null) {
+				found++;
+			}
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		assertEquals(100_000, found);
+		// Far less than one byte per lookup, leaving room for the measurement itself.
+		assertTrue(allocated < 10_000L, allocated + " bytes allocated");
+	}
+}
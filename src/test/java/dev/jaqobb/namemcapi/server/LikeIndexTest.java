@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.util.UniqueIdSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeIndexTest {
+
+	private static final long VALID_UNTIL = TimeUnit.HOURS.toNanos(1L);
+
+	private final AtomicLong time = new AtomicLong();
+	private final Ticker ticker = this.time::get;
+
+	@Test
+	void findsEveryServerALikeBelongsTo() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		LikeIndex index = new LikeIndex(this.ticker);
+		index.add("a.example.com", UniqueIdSet.copyOf(List.of(first, second)), VALID_UNTIL);
+		index.add("b.example.com", UniqueIdSet.copyOf(List.of(first)), VALID_UNTIL);
+		assertEquals(Set.of("a.example.com", "b.example.com"), get(index, first));
+		assertEquals(Set.of("a.example.com"), get(index, second));
+		assertEquals(Set.of(), get(index, UUID.randomUUID()));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	void replacesAndRemovesLikes() {
+		UUID kept = UUID.randomUUID();
+		UUID dropped = UUID.randomUUID();
+		UUID added = UUID.randomUUID();
+		LikeIndex index = new LikeIndex(this.ticker);
+		index.add("a.example.com", UniqueIdSet.copyOf(List.of(kept, dropped)), VALID_UNTIL);
+		index.replace("a.example.com", UniqueIdSet.copyOf(List.of(kept, added)), VALID_UNTIL);
+		assertEquals(Set.of("a.example.com"), get(index, kept));
+		assertEquals(Set.of(), get(index, dropped));
+		assertEquals(Set.of("a.example.com"), get(index, added));
+		assertEquals(2, index.size());
+		index.remove("a.example.com");
+		assertEquals(Set.of(), get(index, kept));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void dropsExpiredServersUntilTheyAreReplaced() {
+		UUID like = UUID.randomUUID();
+		UniqueIdSet likes = UniqueIdSet.copyOf(List.of(like));
+		LikeIndex index = new LikeIndex(this.ticker);
+		index.add("valid.example.com", likes, VALID_UNTIL);
+		index.add("expired.example.com", likes, TimeUnit.MINUTES.toNanos(1L));
+		this.time.set(TimeUnit.MINUTES.toNanos(1L));
+		assertEquals(Set.of("valid.example.com"), get(index, like));
+		// Revalidating the expired server adds it back.
+		index.replace("expired.example.com", likes, VALID_UNTIL);
+		assertEquals(Set.of("valid.example.com", "expired.example.com"), get(index, like));
+		index.remove("expired.example.com");
+		assertEquals(Set.of("valid.example.com"), get(index, like));
+	}
+
+	@Test
+	void behavesLikeAMapAcrossManyServers() {
+		Random random = new Random(42L);
+		List<UUID> uniqueIds = new ArrayList<>();
+		for (int index = 0; index < 500; index++) {
+			uniqueIds.add(UUID.randomUUID());
+		}
+		LikeIndex index = new LikeIndex(this.ticker);
+		Map<String, Set<UUID>> expected = new HashMap<>();
+		// More servers than one mask word has bits, so the masks have to grow.
+		for (int round = 0; round < 5000; round++) {
+			String address = "server" + random.nextInt(200) + ".example.com";
+			int operation = random.nextInt(3);
+			if (operation == 0 && expected.containsKey(address)) {
+				index.remove(address);
+				expected.remove(address);
+				continue;
+			}
+			Set<UUID> likes = new HashSet<>();
+			int likeCount = random.nextInt(40);
+			for (int like = 0; like < likeCount; like++) {
+				likes.add(uniqueIds.get(random.nextInt(uniqueIds.size())));
+			}
+			if (expected.containsKey(address)) {
+				index.replace(address, UniqueIdSet.copyOf(likes), VALID_UNTIL);
+			} else {
+				index.add(address, UniqueIdSet.copyOf(likes), VALID_UNTIL);
+			}
+			expected.put(address, likes);
+		}
+		Set<UUID> liked = new HashSet<>();
+		for (UUID uniqueId : uniqueIds) {
+			Set<String> addresses = new HashSet<>();
+			expected.forEach((address, likes) -> {
+				if (likes.contains(uniqueId)) {
+					addresses.add(address);
+				}
+			});
+			assertEquals(addresses, get(index, uniqueId));
+			if (!addresses.isEmpty()) {
+				liked.add(uniqueId);
+			}
+		}
+		assertEquals(liked.size(), index.size());
+		for (String address : new ArrayList<>(expected.keySet())) {
+			index.remove(address);
+		}
+		assertEquals(0, index.size());
+		assertTrue(get(index, uniqueIds.get(0)).isEmpty());
+	}
+
+	private static Set<String> get(LikeIndex index, UUID uniqueId) {
+		List<String> addresses = index.get(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+		Set<String> result = new HashSet<>(addresses);
+		assertEquals(addresses.size(), result.size());
+		return result;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServerCodecTest {
+
+	private static final String ADDRESS = "play.example.com";
+	private static final Instant CACHE_TIME = Instant.ofEpochSecond(1_600_000_000L, 123_456_789);
+
+	@Test
+	void roundTripsServersWithValidators() throws IOException {
+		List<UUID> likes = new ArrayList<>();
+		for (int index = 0; index < 500; index++) {
+			likes.add(UUID.randomUUID());
+		}
+		Server server = new Server(ADDRESS, likes, CACHE_TIME, "W/\"etag\"", "Tue, 15 Sep 2020 12:00:00 GMT");
+		Server decoded = ServerCodec.fromBytes(ServerCodec.toBytes(server));
+		assertEquals(server, decoded);
+		assertEquals(new HashSet<>(likes), new HashSet<>(decoded.getLikes()));
+		assertEquals("W/\"etag\"", decoded.getEntityTag());
+		assertEquals("Tue, 15 Sep 2020 12:00:00 GMT", decoded.getLastModified());
+	}
+
+	@Test
+	void roundTripsServersWithoutValidators() throws IOException {
+		Server server = new Server(ADDRESS, Collections.emptyList(), CACHE_TIME, null, null);
+		Server decoded = ServerCodec.fromBytes(ServerCodec.toBytes(server));
+		assertEquals(server, decoded);
+		assertNull(decoded.getEntityTag());
+		assertNull(decoded.getLastModified());
+	}
+
+	@Test
+	void readsVersionOneRecords() throws IOException {
+		byte[] address = ADDRESS.getBytes();
+		UUID like = UUID.randomUUID();
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 2 + address.length + 12 + 4 + 16);
+		buffer.putInt(1);
+		buffer.putShort((short) address.length).put(address);
+		buffer.putLong(CACHE_TIME.getEpochSecond()).putInt(CACHE_TIME.getNano());
+		buffer.putInt(1).putLong(like.getMostSignificantBits()).putLong(like.getLeastSignificantBits());
+		Server decoded = ServerCodec.fromBytes(buffer.array());
+		assertEquals(new Server(ADDRESS, List.of(like), CACHE_TIME), decoded);
+		assertNull(decoded.getEntityTag());
+	}
+
+	@Test
+	void rejectsTruncatedAndUnsupportedRecords() throws IOException {
+		byte[] bytes = ServerCodec.toBytes(new Server(ADDRESS, List.of(UUID.randomUUID()), CACHE_TIME, null, "Tue, 15 Sep 2020 12:00:00 GMT"));
+		assertThrows(IOException.class, () -> ServerCodec.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+		ByteBuffer.wrap(bytes).putInt(ServerCodec.VERSION + 1);
+		assertThrows(IOException.class, () -> ServerCodec.fromBytes(bytes));
+	}
+}
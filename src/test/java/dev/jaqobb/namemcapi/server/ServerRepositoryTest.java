@@ -0,0 +1,387 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.server;
+
+import dev.jaqobb.namemcapi.cache.LookupResult;
+import dev.jaqobb.namemcapi.cache.LookupStatus;
+import dev.jaqobb.namemcapi.cache.Ticker;
+import dev.jaqobb.namemcapi.http.HttpStatusException;
+import dev.jaqobb.namemcapi.http.Response;
+import dev.jaqobb.namemcapi.http.StubTransport;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerRepositoryTest {
+
+	private static final String ADDRESS = "play.example.com";
+	private static final String LIKES = "[\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\",\"2d3f6a1e-5c33-4a3c-9d7e-0c1f2b3a4d5e\"]";
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void storesACopyWhenNotModified() throws Exception {
+		List<Response> responses = new ArrayList<>(List.of(StubTransport.response(200, LIKES, Map.of("Last-Modified", "Tue, 15 Sep 2020 12:00:00 GMT")), StubTransport.response(304, "")));
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(responses.remove(0)));
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		Server server = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		Instant cacheTime = server.getCacheTime();
+		int hashCode = server.hashCode();
+		Thread.sleep(5L);
+		Server revalidatedServer = repository.cacheServer(ADDRESS, true).get(5L, TimeUnit.SECONDS);
+		assertEquals("Tue, 15 Sep 2020 12:00:00 GMT", transport.getRequests().get(1).getHeaders().get("If-Modified-Since"));
+		// The server handed out earlier is left untouched.
+		assertNotSame(server, revalidatedServer);
+		assertEquals(cacheTime, server.getCacheTime());
+		assertEquals(hashCode, server.hashCode());
+		assertTrue(revalidatedServer.getCacheTime().isAfter(cacheTime));
+		assertSame(server.getLikeSet(), revalidatedServer.getLikeSet());
+		assertEquals("Tue, 15 Sep 2020 12:00:00 GMT", revalidatedServer.getLastModified());
+		assertSame(revalidatedServer, repository.getIfPresent(ADDRESS));
+		repository.close();
+	}
+
+	@Test
+	void dropsExpiredServersFromLikeQueriesUntilRevalidated() throws Exception {
+		List<Response> responses = new ArrayList<>(List.of(StubTransport.response(200, LIKES, Map.of("ETag", "\"v1\"")), StubTransport.response(304, "")));
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(responses.remove(0)));
+		ServerRepository repository = new ServerRepository(200L, ChronoUnit.MILLIS, transport, this.executor);
+		UUID like = UUID.fromString("6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6");
+		repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertEquals(List.of(ADDRESS), repository.getLikedServerAddresses(like));
+		Thread.sleep(300L);
+		// Expired, but kept for revalidation because it has validators.
+		assertEquals(List.of(), repository.getLikedServerAddresses(like));
+		repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertEquals(2, transport.getRequestCount());
+		assertEquals(List.of(ADDRESS), repository.getLikedServerAddresses(like));
+		repository.clearServers();
+		assertEquals(List.of(), repository.getLikedServerAddresses(like));
+		repository.close();
+	}
+
+	@Test
+	void comparesLikesAcrossServers() {
+		Random random = new Random(42L);
+		List<UUID> players = new ArrayList<>();
+		for (int player = 0; player < 20000; player++) {
+			players.add(UUID.randomUUID());
+		}
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, StubTransport.answering(200, "[]"), this.executor);
+		List<String> addresses = new ArrayList<>();
+		List<Set<UUID>> likes = new ArrayList<>();
+		for (int server = 0; server < 5; server++) {
+			// Some servers share a small pool of players, so their chunks are dense enough to be stored as bitmaps.
+			Set<UUID> serverLikes = new HashSet<>();
+			int pool = server < 3 ? 6000 : players.size();
+			for (int like = 0; like < 5000; like++) {
+				serverLikes.add(players.get(random.nextInt(pool)));
+			}
+			repository.addServer(new Server("Server" + server + ".example.com", serverLikes));
+			addresses.add("server" + server + ".example.com");
+			likes.add(serverLikes);
+		}
+		Set<UUID> common = new HashSet<>(likes.get(0));
+		common.retainAll(likes.get(1));
+		common.retainAll(likes.get(2));
+		assertEquals(common, repository.getCommonLikes(addresses.subList(0, 3)));
+		assertEquals(common.size(), repository.getCommonLikeCount(addresses.subList(0, 3)));
+		Set<UUID> pair = new HashSet<>(likes.get(0));
+		pair.retainAll(likes.get(3));
+		assertEquals(pair.size(), repository.getCommonLikeCount(List.of(addresses.get(0), addresses.get(3))));
+		Set<UUID> all = new HashSet<>();
+		likes.forEach(all::addAll);
+		assertEquals(all, repository.getAllLikes(addresses));
+		assertEquals(all.size(), repository.getAllLikeCount(addresses));
+		Set<UUID> exclusive = new HashSet<>(likes.get(4));
+		for (int server = 0; server < 4; server++) {
+			exclusive.removeAll(likes.get(server));
+		}
+		assertEquals(exclusive, repository.getExclusiveLikes("SERVER4.example.com", addresses.subList(0, 4)));
+		assertEquals(exclusive.size(), repository.getExclusiveLikeCount(addresses.get(4), addresses.subList(0, 4)));
+		// Replacing a server rebuilds its bitmap.
+		Set<UUID> replaced = new HashSet<>(likes.get(0));
+		replaced.add(UUID.randomUUID());
+		repository.removeServer(new Server(addresses.get(0), List.of()));
+		repository.addServer(new Server(addresses.get(0), replaced));
+		assertEquals(replaced.size(), repository.getAllLikeCount(List.of(addresses.get(0))));
+		assertThrows(IllegalArgumentException.class, () -> repository.getCommonLikes(List.of("missing.example.com")));
+		repository.close();
+	}
+
+	@Test
+	void closeDrainsInFlightQueriesAndRejectsNewOnes() throws Exception {
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		StubTransport transport = new StubTransport(request -> response);
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		CompletableFuture<Server> future = repository.cacheServer(ADDRESS, false);
+		Thread closer = new Thread(repository::close);
+		closer.start();
+		closer.join(100L);
+		assertTrue(closer.isAlive());
+		response.complete(StubTransport.response(200, LIKES));
+		closer.join(5000L);
+		assertFalse(closer.isAlive());
+		assertEquals(2, future.get(5L, TimeUnit.SECONDS).getLikes().size());
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> repository.cacheServer("other.example.com", false).get(5L, TimeUnit.SECONDS));
+		assertTrue(exception.getCause() instanceof IllegalStateException);
+		assertEquals(1, transport.getRequestCount());
+		assertFalse(this.executor.isShutdown());
+	}
+
+	@Test
+	void capsBatchQueriesInFlight() throws Exception {
+		List<CompletableFuture<Response>> responses = new CopyOnWriteArrayList<>();
+		StubTransport transport = new StubTransport(request -> {
+			CompletableFuture<Response> response = new CompletableFuture<>();
+			responses.add(response);
+			return response;
+		});
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		List<String> addresses = List.of("a.example.com", "b.example.com", "c.example.com", "d.example.com", "e.example.com");
+		Map<String, CompletableFuture<Server>> results = repository.cacheServers(addresses, false, 2);
+		assertEquals(2, transport.getRequestCount());
+		responses.get(0).complete(StubTransport.response(500, ""));
+		for (int index = 1; index < addresses.size(); index++) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+			while (responses.size() <= index + 1 && responses.size() < addresses.size() && System.nanoTime() < deadline) {
+				Thread.sleep(1L);
+			}
+			assertTrue(transport.getRequestCount() <= index + 2);
+			responses.get(index).complete(StubTransport.response(200, LIKES));
+		}
+		assertThrows(ExecutionException.class, () -> results.get("a.example.com").get(5L, TimeUnit.SECONDS));
+		for (String address : addresses.subList(1, addresses.size())) {
+			assertEquals(2, results.get(address).get(5L, TimeUnit.SECONDS).getLikes().size());
+		}
+		repository.close();
+	}
+
+	@Test
+	void servesStaleServersWhileOneRefreshRuns() throws Exception {
+		List<CompletableFuture<Response>> responses = new CopyOnWriteArrayList<>();
+		StubTransport transport = new StubTransport(request -> {
+			CompletableFuture<Response> response = new CompletableFuture<>();
+			responses.add(response);
+			return response;
+		});
+		ServerRepository repository = new ServerRepository(200L, ChronoUnit.MILLIS, transport, this.executor);
+		repository.setStaleWhileRevalidate(1L, ChronoUnit.MINUTES);
+		CompletableFuture<Server> future = repository.cacheServer(ADDRESS, false);
+		responses.get(0).complete(StubTransport.response(200, LIKES));
+		Server staleServer = future.get(5L, TimeUnit.SECONDS);
+		Thread.sleep(300L);
+		for (int caller = 0; caller < 5; caller++) {
+			assertSame(staleServer, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		}
+		assertEquals(2, transport.getRequestCount());
+		responses.get(1).complete(StubTransport.response(200, "[]"));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+		while (repository.getServers().contains(staleServer) && System.nanoTime() < deadline) {
+			Thread.sleep(1L);
+		}
+		Server refreshedServer = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertNotSame(staleServer, refreshedServer);
+		assertTrue(refreshedServer.getLikes().isEmpty());
+		assertEquals(2, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void refreshesAheadOnlyPastTheFactor() throws Exception {
+		StubTransport transport = StubTransport.answering(200, LIKES);
+		ServerRepository repository = new ServerRepository(1L, ChronoUnit.SECONDS, transport, this.executor);
+		repository.setRefreshAheadFactor(0.5D);
+		Server server = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertSame(server, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(1, transport.getRequestCount());
+		Thread.sleep(600L);
+		// Past half the cache duration the cached server is still served, but refreshed in the background.
+		assertSame(server, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(2, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void emitsLikeChangesOnlyWhenARefreshChangesTheLikes() throws Exception {
+		String changedLikes = "[\"2d3f6a1e-5c33-4a3c-9d7e-0c1f2b3a4d5e\",\"0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9\"]";
+		List<Response> responses = new ArrayList<>(List.of(StubTransport.response(200, LIKES, Map.of("ETag", "\"v1\"")), StubTransport.response(304, ""), StubTransport.response(200, changedLikes), StubTransport.response(200, changedLikes)));
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(responses.remove(0)));
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		List<LikeChange> changes = new CopyOnWriteArrayList<>();
+		repository.addLikeChangeListener(changes::add);
+		Server server = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		repository.cacheServer(ADDRESS, true).get(5L, TimeUnit.SECONDS);
+		// Neither the first fetch nor a 304 is a change.
+		assertTrue(changes.isEmpty());
+		Server changedServer = repository.cacheServer(ADDRESS, true).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, changes.size());
+		LikeChange change = changes.get(0);
+		assertEquals(ADDRESS, change.getAddress());
+		assertEquals(server.getLikes(), change.getPreviousServer().getLikes());
+		assertSame(changedServer, change.getServer());
+		assertIterableEquals(List.of(UUID.fromString("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9")), change.getAddedLikes());
+		assertIterableEquals(List.of(UUID.fromString("6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6")), change.getRemovedLikes());
+		repository.cacheServer(ADDRESS, true).get(5L, TimeUnit.SECONDS);
+		assertEquals(1, changes.size());
+		repository.close();
+	}
+
+	@Test
+	void remembersUnknownServersAndFailuresForTheirOwnDurations() throws Exception {
+		StubTransport transport = new StubTransport(request -> {
+			if (request.getPath().contains("unknown.example.com")) {
+				return CompletableFuture.completedFuture(StubTransport.response(404, ""));
+			}
+			return CompletableFuture.failedFuture(new IOException("Connection reset"));
+		});
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		repository.setNotFoundDuration(2L, ChronoUnit.SECONDS);
+		repository.setTransientFailureDuration(200L, ChronoUnit.MILLIS);
+		for (int query = 0; query < 2; query++) {
+			LookupResult<Server> unknown = repository.lookupServer("unknown.example.com", false).get(5L, TimeUnit.SECONDS);
+			assertEquals(LookupStatus.NOT_FOUND, unknown.getStatus());
+			assertTrue(unknown.getFailure() instanceof HttpStatusException);
+			LookupResult<Server> unreachable = repository.lookupServer("unreachable.example.com", false).get(5L, TimeUnit.SECONDS);
+			assertEquals(LookupStatus.FAILED, unreachable.getStatus());
+			assertTrue(unreachable.getFailure() instanceof IOException);
+		}
+		// The second round was answered by the negative cache.
+		assertEquals(2, transport.getRequestCount());
+		assertEquals(2L, repository.getMetrics().getNegativeHitCount());
+		Thread.sleep(300L);
+		repository.lookupServer("unknown.example.com", false).get(5L, TimeUnit.SECONDS);
+		repository.lookupServer("unreachable.example.com", false).get(5L, TimeUnit.SECONDS);
+		// Only the transient failure has been forgotten by now.
+		assertEquals(3, transport.getRequestCount());
+		assertEquals("/server/unreachable.example.com/likes", transport.getRequests().get(2).getPath());
+		repository.close();
+	}
+
+	@Test
+	void doesNotRememberLocalRejections() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		StubTransport transport = new StubTransport(request -> attempts.getAndIncrement() == 0 ? CompletableFuture.failedFuture(new RejectedExecutionException("Rate limiter queue is full")) : CompletableFuture.completedFuture(StubTransport.response(200, LIKES)));
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		assertEquals(LookupStatus.FAILED, repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).getStatus());
+		LookupResult<Server> result = repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertTrue(result.isFound());
+		assertEquals(2, result.getValueOrThrow().getLikes().size());
+		assertEquals(2, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void forgetsFailuresOnceTheServerIsKnown() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(attempts.getAndIncrement() == 0 ? StubTransport.response(404, "") : StubTransport.response(200, LIKES)));
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		assertTrue(repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).isNotFound());
+		assertTrue(repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).isNotFound());
+		assertEquals(1, transport.getRequestCount());
+		// Forcing a re-cache goes past the negative cache, and the success clears it.
+		Server server = repository.cacheServer(ADDRESS, true).get(5L, TimeUnit.SECONDS);
+		assertEquals(2, transport.getRequestCount());
+		repository.removeServer(server);
+		assertSame(LookupStatus.FOUND, repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).getStatus());
+		assertEquals(3, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void forgetsFailuresOfAddedServers() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		StubTransport transport = new StubTransport(request -> CompletableFuture.completedFuture(attempts.getAndIncrement() == 0 ? StubTransport.response(404, "") : StubTransport.response(200, LIKES)));
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		assertTrue(repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).isNotFound());
+		Server server = new Server(ADDRESS, List.of());
+		repository.addServer(server);
+		repository.removeServer(server);
+		assertTrue(repository.lookupServer(ADDRESS, false).get(5L, TimeUnit.SECONDS).isFound());
+		assertEquals(2, transport.getRequestCount());
+		repository.close();
+	}
+
+	@Test
+	void refreshesAheadAndServesStaleServersOnTheTicker() throws Exception {
+		AtomicLong now = new AtomicLong();
+		Ticker ticker = now::get;
+		StubTransport transport = StubTransport.answering(200, LIKES);
+		ServerRepository repository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, Runnable::run, ticker);
+		repository.setStaleWhileRevalidate(1L, ChronoUnit.MINUTES);
+		repository.setRefreshAheadFactor(0.5D);
+		Server server = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		now.addAndGet(TimeUnit.MINUTES.toNanos(2L));
+		assertSame(server, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(1, transport.getRequestCount());
+		// Past the factor, the cached server is still served while it is refreshed ahead.
+		now.addAndGet(TimeUnit.MINUTES.toNanos(1L));
+		assertSame(server, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(2, transport.getRequestCount());
+		Server refreshedServer = repository.getIfPresent(ADDRESS);
+		assertNotSame(server, refreshedServer);
+		// Expired but within the grace period, the server is served stale while it is refreshed.
+		now.addAndGet(TimeUnit.SECONDS.toNanos(330L));
+		assertFalse(repository.isServerValid(refreshedServer));
+		assertSame(refreshedServer, repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS));
+		assertEquals(3, transport.getRequestCount());
+		// Past the grace period, the query waits for NameMC.
+		now.addAndGet(TimeUnit.MINUTES.toNanos(7L));
+		Server fetchedServer = repository.cacheServer(ADDRESS, false).get(5L, TimeUnit.SECONDS);
+		assertEquals(4, transport.getRequestCount());
+		assertSame(fetchedServer, repository.getIfPresent(ADDRESS));
+		repository.close();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchHelperTest {
+
+	@Test
+	void servesHitsWithoutQuerying() throws Exception {
+		List<Integer> queried = new ArrayList<>();
+		Map<Integer, CompletableFuture<String>> results = BatchHelper.executeBounded(List.of(1, 2, 3, 2), 2, key -> key == 2 ? "cached" : null, key -> {
+			queried.add(key);
+			return CompletableFuture.completedFuture("queried " + key);
+		});
+		assertIterableEquals(List.of(1, 3), queried);
+		assertIterableEquals(List.of(1, 2, 3), results.keySet());
+		assertEquals("cached", results.get(2).get());
+		assertEquals("queried 3", results.get(3).get());
+	}
+
+	@Test
+	void capsQueriesInFlight() {
+		List<CompletableFuture<String>> queries = new ArrayList<>();
+		AtomicInteger maximumInFlight = new AtomicInteger();
+		Map<Integer, CompletableFuture<String>> results = BatchHelper.executeBounded(List.of(1, 2, 3, 4, 5, 6, 7), 3, key -> null, key -> {
+			CompletableFuture<String> query = new CompletableFuture<>();
+			queries.add(query);
+			maximumInFlight.accumulateAndGet((int) queries.stream().filter(future -> !future.isDone()).count(), Math::max);
+			return query;
+		});
+		assertEquals(3, queries.size());
+		for (int index = 0; index < queries.size(); index++) {
+			queries.get(index).complete("value " + index);
+		}
+		assertEquals(7, queries.size());
+		assertEquals(3, maximumInFlight.get());
+		assertTrue(results.values().stream().allMatch(CompletableFuture::isDone));
+	}
+
+	@Test
+	void keepsGoingAfterAFailure() throws Exception {
+		Map<Integer, CompletableFuture<String>> results = BatchHelper.executeBounded(List.of(1, 2, 3), 1, key -> null, key -> {
+			if (key == 1) {
+				return CompletableFuture.failedFuture(new IOException("Unreachable"));
+			}
+			if (key == 2) {
+				throw new IllegalStateException("Broken");
+			}
+			return CompletableFuture.completedFuture("value");
+		});
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> results.get(1).get());
+		assertTrue(exception.getCause() instanceof IOException);
+		exception = assertThrows(ExecutionException.class, () -> results.get(2).get());
+		assertTrue(exception.getCause() instanceof IllegalStateException);
+		assertEquals("value", results.get(3).get());
+	}
+
+	@Test
+	void rejectsParallelismBelowOne() {
+		assertThrows(IllegalArgumentException.class, () -> BatchHelper.executeBounded(List.of(1), 0, key -> null, key -> CompletableFuture.completedFuture("value")));
+	}
+}
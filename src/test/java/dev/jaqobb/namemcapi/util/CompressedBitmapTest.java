@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+	@Test
+	void buildsChunksAroundTheArraySizeLimit() {
+		for (int count = 4095; count <= 4098; count++) {
+			// Every value in one chunk, so the chunk is stored as an array up to 4096 values and as a bitmap above.
+			int[] values = new int[count];
+			CompressedBitmap.Builder builder = CompressedBitmap.builder();
+			CompressedBitmap.Builder firstHalf = CompressedBitmap.builder();
+			CompressedBitmap.Builder secondHalf = CompressedBitmap.builder();
+			for (int index = 0; index < count; index++) {
+				values[index] = 0x30000 + index * 7;
+				builder.add(values[index]);
+				(index % 2 == 0 ? firstHalf : secondHalf).add(values[index]);
+			}
+			CompressedBitmap bitmap = builder.build();
+			assertEquals(count, bitmap.getCardinality());
+			assertArrayEquals(values, bitmap.toArray());
+			for (int value : values) {
+				assertTrue(bitmap.contains(value));
+				assertFalse(bitmap.contains(value + 1));
+			}
+			CompressedBitmap united = firstHalf.build().or(secondHalf.build());
+			assertEquals(bitmap, united);
+			assertEquals(bitmap.hashCode(), united.hashCode());
+			assertEquals(bitmap, bitmap.and(bitmap));
+			assertEquals(count, bitmap.andCardinality(bitmap));
+			assertTrue(bitmap.andNot(bitmap).isEmpty());
+			assertEquals(count - 1, bitmap.andNot(CompressedBitmap.of(values[0])).getCardinality());
+		}
+	}
+
+	@Test
+	void ignoresDuplicatesAtTheArraySizeLimit() {
+		CompressedBitmap.Builder builder = CompressedBitmap.builder();
+		for (int index = 0; index < 4097; index++) {
+			builder.add(index).add(index);
+		}
+		CompressedBitmap bitmap = builder.build();
+		assertEquals(4097, bitmap.getCardinality());
+		assertTrue(bitmap.contains(4096));
+		assertFalse(bitmap.contains(4097));
+	}
+
+	@Test
+	void ordersValuesAsUnsignedIntegers() {
+		CompressedBitmap bitmap = CompressedBitmap.of(-1, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, 1);
+		assertArrayEquals(new int[] {0, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, -1}, bitmap.toArray());
+		assertTrue(CompressedBitmap.builder().build().isEmpty());
+	}
+
+	@Test
+	void behavesLikeAHashSet() {
+		Random random = new Random(42L);
+		int[] ranges = {100, 5000, 70000, 300000, Integer.MAX_VALUE};
+		for (int round = 0; round < 60; round++) {
+			int range = ranges[round % ranges.length];
+			Set<Integer> first = new HashSet<>();
+			Set<Integer> second = new HashSet<>();
+			CompressedBitmap firstBitmap = fill(random, range, random.nextInt(round % 3 == 0 ? 100000 : 3000), first);
+			CompressedBitmap secondBitmap = fill(random, range, random.nextInt(round % 2 == 0 ? 100000 : 3000), second);
+			assertMatches(first, firstBitmap);
+			assertMatches(second, secondBitmap);
+			Set<Integer> and = new HashSet<>(first);
+			and.retainAll(second);
+			Set<Integer> or = new HashSet<>(first);
+			or.addAll(second);
+			Set<Integer> andNot = new HashSet<>(first);
+			andNot.removeAll(second);
+			assertMatches(and, firstBitmap.and(secondBitmap));
+			assertMatches(or, firstBitmap.or(secondBitmap));
+			assertMatches(andNot, firstBitmap.andNot(secondBitmap));
+			assertEquals(and.size(), firstBitmap.andCardinality(secondBitmap));
+			// The same values are equal however they were computed.
+			assertEquals(firstBitmap.andNot(secondBitmap), firstBitmap.or(secondBitmap).andNot(secondBitmap));
+			for (int probe = 0; probe < 100; probe++) {
+				int value = random.nextInt(range);
+				assertEquals(first.contains(value), firstBitmap.contains(value));
+			}
+		}
+	}
+
+	private static CompressedBitmap fill(Random random, int range, int count, Set<Integer> values) {
+		CompressedBitmap.Builder builder = CompressedBitmap.builder();
+		for (int index = 0; index < count; index++) {
+			int value = range == Integer.MAX_VALUE ? random.nextInt() : random.nextInt(range);
+			values.add(value);
+			builder.add(value);
+		}
+		return builder.build();
+	}
+
+	private static void assertMatches(Set<Integer> expected, CompressedBitmap bitmap) {
+		assertEquals(expected.size(), bitmap.getCardinality());
+		List<Integer> values = new ArrayList<>(expected);
+		values.sort(Integer::compareUnsigned);
+		int[] expectedValues = values.stream().mapToInt(Integer::intValue).toArray();
+		assertArrayEquals(expectedValues, bitmap.toArray());
+		PrimitiveIterator.OfInt iterator = bitmap.iterator();
+		int[] iterated = new int[expectedValues.length];
+		for (int index = 0; index < iterated.length; index++) {
+			iterated[index] = iterator.nextInt();
+		}
+		assertFalse(iterator.hasNext());
+		assertTrue(Arrays.equals(expectedValues, iterated));
+	}
+}
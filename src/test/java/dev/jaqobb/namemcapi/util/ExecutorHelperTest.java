@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutorHelperTest {
+
+	@Test
+	void namesQueryThreads() throws Exception {
+		ExecutorService executor = ExecutorHelper.newQueryExecutor("Query");
+		Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+		assertTrue(name.get(5L, TimeUnit.SECONDS).startsWith("Query #"));
+		ExecutorHelper.shutdownAndAwait(executor);
+	}
+
+	@Test
+	void shutdownAndAwaitLetsRunningTasksFinish() throws Exception {
+		ExecutorService executor = ExecutorHelper.newQueryExecutor("Query");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> task = executor.submit(() -> {
+			started.countDown();
+			release.await();
+			return null;
+		});
+		started.await(5L, TimeUnit.SECONDS);
+		Thread closer = new Thread(() -> ExecutorHelper.shutdownAndAwait(executor));
+		closer.start();
+		closer.join(100L);
+		assertTrue(closer.isAlive());
+		assertTrue(executor.isShutdown());
+		release.countDown();
+		closer.join(5000L);
+		assertFalse(closer.isAlive());
+		assertTrue(task.isDone());
+		assertTrue(executor.isTerminated());
+	}
+}
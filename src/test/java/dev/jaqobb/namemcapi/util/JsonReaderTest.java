@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonReaderTest {
+
+	private static final UUID UNIQUE_ID = UUID.fromString("6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6");
+
+	@Test
+	void readsFriendObjectsAndSkipsUnknownFields() throws IOException {
+		String json = "[ {\"uniqueId\": \"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\", \"extra\": {\"nested\": [1, 2.5, true, null, \"]\"]}, \"name\": \"First\"},\n"
+			+ "\t{\"name\": \"Second\", \"score\": -12e3, \"uniqueId\": \"6b0b5c1e2f3a4d5e8f90a1b2c3d4e5f6\"} ]";
+		JsonReader reader = new JsonReader(new StringReader(json));
+		List<String> names = new ArrayList<>();
+		List<UUID> uniqueIds = new ArrayList<>();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "uniqueId":
+						uniqueIds.add(reader.nextUniqueId());
+						break;
+					case "name":
+						names.add(reader.nextString());
+						break;
+					default:
+						reader.skipValue();
+						break;
+				}
+			}
+			reader.endObject();
+		}
+		reader.endArray();
+		assertEquals(List.of("First", "Second"), names);
+		assertEquals(List.of(UNIQUE_ID, UNIQUE_ID), uniqueIds);
+	}
+
+	@Test
+	void readsUniqueIdsIntoABuilder() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader("[\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\",\"00000000-0000-0000-0000-000000000001\"]"));
+		UniqueIdSet.Builder builder = UniqueIdSet.builder();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			reader.nextUniqueId(builder);
+		}
+		reader.endArray();
+		UniqueIdSet uniqueIds = builder.build();
+		assertEquals(2, uniqueIds.size());
+		assertTrue(uniqueIds.contains(UNIQUE_ID));
+		assertTrue(uniqueIds.contains(new UUID(0L, 1L)));
+	}
+
+	@Test
+	void decodesEscapes() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader("[\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\u0041\"]"));
+		reader.beginArray();
+		assertEquals("a\"b\\c/d\n\t\u00e9A", reader.nextString());
+		reader.endArray();
+	}
+
+	@Test
+	void readsValuesSplitAcrossReads() throws IOException {
+		StringBuilder name = new StringBuilder();
+		for (int index = 0; index < 20_000; index++) {
+			name.append((char) ('a' + index % 26));
+		}
+		String json = "[{\"name\":\"" + name + "\\u0041\",\"uniqueId\":\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\"}]";
+		JsonReader reader = new JsonReader(new TrickleReader(json));
+		reader.beginArray();
+		reader.beginObject();
+		assertEquals("name", reader.nextName());
+		assertEquals(name + "A", reader.nextString());
+		assertEquals("uniqueId", reader.nextName());
+		assertEquals(UNIQUE_ID, reader.nextUniqueId());
+		reader.endObject();
+		assertFalse(reader.hasNext());
+		reader.endArray();
+	}
+
+	@Test
+	void rejectsMalformedUniqueIds() {
+		assertThrows(IOException.class, () -> readUniqueId("[\"6b0b5c1e-2f3a-4d5e-8f90\"]"));
+		assertThrows(IOException.class, () -> readUniqueId("[\"6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6aa\"]"));
+		assertThrows(IOException.class, () -> readUniqueId("[\"zb0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6\"]"));
+	}
+
+	@Test
+	void rejectsMalformedDocuments() {
+		assertThrows(IOException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("[\"first\" \"second\"]"));
+			reader.beginArray();
+			reader.nextString();
+			reader.nextString();
+		});
+		assertThrows(IOException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("{\"name\" \"value\"}"));
+			reader.beginObject();
+			reader.nextName();
+			reader.nextString();
+		});
+		assertThrows(IOException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("[1}"));
+			reader.beginArray();
+			reader.skipValue();
+			reader.endObject();
+		});
+		assertThrows(IOException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("{\"name\":1}"));
+			reader.beginObject();
+			reader.nextString();
+		});
+	}
+
+	@Test
+	void reportsTruncatedInput() {
+		assertThrows(EOFException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("[\"unterminated"));
+			reader.beginArray();
+			reader.nextString();
+		});
+		assertThrows(EOFException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("[\"6b0b5c1e-2f3a"));
+			reader.beginArray();
+			reader.nextUniqueId();
+		});
+		assertThrows(EOFException.class, () -> {
+			JsonReader reader = new JsonReader(new StringReader("[  "));
+			reader.beginArray();
+			reader.hasNext();
+		});
+	}
+
+	private static void readUniqueId(@NotNull String json) throws IOException {
+		JsonReader reader = new JsonReader(new StringReader(json));
+		reader.beginArray();
+		reader.nextUniqueId();
+	}
+
+	// Hands out at most 7 characters per read, so values straddle buffer refills.
+	private static final class TrickleReader extends Reader {
+
+		@NotNull
+		private final String content;
+		private int position;
+
+		private TrickleReader(@NotNull String content) {
+			this.content = content;
+		}
+
+		@Override
+		public int read(@NotNull char[] buffer, int offset, int length) {
+			if (this.position == this.content.length()) {
+				return -1;
+			}
+			int count = Math.min(Math.min(length, 7), this.content.length() - this.position);
+			this.content.getChars(this.position, this.position + count, buffer, offset);
+			this.position += count;
+			return count;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
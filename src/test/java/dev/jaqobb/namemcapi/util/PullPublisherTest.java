@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PullPublisherTest {
+
+	@Test
+	void opensTheSourceOnlyOnceSomethingIsRequested() {
+		CountingSource source = new CountingSource(5);
+		AtomicInteger opened = new AtomicInteger();
+		PullPublisher<Integer> publisher = new PullPublisher<>(Runnable::run, () -> {
+			opened.incrementAndGet();
+			return CompletableFuture.completedFuture(source);
+		});
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		publisher.subscribe(subscriber);
+		assertEquals(0, opened.get());
+		subscriber.subscription.request(1L);
+		assertEquals(1, opened.get());
+		assertIterableEquals(List.of(0), subscriber.elements);
+	}
+
+	@Test
+	void readsNothingWithoutDemand() {
+		CountingSource source = new CountingSource(5);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new PullPublisher<>(Runnable::run, () -> CompletableFuture.completedFuture(source)).subscribe(subscriber);
+		subscriber.subscription.request(2L);
+		assertIterableEquals(List.of(0, 1), subscriber.elements);
+		// One check per element emitted, and none past the demand.
+		assertEquals(2, source.hasNextCalls);
+		assertEquals(2, source.nextCalls);
+		subscriber.subscription.request(3L);
+		assertIterableEquals(List.of(0, 1, 2, 3, 4), subscriber.elements);
+		assertEquals(5, source.hasNextCalls);
+		assertFalse(subscriber.completed);
+		assertFalse(source.closed);
+		// The end is only found once more is requested.
+		subscriber.subscription.request(1L);
+		assertEquals(6, source.hasNextCalls);
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.failure);
+		assertTrue(source.closed);
+	}
+
+	@Test
+	void completesEmptySourcesOnTheFirstRequest() {
+		CountingSource source = new CountingSource(0);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new PullPublisher<>(Runnable::run, () -> CompletableFuture.completedFuture(source)).subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertTrue(subscriber.elements.isEmpty());
+		assertTrue(subscriber.completed);
+		assertTrue(source.closed);
+	}
+
+	@Test
+	void closesTheSourceWhenCancelled() {
+		CountingSource source = new CountingSource(5);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new PullPublisher<>(Runnable::run, () -> CompletableFuture.completedFuture(source)).subscribe(subscriber);
+		subscriber.subscription.request(1L);
+		subscriber.subscription.cancel();
+		assertTrue(source.closed);
+		assertFalse(subscriber.completed);
+		assertNull(subscriber.failure);
+		subscriber.subscription.request(1L);
+		assertEquals(1, subscriber.elements.size());
+	}
+
+	@Test
+	void closesASourceThatOpensAfterCancellation() {
+		CountingSource source = new CountingSource(5);
+		CompletableFuture<PullPublisher.Source<Integer>> opening = new CompletableFuture<>();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new PullPublisher<>(Runnable::run, () -> opening).subscribe(subscriber);
+		subscriber.subscription.request(1L);
+		subscriber.subscription.cancel();
+		opening.complete(source);
+		assertTrue(source.closed);
+		assertTrue(subscriber.elements.isEmpty());
+	}
+
+	@Test
+	void signalsFailures() {
+		RecordingSubscriber invalidRequest = new RecordingSubscriber();
+		new PullPublisher<>(Runnable::run, () -> CompletableFuture.completedFuture(new CountingSource(5))).subscribe(invalidRequest);
+		invalidRequest.subscription.request(0L);
+		assertTrue(invalidRequest.failure instanceof IllegalArgumentException);
+		RecordingSubscriber failedOpen = new RecordingSubscriber();
+		new PullPublisher<Integer>(Runnable::run, () -> CompletableFuture.failedFuture(new IOException("Unreachable"))).subscribe(failedOpen);
+		failedOpen.subscription.request(1L);
+		assertTrue(failedOpen.failure instanceof IOException);
+		assertFalse(failedOpen.completed);
+	}
+
+	private static final class CountingSource implements PullPublisher.Source<Integer> {
+
+		private final int size;
+		private int hasNextCalls;
+		private int nextCalls;
+		private boolean closed;
+
+		private CountingSource(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public boolean hasNext() {
+			this.hasNextCalls++;
+			return this.nextCalls < this.size;
+		}
+
+		@NotNull
+		@Override
+		public Integer next() {
+			return this.nextCalls++;
+		}
+
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+	}
+
+	private static final class RecordingSubscriber implements Flow.Subscriber<Integer> {
+
+		private final List<Integer> elements = new ArrayList<>();
+		private Flow.Subscription subscription;
+		private boolean completed;
+		private Throwable failure;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(Integer element) {
+			this.elements.add(element);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.failure = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			this.completed = true;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UniqueIdSetTest {
+
+	@Test
+	void sortsAndDeduplicates() {
+		UUID first = new UUID(1L, 2L);
+		UUID second = new UUID(-5L, 0L);
+		UUID third = new UUID(1L, -1L);
+		UniqueIdSet uniqueIds = UniqueIdSet.builder().add(third).add(first).add(second).add(first).build();
+		assertEquals(3, uniqueIds.size());
+		assertEquals(second, uniqueIds.get(0));
+		assertEquals(third, uniqueIds.get(1));
+		assertEquals(first, uniqueIds.get(2));
+		assertEquals(List.of(second, third, first), new ArrayList<>(uniqueIds));
+	}
+
+	@Test
+	void behavesLikeAHashSet() {
+		Random random = new Random(42L);
+		Set<UUID> expected = new HashSet<>();
+		UniqueIdSet.Builder builder = UniqueIdSet.builder(0);
+		for (int index = 0; index < 5_000; index++) {
+			UUID uniqueId = new UUID(random.nextInt(100), random.nextLong());
+			expected.add(uniqueId);
+			builder.add(uniqueId);
+		}
+		UniqueIdSet uniqueIds = builder.build();
+		assertEquals(expected.size(), uniqueIds.size());
+		assertEquals(expected, uniqueIds);
+		assertEquals(uniqueIds, expected);
+		assertEquals(expected.hashCode(), uniqueIds.hashCode());
+		for (UUID uniqueId : expected) {
+			assertTrue(uniqueIds.contains(uniqueId));
+			int index = uniqueIds.indexOf(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+			assertEquals(uniqueId, uniqueIds.get(index));
+		}
+		assertFalse(uniqueIds.contains(new UUID(1_000L, 0L)));
+		assertFalse(uniqueIds.contains("not a unique id"));
+		assertTrue(uniqueIds.indexOf(1_000L, 0L) < 0);
+	}
+
+	@Test
+	void computesDifferences() {
+		UUID first = new UUID(0L, 1L);
+		UUID second = new UUID(0L, 2L);
+		UUID third = new UUID(0L, 3L);
+		UniqueIdSet all = UniqueIdSet.copyOf(List.of(first, second, third));
+		UniqueIdSet some = UniqueIdSet.copyOf(List.of(second, new UUID(9L, 9L)));
+		assertEquals(Set.of(first, third), all.difference(some));
+		assertEquals(Set.of(new UUID(9L, 9L)), some.difference(all));
+		assertSame(UniqueIdSet.empty(), all.difference(all));
+		assertSame(all, all.difference(UniqueIdSet.empty()));
+		assertSame(all, all.difference(UniqueIdSet.copyOf(List.of(new UUID(5L, 5L)))));
+	}
+
+	@Test
+	void copyOfReusesUniqueIdSets() {
+		UniqueIdSet uniqueIds = UniqueIdSet.copyOf(List.of(new UUID(1L, 1L)));
+		assertSame(uniqueIds, UniqueIdSet.copyOf(uniqueIds));
+		assertSame(UniqueIdSet.empty(), UniqueIdSet.copyOf(List.of()));
+	}
+
+	@Test
+	void isImmutable() {
+		UniqueIdSet uniqueIds = UniqueIdSet.copyOf(List.of(new UUID(1L, 1L)));
+		assertThrows(UnsupportedOperationException.class, () -> uniqueIds.add(new UUID(2L, 2L)));
+		assertThrows(UnsupportedOperationException.class, () -> uniqueIds.iterator().remove());
+		assertThrows(IllegalArgumentException.class, () -> UniqueIdSet.builder(-1));
+	}
+}
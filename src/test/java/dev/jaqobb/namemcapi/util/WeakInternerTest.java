@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.jaqobb.namemcapi.util;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeakInternerTest {
+
+	@Test
+	void returnsTheFirstInstanceForEqualValues() {
+		WeakInterner<UUID> interner = new WeakInterner<>();
+		UUID uniqueId = UUID.fromString("6b0b5c1e-2f3a-4d5e-8f90-a1b2c3d4e5f6");
+		UUID equalUniqueId = UUID.fromString(uniqueId.toString());
+		assertNotSame(uniqueId, equalUniqueId);
+		assertSame(uniqueId, interner.intern(uniqueId));
+		assertSame(uniqueId, interner.intern(equalUniqueId));
+		assertEquals(1, interner.size());
+		assertEquals(1L, interner.getSharedCount());
+	}
+
+	@Test
+	void forgetsValuesNobodyHoldsOnTo() throws Exception {
+		WeakInterner<UUID> interner = new WeakInterner<>();
+		interner.intern(new UUID(1L, 2L));
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (interner.size() > 0 && System.nanoTime() < deadline) {
+			System.gc();
+			Thread.sleep(10L);
+		}
+		assertEquals(0, interner.size());
+		UUID uniqueId = new UUID(1L, 2L);
+		assertSame(uniqueId, interner.intern(uniqueId));
+	}
+
+	@Test
+	void doesNotAllocateOnHits() {
+		WeakInterner<UUID> interner = new WeakInterner<>();
+		UUID uniqueId = interner.intern(new UUID(3L, 4L));
+		UUID equalUniqueId = new UUID(3L, 4L);
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int round = 0; round < 3; round++) {
+			long allocatedBytes = threads.getThreadAllocatedBytes(threadId);
+			for (int hit = 0; hit < 100_000; hit++) {
+				interner.intern(equalUniqueId);
+			}
+			allocatedBytes = threads.getThreadAllocatedBytes(threadId) - allocatedBytes;
+			// The first rounds may still allocate while the code is being compiled.
+			if (round == 2) {
+				assertTrue(allocatedBytes < 100_000L, allocatedBytes + " bytes allocated by 100000 hits");
+			}
+		}
+		assertSame(uniqueId, interner.intern(equalUniqueId));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Jakub Zagórski (jaqobb)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jaqobb.namemcapi.watch;
+
+import dev.jaqobb.namemcapi.http.StubTransport;
+import dev.jaqobb.namemcapi.profile.ProfileRepository;
+import dev.jaqobb.namemcapi.server.ServerRepository;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatchlistTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void keepsRefreshingWhenRefreshesFailRightAway() throws Exception {
+		StubTransport transport = new StubTransport(request -> CompletableFuture.failedFuture(new IOException("Unreachable")));
+		// Without an executor hop, every refresh fails and completes within the wake-up that started it.
+		ProfileRepository profileRepository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, Runnable::run);
+		ServerRepository serverRepository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, Runnable::run);
+		try (Watchlist watchlist = new Watchlist(profileRepository, serverRepository, 0.0D, 4)) {
+			watchlist.watchProfile(UUID.randomUUID(), Duration.ofSeconds(1L));
+			assertTrue(awaitRefreshCount(watchlist, 3L, TimeUnit.SECONDS.toNanos(5L)));
+			assertEquals(watchlist.getRefreshCount(), watchlist.getFailureCount());
+		}
+	}
+
+	@Test
+	void keepsRefreshingOtherEntriesAfterUnwatchingTheNextOne() throws Exception {
+		StubTransport transport = StubTransport.answering(200, "[]");
+		ProfileRepository profileRepository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		ServerRepository serverRepository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, this.executor);
+		try (Watchlist watchlist = new Watchlist(profileRepository, serverRepository, 0.0D, 4)) {
+			watchlist.watchServer("first.example.com", Duration.ofSeconds(1L));
+			watchlist.watchServer("second.example.com", Duration.ofSeconds(2L));
+			assertTrue(awaitRefreshCount(watchlist, 2L, TimeUnit.SECONDS.toNanos(1L)));
+			// The wake-up for the first server is already scheduled, and finds nothing to refresh once it fires.
+			watchlist.unwatchServer("first.example.com");
+			assertFalse(watchlist.isWatchingServer("first.example.com"));
+			assertTrue(awaitRefreshCount(watchlist, 4L, TimeUnit.SECONDS.toNanos(6L)));
+			assertEquals(0L, watchlist.getFailureCount());
+		}
+	}
+
+	private static boolean awaitRefreshCount(Watchlist watchlist, long refreshCount, long timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout;
+		while (watchlist.getRefreshCount() < refreshCount) {
+			if (System.nanoTime() - deadline > 0L) {
+				return false;
+			}
+			Thread.sleep(10L);
+		}
+		return true;
+	}
+
+	@Test
+	void refreshesManyEntriesThatCompleteRightAwayWithoutNesting() throws Exception {
+		int serverCount = 5000;
+		StubTransport transport = StubTransport.answering(200, "[]");
+		ProfileRepository profileRepository = new ProfileRepository(5L, ChronoUnit.MINUTES, transport, Runnable::run);
+		ServerRepository serverRepository = new ServerRepository(5L, ChronoUnit.MINUTES, transport, Runnable::run);
+		// A single slot means every refresh frees it for the next one as soon as it completes.
+		try (Watchlist watchlist = new Watchlist(profileRepository, serverRepository, 0.0D, 1)) {
+			for (int server = 0; server < serverCount; server++) {
+				watchlist.watchServer("server" + server + ".example.com", Duration.ofHours(1L));
+			}
+			assertTrue(awaitRefreshCount(watchlist, serverCount, TimeUnit.SECONDS.toNanos(30L)));
+			assertEquals(0L, watchlist.getFailureCount());
+		}
+	}
+}